@@ -0,0 +1,10 @@
+package com.minje.chatbot.cache;
+
+/**
+ * 인증 필터가 해석한 API Key 소유자 정보
+ *
+ * @param hashedKey HMAC-SHA256 해시된 API Key (DB 저장 값)
+ * @param userId    사용자 ID
+ */
+public record ApiKeyPrincipal(String hashedKey, Long userId) {
+}
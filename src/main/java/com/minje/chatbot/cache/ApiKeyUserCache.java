@@ -0,0 +1,124 @@
+package com.minje.chatbot.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.util.ApiKeyHashUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * API Key(원문) → 해시 키 → 사용자 ID 캐시
+ * - 크기 제한 + TTL 만료로 메모리 사용량과 삭제된 사용자의 잔존 시간을 제한
+ * - 적중 시 해싱과 DB 조회를 모두 생략
+ * - hit/miss/eviction 지표는 cache.* 메트릭(cache=apiKeyUser)으로 노출
+ * - 이전 pepper 해시로 찾은 사용자의 재해시 저장은 캐시 계산(키별 잠금) 밖에서 한 번만 수행
+ */
+@Component
+@Slf4j
+public class ApiKeyUserCache {
+
+    private final UserRepository userRepository;
+    private final ApiKeyHashUtil apiKeyHashUtil;
+    private final Cache<String, Entry> cache;
+
+    public ApiKeyUserCache(UserRepository userRepository,
+                           ApiKeyHashUtil apiKeyHashUtil,
+                           MeterRegistry meterRegistry,
+                           @Value("${api-key-cache.max-size:10000}") long maxSize,
+                           @Value("${api-key-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.apiKeyHashUtil = apiKeyHashUtil;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "apiKeyUser");
+    }
+
+    /**
+     * API Key 원문으로 사용자 조회. 등록되지 않은 키면 null (null은 캐시하지 않음)
+     */
+    public ApiKeyPrincipal resolve(String rawApiKey) {
+        Entry entry = cache.get(rawApiKey, this::load);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.rehash() != null) {
+            rehash(rawApiKey, entry);
+        }
+        return entry.principal();
+    }
+
+    /**
+     * 신규 등록된 사용자를 캐시에 반영
+     */
+    public ApiKeyPrincipal put(String rawApiKey, User user) {
+        ApiKeyPrincipal principal = new ApiKeyPrincipal(user.getApiKey(), user.getId());
+        cache.put(rawApiKey, new Entry(principal, null));
+        return principal;
+    }
+
+    /**
+     * 사용자 삭제 시 해당 사용자의 모든 캐시 항목 제거
+     */
+    public void evictUser(Long userId) {
+        cache.asMap().values().removeIf(entry -> entry.principal().userId().equals(userId));
+        log.info("Evicted API key cache entries for user: {}", userId);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 조회만 함 (캐시 계산 안에서 DB 쓰기 금지)
+    private Entry load(String rawApiKey) {
+        String hashedKey = apiKeyHashUtil.hash(rawApiKey);
+        Optional<User> current = userRepository.findByApiKey(hashedKey);
+        if (current.isPresent()) {
+            return new Entry(new ApiKeyPrincipal(hashedKey, current.get().getId()), null);
+        }
+        // pepper 교체 기간: 이전 pepper 해시로 저장된 사용자는 현재 pepper 해시로 갱신 예약
+        if (!apiKeyHashUtil.hasPreviousPepper()) {
+            return null;
+        }
+        return userRepository.findByApiKey(apiKeyHashUtil.hashWithPreviousPepper(rawApiKey))
+                .map(user -> new Entry(new ApiKeyPrincipal(hashedKey, user.getId()), user))
+                .orElse(null);
+    }
+
+    /**
+     * 예약된 재해시를 저장. 동시에 조회한 요청 중 항목을 먼저 바꾼 하나만 저장하며,
+     * 저장에 실패해도 인증은 성공시키고 항목을 지워 다음 요청에서 다시 시도
+     */
+    private void rehash(String rawApiKey, Entry pending) {
+        Entry rehashed = new Entry(pending.principal(), null);
+        if (!cache.asMap().replace(rawApiKey, pending, rehashed)) {
+            return;
+        }
+        User user = pending.rehash();
+        try {
+            user.setApiKey(pending.principal().hashedKey());
+            userRepository.save(user);
+            log.info("Rehashed API key with current pepper for user: {}", user.getId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to rehash API key for user {}: {}", user.getId(), e.getMessage());
+            cache.asMap().remove(rawApiKey, rehashed);
+        }
+    }
+
+    /**
+     * @param rehash 이전 pepper 해시로 찾아 현재 해시로 저장해야 하는 사용자 (없으면 null)
+     */
+    private record Entry(ApiKeyPrincipal principal, User rehash) {
+    }
+}
@@ -0,0 +1,125 @@
+package com.minje.chatbot.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.upstream.RequestFingerprint;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 동일 요청 응답 캐시 (로컬 Caffeine → Redis 2단계)
+ * - 키: RequestFingerprint (model, temperature, maxTokens, 정규화된 메시지 목록). 시스템 프롬프트는 메시지 목록에 포함
+ * - 결정적 요청(temperature 0 또는 요청의 cache 플래그)에만 적용 — 판단은 OpenAIService에서
+ * - 로컬 계층은 크기 제한 + 짧은 TTL, Redis 계층은 노드 간 공유 + 긴 TTL
+ * - Redis 장애 시 캐시 미스로 처리하여 채팅은 계속 동작
+ * - completion.cache.lookups{tier,result} 카운터와 cache.*(cache=completion) 메트릭 노출
+ */
+@Component
+@Slf4j
+public class CompletionCache {
+
+    private static final String KEY_PREFIX = "completion_cache:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Cache<String, CachedCompletion> local;
+    private final boolean enabled;
+    private final Duration redisTtl;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public CompletionCache(StringRedisTemplate stringRedisTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${completion-cache.enabled:false}") boolean enabled,
+                           @Value("${completion-cache.local-max-size:10000}") long localMaxSize,
+                           @Value("${completion-cache.local-ttl-seconds:300}") long localTtlSeconds,
+                           @Value("${completion-cache.redis-ttl-seconds:3600}") long redisTtlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "completion");
+        this.localHits = lookupCounter(meterRegistry, "local", "hit");
+        this.redisHits = lookupCounter(meterRegistry, "redis", "hit");
+        this.misses = lookupCounter(meterRegistry, "redis", "miss");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String keyOf(ChatCompletionRequest request) {
+        return RequestFingerprint.of(request);
+    }
+
+    /**
+     * 캐시 조회. 없으면 null. Redis 적중 시 로컬 계층에도 채움
+     */
+    public CompletionResult get(String key) {
+        CachedCompletion cached = local.getIfPresent(key);
+        if (cached != null) {
+            localHits.increment();
+            return cached.toResult();
+        }
+
+        try {
+            String json = stringRedisTemplate.opsForValue().get(KEY_PREFIX + key);
+            if (json != null) {
+                cached = objectMapper.readValue(json, CachedCompletion.class);
+                local.put(key, cached);
+                redisHits.increment();
+                return cached.toResult();
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Completion cache lookup failed: {}", e.getMessage());
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String key, CompletionResult result) {
+        if (result.content() == null || result.content().isEmpty()) {
+            return;
+        }
+        CachedCompletion cached = new CachedCompletion(result.content(), result.promptTokens(), result.completionTokens());
+        local.put(key, cached);
+        try {
+            stringRedisTemplate.opsForValue().set(KEY_PREFIX + key, objectMapper.writeValueAsString(cached), redisTtl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Completion cache store failed: {}", e.getMessage());
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("completion.cache.lookups")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 저장 형식 (Redis에는 JSON)
+     */
+    record CachedCompletion(String content, long promptTokens, long completionTokens) {
+
+        CompletionResult toResult() {
+            return new CompletionResult(content, promptTokens, completionTokens, true);
+        }
+    }
+}
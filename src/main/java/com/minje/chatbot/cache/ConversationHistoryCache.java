@@ -0,0 +1,484 @@
+package com.minje.chatbot.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 대화별 최근 이력 write-through 캐시 (로컬 Caffeine → 선택적 Redis 2단계)
+ * - 대화의 시스템 프롬프트와 최근 max-messages개(SYSTEM 제외, 시간순)를 보관해 매 턴의 이력 조회 SQL을 없앰
+ * - 메시지는 커밋 후 추가(ChatService.saveMessage, MessageWriteBehind) — 롤백된 턴은 반영되지 않음
+ * - 아직 읽지 않은 대화에 먼저 추가된 메시지는 부분 창(loaded=false)에 모아 두고, DB에서 읽은 창과 ID로 병합
+ *   (DB 조회와 동시에 커밋된 메시지를 잃지 않음). 부분 창은 조회에 사용하지 않음
+ * - Redis 계층(history-cache.redis-enabled): 노드 간 공유. 추가할 때마다 버전을 올리고,
+ *   로컬 창은 Redis 버전과 같을 때만 사용 — 다른 노드가 추가한 메시지를 놓치지 않음
+ * - Redis 장애 시 DB 조회로 대체하여 채팅은 계속 동작
+ * - history.cache.lookups{tier,result} 카운터와 cache.*(cache=conversation_history) 메트릭 노출
+ */
+@Component
+@Slf4j
+public class ConversationHistoryCache {
+
+    private static final String KEY_PREFIX = "history:";
+    private static final long UNKNOWN_VERSION = -1;
+
+    // KEYS: ids(zset), bodies(hash), meta(hash) / ARGV: max, ttl, [score, id, json]...
+    // 넘친 오래된 메시지는 지우고 complete=0, 버전 증가
+    private static final RedisScript<Long> APPEND = new DefaultRedisScript<>("""
+            for i = 3, #ARGV, 3 do
+              redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+              redis.call('HSET', KEYS[2], ARGV[i + 1], ARGV[i + 2])
+            end
+            local max = tonumber(ARGV[1])
+            local n = redis.call('ZCARD', KEYS[1])
+            if n > max then
+              local dropped = redis.call('ZRANGE', KEYS[1], 0, n - max - 1)
+              redis.call('ZREMRANGEBYRANK', KEYS[1], 0, n - max - 1)
+              redis.call('HDEL', KEYS[2], unpack(dropped))
+              redis.call('HSET', KEYS[3], 'complete', '0')
+            end
+            local version = redis.call('HINCRBY', KEYS[3], 'version', 1)
+            for k = 1, 3 do redis.call('EXPIRE', KEYS[k], ARGV[2]) end
+            return version""", Long.class);
+
+    // 시스템 프롬프트 설정(비어 있을 때만) 또는 DB에서 읽은 창 표시 / ARGV: loaded, complete, systemPrompt(없으면 빈 값), ttl
+    private static final RedisScript<Long> MARK = new DefaultRedisScript<>("""
+            if ARGV[1] == '1' then
+              redis.call('HSET', KEYS[3], 'loaded', '1')
+              if redis.call('HGET', KEYS[3], 'complete') ~= '0' then
+                redis.call('HSET', KEYS[3], 'complete', ARGV[2])
+              end
+            end
+            if ARGV[3] ~= '' then redis.call('HSETNX', KEYS[3], 'systemPrompt', ARGV[3]) end
+            local version = redis.call('HINCRBY', KEYS[3], 'version', 1)
+            for k = 1, 3 do redis.call('EXPIRE', KEYS[k], ARGV[4]) end
+            return version""", Long.class);
+
+    // 읽은 창이면 {version, complete, systemPrompt, json...}, 아니면 빈 목록
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ = new DefaultRedisScript<>("""
+            local meta = redis.call('HMGET', KEYS[3], 'loaded', 'complete', 'systemPrompt', 'version')
+            if meta[1] ~= '1' then return {} end
+            local result = {meta[4], meta[2], meta[3] or ''}
+            local ids = redis.call('ZRANGE', KEYS[1], 0, -1)
+            if #ids > 0 then
+              local bodies = redis.call('HMGET', KEYS[2], unpack(ids))
+              for i = 1, #bodies do
+                if bodies[i] then result[#result + 1] = bodies[i] end
+              end
+            end
+            return result""", List.class);
+
+    private final MessageRepository messageRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, Window> local;
+    private final boolean enabled;
+    private final boolean redisEnabled;
+    private final int maxMessages;
+    private final String redisTtlSeconds;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public ConversationHistoryCache(MessageRepository messageRepository,
+                                    StringRedisTemplate stringRedisTemplate,
+                                    ObjectMapper objectMapper,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${history-cache.enabled:true}") boolean enabled,
+                                    @Value("${history-cache.max-messages:100}") int maxMessages,
+                                    @Value("${history-cache.local-max-chars:20000000}") long localMaxChars,
+                                    @Value("${history-cache.local-ttl-seconds:1800}") long localTtlSeconds,
+                                    @Value("${history-cache.redis-enabled:false}") boolean redisEnabled,
+                                    @Value("${history-cache.redis-ttl-seconds:3600}") long redisTtlSeconds) {
+        this.messageRepository = messageRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.redisEnabled = enabled && redisEnabled;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.redisTtlSeconds = String.valueOf(redisTtlSeconds);
+        // 메시지 길이 합으로 제한 (대화마다 메시지 길이가 크게 다름)
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(localMaxChars)
+                .weigher((Long id, Window window) -> window.chars())
+                .expireAfterAccess(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "conversation_history");
+        this.localHits = lookupCounter(meterRegistry, "local", "hit");
+        this.redisHits = lookupCounter(meterRegistry, "redis", "hit");
+        this.misses = lookupCounter(meterRegistry, this.redisEnabled ? "redis" : "local", "miss");
+    }
+
+    /**
+     * 대화의 시스템 프롬프트와 최근 메시지. 캐시에 없으면 DB에서 읽어 채움
+     * 이번 턴의 메시지를 저장하기 전에 호출해야 함 (커밋되지 않은 메시지가 캐시에 들어가지 않도록)
+     */
+    public Window get(Long conversationId) {
+        if (!enabled) {
+            return load(conversationId);
+        }
+
+        Window cached = local.getIfPresent(conversationId);
+        if (!redisEnabled) {
+            if (cached != null && cached.loaded()) {
+                localHits.increment();
+                return cached;
+            }
+        } else {
+            Window shared = readRedis(conversationId, cached);
+            if (shared != null) {
+                return shared;
+            }
+        }
+
+        misses.increment();
+        Window loaded = load(conversationId);
+        Window merged = local.asMap().merge(conversationId, loaded, (a, b) -> Window.merge(a, b, maxMessages));
+        if (redisEnabled) {
+            storeLoaded(conversationId, loaded, merged);
+        }
+        return merged;
+    }
+
+    /**
+     * 로컬 계층만 조회 (조회 지표에 포함하지 않음)
+     */
+    public Window peek(Long conversationId) {
+        return local.getIfPresent(conversationId);
+    }
+
+    /**
+     * 새 대화 — 이력이 없으므로 DB를 읽지 않고 빈 창에서 시작 (커밋 후)
+     */
+    public void startAfterCommit(Long conversationId, String systemPrompt) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            Window started = local.asMap().merge(conversationId, Window.started(systemPrompt),
+                    (a, b) -> Window.merge(a, b, maxMessages));
+            if (redisEnabled) {
+                long version = mark(conversationId, true, true, systemPrompt);
+                local.asMap().computeIfPresent(conversationId,
+                        (id, window) -> window == started ? window.withVersion(version) : window);
+            }
+        });
+    }
+
+    /**
+     * 저장한 메시지를 커밋 후 창에 추가 (트랜잭션 밖이면 바로)
+     */
+    public void appendAfterCommit(Message message) {
+        if (enabled) {
+            afterCommit(() -> append(List.of(message)));
+        }
+    }
+
+    /**
+     * 커밋된 메시지를 창에 추가
+     */
+    public void append(List<Message> messages) {
+        if (!enabled || messages.isEmpty()) {
+            return;
+        }
+        for (Message message : messages) {
+            if (message.getRole() == Message.Role.SYSTEM) {
+                appendSystemPrompt(message);
+            } else {
+                appendMessage(message);
+            }
+        }
+    }
+
+    /**
+     * 삭제된 대화를 커밋 후 제거
+     */
+    public void evictAfterCommit(Long conversationId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> evict(conversationId));
+    }
+
+    private void evict(Long conversationId) {
+        local.invalidate(conversationId);
+        if (redisEnabled) {
+            try {
+                stringRedisTemplate.delete(keys(conversationId));
+            } catch (RuntimeException e) {
+                log.warn("History cache eviction failed for conversation {}: {}", conversationId, e.getMessage());
+            }
+        }
+    }
+
+    private void appendMessage(Message message) {
+        CachedMessage cached = CachedMessage.of(message);
+        Long version = UNKNOWN_VERSION;
+        if (redisEnabled) {
+            try {
+                version = stringRedisTemplate.execute(APPEND, keys(message.getConversationId()),
+                        String.valueOf(maxMessages), redisTtlSeconds,
+                        String.valueOf(cached.score()), String.valueOf(cached.id()), objectMapper.writeValueAsString(cached));
+            } catch (JsonProcessingException | RuntimeException e) {
+                // 다른 노드가 오래된 창을 쓰지 않도록 제거
+                log.warn("History cache append failed for conversation {}: {}", message.getConversationId(), e.getMessage());
+                evict(message.getConversationId());
+                return;
+            }
+        }
+        long appendedVersion = version != null ? version : UNKNOWN_VERSION;
+        local.asMap().compute(message.getConversationId(), (id, window) -> {
+            Window base = window != null ? window : Window.partial();
+            // 로컬 창이 바로 이전 버전일 때만 Redis와 같은 상태
+            long next = appendedVersion != UNKNOWN_VERSION && base.version() == appendedVersion - 1
+                    ? appendedVersion : UNKNOWN_VERSION;
+            return base.append(cached, maxMessages).withVersion(next);
+        });
+    }
+
+    private void appendSystemPrompt(Message message) {
+        local.asMap().computeIfPresent(message.getConversationId(),
+                (id, window) -> window.systemPrompt() == null
+                        ? window.withSystemPrompt(message.getContent()).withVersion(UNKNOWN_VERSION)
+                        : window);
+        if (redisEnabled) {
+            mark(message.getConversationId(), false, false, message.getContent());
+        }
+    }
+
+    // Redis의 창 (로컬 창이 같은 버전이면 로컬 창). 없거나 실패하면 null
+    @SuppressWarnings("unchecked")
+    private Window readRedis(Long conversationId, Window cached) {
+        try {
+            String version = (String) stringRedisTemplate.opsForHash().get(KEY_PREFIX + conversationId + ":meta", "version");
+            if (cached != null && cached.loaded() && version != null && cached.version() == Long.parseLong(version)) {
+                localHits.increment();
+                return cached;
+            }
+            List<String> result = stringRedisTemplate.execute(READ, keys(conversationId));
+            if (result == null || result.isEmpty()) {
+                return null;
+            }
+            List<CachedMessage> messages = new ArrayList<>(result.size() - 3);
+            for (String json : result.subList(3, result.size())) {
+                messages.add(objectMapper.readValue(json, CachedMessage.class));
+            }
+            Window shared = new Window(true, !"0".equals(result.get(1)),
+                    result.get(2).isEmpty() ? null : result.get(2), sorted(messages), Long.parseLong(result.get(0)));
+            local.put(conversationId, shared);
+            redisHits.increment();
+            return shared;
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("History cache lookup failed for conversation {}: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void storeLoaded(Long conversationId, Window loaded, Window merged) {
+        try {
+            if (!loaded.messages().isEmpty()) {
+                List<String> args = new ArrayList<>();
+                args.add(String.valueOf(maxMessages));
+                args.add(redisTtlSeconds);
+                for (CachedMessage message : loaded.messages()) {
+                    args.add(String.valueOf(message.score()));
+                    args.add(String.valueOf(message.id()));
+                    args.add(objectMapper.writeValueAsString(message));
+                }
+                stringRedisTemplate.execute(APPEND, keys(conversationId), args.toArray());
+            }
+            long version = mark(conversationId, true, loaded.complete(), loaded.systemPrompt());
+            // 병합된 로컬 창은 Redis 창과 내용이 다를 수 있으므로 다음 조회에서 Redis 기준으로 다시 읽음
+            local.asMap().computeIfPresent(conversationId,
+                    (id, window) -> window == merged && window.equals(loaded) ? window.withVersion(version) : window);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("History cache store failed for conversation {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    private long mark(Long conversationId, boolean loaded, boolean complete, String systemPrompt) {
+        try {
+            Long version = stringRedisTemplate.execute(MARK, keys(conversationId),
+                    loaded ? "1" : "0", complete ? "1" : "0", systemPrompt != null ? systemPrompt : "", redisTtlSeconds);
+            return version != null ? version : UNKNOWN_VERSION;
+        } catch (RuntimeException e) {
+            log.warn("History cache update failed for conversation {}: {}", conversationId, e.getMessage());
+            return UNKNOWN_VERSION;
+        }
+    }
+
+    private Window load(Long conversationId) {
+        String systemPrompt = messageRepository
+                .findFirstByConversationIdAndRoleOrderByCreatedAtAsc(conversationId, Message.Role.SYSTEM)
+                .map(Message::getContent)
+                .orElse(null);
+        // 한 건 더 읽어 창보다 오래된 메시지가 있는지 확인
+        List<Message> recent = messageRepository.findByConversationIdAndRoleNotOrderByCreatedAtDescIdDesc(
+                conversationId, Message.Role.SYSTEM, PageRequest.of(0, maxMessages + 1));
+        boolean complete = recent.size() <= maxMessages;
+        List<CachedMessage> messages = new ArrayList<>(Math.min(recent.size(), maxMessages));
+        for (Message message : recent.subList(0, Math.min(recent.size(), maxMessages))) {
+            messages.add(CachedMessage.of(message));
+        }
+        Collections.reverse(messages);
+        return new Window(true, complete, systemPrompt, messages, UNKNOWN_VERSION);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static List<String> keys(Long conversationId) {
+        String prefix = KEY_PREFIX + conversationId;
+        return List.of(prefix + ":ids", prefix + ":bodies", prefix + ":meta");
+    }
+
+    private static List<CachedMessage> sorted(List<CachedMessage> messages) {
+        messages.sort(CachedMessage.ORDER);
+        return messages;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("history.cache.lookups")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 대화의 최근 이력 창 (불변)
+     *
+     * @param loaded   DB에서 읽었거나 새 대화로 시작한 창 (false면 커밋 후 추가된 메시지만 모은 부분 창)
+     * @param complete 대화의 SYSTEM 외 메시지를 모두 담고 있음 (false면 창보다 오래된 메시지가 DB에 있음)
+     * @param messages 시간순 (created_at, id)
+     * @param version  Redis 창의 버전 (모르면 -1)
+     */
+    public record Window(boolean loaded, boolean complete, String systemPrompt, List<CachedMessage> messages,
+                         long version) {
+
+        static Window partial() {
+            return new Window(false, true, null, List.of(), UNKNOWN_VERSION);
+        }
+
+        static Window started(String systemPrompt) {
+            return new Window(true, true, systemPrompt, List.of(), UNKNOWN_VERSION);
+        }
+
+        /**
+         * 프롬프트 조립용 메시지 (영속성 컨텍스트와 무관한 객체)
+         */
+        public List<Message> history() {
+            return messages.stream().map(CachedMessage::toMessage).toList();
+        }
+
+        Window append(CachedMessage message, int maxMessages) {
+            return merge(this, new Window(false, true, null, List.of(message), UNKNOWN_VERSION), maxMessages);
+        }
+
+        Window withVersion(long version) {
+            return new Window(loaded, complete, systemPrompt, messages, version);
+        }
+
+        Window withSystemPrompt(String systemPrompt) {
+            return new Window(loaded, complete, systemPrompt, messages, version);
+        }
+
+        int chars() {
+            int chars = systemPrompt != null ? systemPrompt.length() : 0;
+            for (CachedMessage message : messages) {
+                chars += message.content().length();
+            }
+            return chars;
+        }
+
+        // ID로 중복을 없애고 시간순 정렬, 오래된 메시지부터 잘라냄
+        static Window merge(Window a, Window b, int maxMessages) {
+            List<CachedMessage> combined = new ArrayList<>(a.messages.size() + b.messages.size());
+            combined.addAll(a.messages);
+            for (CachedMessage message : b.messages) {
+                if (combined.stream().noneMatch(existing -> existing.id() == message.id())) {
+                    combined.add(message);
+                }
+            }
+            combined.sort(CachedMessage.ORDER);
+            boolean trimmed = combined.size() > maxMessages;
+            List<CachedMessage> kept = trimmed
+                    ? List.copyOf(combined.subList(combined.size() - maxMessages, combined.size()))
+                    : List.copyOf(combined);
+            boolean loaded = a.loaded || b.loaded;
+            // 부분 창의 complete는 의미가 없으므로 읽은 창 기준
+            boolean complete = !trimmed && (!a.loaded || a.complete) && (!b.loaded || b.complete);
+            String systemPrompt = a.systemPrompt != null ? a.systemPrompt : b.systemPrompt;
+            return new Window(loaded, complete, systemPrompt, kept, UNKNOWN_VERSION);
+        }
+    }
+
+    /**
+     * 캐시에 보관하는 메시지 (Redis에는 JSON)
+     */
+    public record CachedMessage(long id, String role, String content, Integer tokenCount, boolean truncated,
+                                LocalDateTime createdAt) {
+
+        static final Comparator<CachedMessage> ORDER =
+                Comparator.comparing(CachedMessage::createdAt).thenComparingLong(CachedMessage::id);
+
+        static CachedMessage of(Message message) {
+            // DB(PostgreSQL)와 같이 마이크로초로 반올림 — DB에서 읽은 창과 같은 순서
+            LocalDateTime createdAt = (message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now())
+                    .plusNanos(500).truncatedTo(ChronoUnit.MICROS);
+            return new CachedMessage(message.getId(), message.getRole().getValue(), message.getContent(),
+                    message.getTokenCount(), message.isTruncated(), createdAt);
+        }
+
+        // Redis 정렬 점수: 에포크 마이크로초 (double로 정확히 표현되는 범위)
+        long score() {
+            return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), createdAt);
+        }
+
+        Message toMessage() {
+            return Message.builder()
+                    .id(id)
+                    .role(Message.Role.fromValue(role))
+                    .content(content)
+                    .tokenCount(tokenCount)
+                    .truncated(truncated)
+                    .createdAt(createdAt)
+                    .build();
+        }
+    }
+}
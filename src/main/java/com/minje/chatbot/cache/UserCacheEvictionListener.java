@@ -0,0 +1,23 @@
+package com.minje.chatbot.cache;
+
+import com.minje.chatbot.entity.User;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * User 엔티티 삭제 시 API Key 캐시 무효화
+ * (Hibernate가 Spring 빈 컨테이너로 생성하므로 캐시는 지연 조회해 순환 의존을 피한다)
+ */
+public class UserCacheEvictionListener {
+
+    private final ObjectProvider<ApiKeyUserCache> apiKeyUserCache;
+
+    public UserCacheEvictionListener(ObjectProvider<ApiKeyUserCache> apiKeyUserCache) {
+        this.apiKeyUserCache = apiKeyUserCache;
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        apiKeyUserCache.ifAvailable(cache -> cache.evictUser(user.getId()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.minje.chatbot.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 기존 DB의 conversation_id 외래 키를 ON DELETE CASCADE로 전환 (messages, conversation_summaries)
+ * - Hibernate DDL(update)은 기존 제약을 바꾸지 않으므로 시작 시 같은 이름으로 다시 만듦
+ * - NOT VALID로 추가한 뒤 VALIDATE — 검증 중에도 테이블 쓰기를 막지 않음
+ * - 새 DB는 @OnDelete로 처음부터 CASCADE 제약이 만들어지므로 아무것도 하지 않음
+ */
+@Component
+@Slf4j
+public class CascadeDeleteMigration implements InitializingBean {
+
+    private static final List<String> TABLES = List.of("messages", "conversation_summaries");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public CascadeDeleteMigration(DataSource dataSource,
+                                  @Value("${chat.cascade-migration.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        for (String table : TABLES) {
+            migrate(table);
+        }
+    }
+
+    private void migrate(String table) {
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table) != Boolean.TRUE) {
+            return;
+        }
+        // conversations(id)를 참조하고 CASCADE가 아닌 conversation_id 외래 키
+        List<String> constraints = jdbcTemplate.queryForList("""
+                SELECT c.conname FROM pg_constraint c
+                JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+                WHERE c.contype = 'f' AND c.conrelid = ?::regclass AND c.confrelid = 'conversations'::regclass
+                  AND a.attname = 'conversation_id' AND c.confdeltype <> 'c'""", String.class, table);
+        for (String constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP CONSTRAINT " + constraint
+                    + ", ADD CONSTRAINT " + constraint + " FOREIGN KEY (conversation_id) REFERENCES conversations (id)"
+                    + " ON DELETE CASCADE NOT VALID");
+            jdbcTemplate.execute("ALTER TABLE " + table + " VALIDATE CONSTRAINT " + constraint);
+            log.info("Foreign key {}.{} now cascades conversation deletes", table, constraint);
+        }
+    }
+}
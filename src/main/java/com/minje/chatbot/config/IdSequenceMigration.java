@@ -0,0 +1,77 @@
+package com.minje.chatbot.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IDENTITY → pooled 시퀀스 전환 (conversations, messages)
+ * - 기존 DB: IDENTITY 컬럼이 쓰던 시퀀스({table}_id_seq)를 엔티티가 그대로 사용하므로 증가폭만 50으로 변경.
+ *   시퀀스 값은 이미 기존 ID보다 앞서 있고, 컬럼 기본값도 같은 시퀀스라 직접 INSERT하는 SQL도 계속 동작
+ * - Hibernate가 시작 시 시퀀스 증가폭을 검사하므로 EntityManagerFactory보다 먼저 실행 (JpaConfig)
+ * - 테이블이 없는 새 DB는 건너뛰고 Hibernate DDL이 시퀀스를 만듦. 이미 전환된 DB에서는 아무것도 하지 않음
+ * - Hibernate가 만든 시퀀스는 id 컬럼 소유(OWNED BY)가 아니므로 이름({table}_id_seq)으로도 찾음
+ */
+@Component
+@Slf4j
+public class IdSequenceMigration implements InitializingBean {
+
+    private static final int ALLOCATION_SIZE = 50;
+    private static final List<String> TABLES = List.of("conversations", "messages");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public IdSequenceMigration(DataSource dataSource,
+                               @Value("${chat.id-migration.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        for (String table : TABLES) {
+            migrate(table);
+        }
+    }
+
+    private void migrate(String table) {
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table) != Boolean.TRUE) {
+            return;
+        }
+        // IDENTITY/SERIAL 컬럼의 시퀀스, 없으면 Hibernate가 만든 같은 이름의 시퀀스
+        String sequence = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(pg_get_serial_sequence(?, 'id'), to_regclass(?)::text)", String.class,
+                table, table + "_id_seq");
+        if (sequence == null) {
+            log.debug("Table {} has no id sequence yet; Hibernate will create {}_id_seq", table, table);
+            return;
+        }
+        Map<String, Object> current = jdbcTemplate.queryForMap("""
+                SELECT s.seqincrement AS increment_by, a.attidentity <> '' AS identity
+                FROM pg_sequence s, pg_attribute a
+                WHERE s.seqrelid = ?::regclass
+                  AND a.attrelid = ?::regclass AND a.attname = 'id'""", sequence, table);
+        if (((Number) current.get("increment_by")).longValue() == ALLOCATION_SIZE) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(current.get("identity"))) {
+            // GENERATED ALWAYS면 Hibernate가 할당한 ID를 거부하므로 BY DEFAULT로 함께 변경
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id SET GENERATED BY DEFAULT SET INCREMENT BY "
+                    + ALLOCATION_SIZE);
+        } else {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        log.info("Migrated {} ids to pooled sequence {} (increment {})", table, sequence, ALLOCATION_SIZE);
+    }
+}
@@ -0,0 +1,47 @@
+package com.minje.chatbot.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    /**
+     * Spring 기본값(DELAYED_ACQUISITION_AND_HOLD)은 open-in-view 세션이 살아있는 동안
+     * 트랜잭션이 끝나도 JDBC 커넥션을 반납하지 않는다.
+     * 채팅 턴은 트랜잭션 사이에서 OpenAI 응답을 기다리므로, 커밋 직후 커넥션을 풀에 돌려준다.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * 한 트랜잭션의 INSERT/UPDATE를 엔티티별로 정렬해 JDBC 배치로 전송 (시퀀스 ID 엔티티만 배치 가능)
+     * pooled-lo: 시퀀스 값을 블록의 시작 ID로 사용 — 컬럼 기본값(nextval)으로 직접 INSERT한 행과 겹치지 않음
+     */
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer(@Value("${chat.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.put(AvailableSettings.ORDER_INSERTS, true);
+            properties.put(AvailableSettings.ORDER_UPDATES, true);
+            properties.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        };
+    }
+
+    /**
+     * 시퀀스 전환 마이그레이션은 Hibernate가 시퀀스를 검사하기 전에 실행
+     */
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor idSequenceMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(IdSequenceMigration.class);
+    }
+}
@@ -38,6 +38,8 @@ public class OpenAIConfig {
                 ```
 
                 > **Rate Limit**: 60초당 최대 10회 요청 가능 (초과 시 429 응답)
+                >
+                > **Token Quota**: API Key별 분당/일당 토큰 사용량 제한 (초과 시 429 + `Retry-After`, `X-TokenLimit-*` 헤더)
 
                 ## 에러 응답 형식
                 모든 에러는 아래 공통 형식으로 반환됩니다.
@@ -60,7 +62,11 @@ public class OpenAIConfig {
                 | **401** Unauthorized | `UNAUTHORIZED` | API Key 누락 또는 유효하지 않은 API Key |
                 | **404** Not Found | `NOT_FOUND` | 요청한 리소스를 찾을 수 없음 (대화 세션 등) |
                 | **429** Too Many Requests | `RATE_LIMIT_EXCEEDED` | 요청 횟수 초과 (60초당 10회 제한) |
+                | **429** Too Many Requests | `TOKEN_QUOTA_EXCEEDED` | 토큰 사용 한도 초과 (분당/일당) |
                 | **500** Internal Server Error | `INTERNAL_SERVER_ERROR` | 서버 내부 오류 |
+                | **502** Bad Gateway | `UPSTREAM_ERROR` | OpenAI 응답 오류 또는 연결 실패 |
+                | **503** Service Unavailable | `UPSTREAM_BUSY` | 업스트림 동시 호출 한도 초과 (`Retry-After` 포함) |
+                | **504** Gateway Timeout | `UPSTREAM_TIMEOUT` | OpenAI 응답 시간 초과 |
                 """;
 
         return new OpenAPI()
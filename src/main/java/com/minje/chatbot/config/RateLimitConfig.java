@@ -0,0 +1,41 @@
+package com.minje.chatbot.config;
+
+import com.minje.chatbot.ratelimit.ExactRateLimiter;
+import com.minje.chatbot.ratelimit.HybridRateLimiter;
+import com.minje.chatbot.ratelimit.RateLimitStore;
+import com.minje.chatbot.ratelimit.RateLimiter;
+import com.minje.chatbot.ratelimit.RedisRateLimitStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@Configuration
+@Slf4j
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitStore rateLimitStore(StringRedisTemplate stringRedisTemplate) {
+        return new RedisRateLimitStore(stringRedisTemplate);
+    }
+
+    /**
+     * rate-limit.mode
+     * - exact (기본): 요청마다 Redis 카운터 증가 (EVALSHA)
+     * - hybrid: 노드별 로컬 버킷 + rate-limit.sync-interval-ms 주기로 Redis와 일괄 동기화
+     */
+    @Bean
+    public RateLimiter rateLimiter(RateLimitStore rateLimitStore,
+                                   @Value("${rate-limit.mode:exact}") String mode,
+                                   @Value("${rate-limit.max-requests:10}") long maxRequests,
+                                   @Value("${rate-limit.window-seconds:60}") long windowSeconds,
+                                   @Value("${rate-limit.sync-interval-ms:200}") long syncIntervalMs) {
+        log.info("Rate limiter mode: {} ({} requests / {}s)", mode, maxRequests, windowSeconds);
+
+        if ("hybrid".equalsIgnoreCase(mode)) {
+            return new HybridRateLimiter(rateLimitStore, maxRequests, windowSeconds, syncIntervalMs);
+        }
+        return new ExactRateLimiter(rateLimitStore, maxRequests, windowSeconds);
+    }
+}
@@ -0,0 +1,146 @@
+package com.minje.chatbot.config;
+
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.RetrySettings;
+import com.minje.chatbot.upstream.TenantPolicy;
+import com.minje.chatbot.upstream.UpstreamPool;
+import com.minje.chatbot.upstream.UpstreamRetrier;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@Slf4j
+public class UpstreamConfig {
+
+    /**
+     * 업스트림 대상 하나 (openai.upstreams[i].*). 비어 있는 값은 openai.api-key / openai.base-url /
+     * openai.http.max-requests-per-host를 따름
+     */
+    public record TargetProperties(String name, String baseUrl, String apiKey, Integer maxOutstanding) {
+    }
+
+    /**
+     * 공정 대기열 등급 하나 (openai.fair.tiers.<name>.*). 비어 있는 값은 기본 등급을 따름
+     */
+    public record TierProperties(Double weight, Integer maxConcurrent) {
+    }
+
+    /**
+     * OpenAI 업스트림 풀
+     * - openai.upstreams: 대상 목록 (API Key/엔드포인트별). 없으면 openai.api-key + openai.base-url 하나
+     * - openai.base-url: 로컬 대체 서버(부하 테스트용 목 서버 등)로 교체 가능
+     * - openai.http.*: 대상별 커넥션 풀/keep-alive, 동시 요청 수, 타임아웃, HTTP/2
+     * - openai.pool.*: 연속 실패 시 대상 제외 기준과 제외 시간
+     */
+    @Bean(destroyMethod = "close")
+    public UpstreamPool upstreamPool(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${openai.api-key}") String apiKey,
+            @Value("${openai.timeout}") int timeoutSeconds,
+            @Value("${openai.base-url:" + OpenAIClientSettings.DEFAULT_BASE_URL + "}") String baseUrl,
+            @Value("${openai.http.max-idle-connections:50}") int maxIdleConnections,
+            @Value("${openai.http.keep-alive-seconds:300}") long keepAliveSeconds,
+            @Value("${openai.http.ping-interval-seconds:30}") long pingIntervalSeconds,
+            @Value("${openai.http.max-requests:256}") int maxRequests,
+            @Value("${openai.http.max-requests-per-host:256}") int maxRequestsPerHost,
+            @Value("${openai.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${openai.http.read-timeout-seconds:0}") long readTimeoutSeconds,
+            @Value("${openai.http.call-timeout-seconds:0}") long callTimeoutSeconds,
+            @Value("${openai.http.http2:true}") boolean http2,
+            @Value("${openai.pool.eject-after-failures:5}") int ejectAfterFailures,
+            @Value("${openai.pool.eject-seconds:30}") long ejectSeconds) {
+        // 읽기/전체 타임아웃을 따로 지정하지 않으면 기존 openai.timeout 기준
+        Duration readTimeout = Duration.ofSeconds(readTimeoutSeconds > 0 ? readTimeoutSeconds : timeoutSeconds);
+        Duration callTimeout = Duration.ofSeconds(callTimeoutSeconds > 0 ? callTimeoutSeconds : timeoutSeconds * 2L);
+
+        List<TargetProperties> configured = Binder.get(environment)
+                .bind("openai.upstreams", Bindable.listOf(TargetProperties.class))
+                .orElse(List.of());
+        if (configured.isEmpty()) {
+            configured = List.of(new TargetProperties("default", baseUrl, apiKey, maxRequestsPerHost));
+        }
+
+        List<UpstreamPool.TargetSpec> targets = new ArrayList<>();
+        for (int i = 0; i < configured.size(); i++) {
+            TargetProperties target = configured.get(i);
+            String name = target.name() != null ? target.name() : "upstream-" + i;
+            String targetBaseUrl = target.baseUrl() != null ? target.baseUrl() : baseUrl;
+            int maxOutstanding = target.maxOutstanding() != null ? target.maxOutstanding() : maxRequestsPerHost;
+
+            OpenAIClientSettings settings = new OpenAIClientSettings(targetBaseUrl, maxIdleConnections,
+                    Duration.ofSeconds(keepAliveSeconds), Duration.ofSeconds(pingIntervalSeconds),
+                    Math.min(maxRequests, maxOutstanding), maxOutstanding, Duration.ofMillis(connectTimeoutMs),
+                    readTimeout, callTimeout, http2);
+            log.info("OpenAI upstream {}: {} (maxOutstanding={}, http2={})", name, targetBaseUrl, maxOutstanding, http2);
+            targets.add(new UpstreamPool.TargetSpec(name,
+                    new OpenAIHttpClient(target.apiKey() != null ? target.apiKey() : apiKey, settings),
+                    maxOutstanding));
+        }
+        return new UpstreamPool(targets, ejectAfterFailures, Duration.ofSeconds(ejectSeconds), meterRegistry);
+    }
+
+    /**
+     * 업스트림 재시도/헤징
+     * - openai.retry.*: 최대 시도 횟수, 백오프, 허용할 Retry-After 상한, 노드 재시도 예산
+     * - openai.hedge.*: 비스트리밍 요청 헤징 (기본 꺼짐 — 헤지 요청도 업스트림 토큰을 사용)
+     */
+    @Bean(destroyMethod = "close")
+    public UpstreamRetrier upstreamRetrier(
+            MeterRegistry meterRegistry,
+            @Value("${openai.retry.max-attempts:3}") int maxAttempts,
+            @Value("${openai.retry.base-backoff-ms:200}") long baseBackoffMs,
+            @Value("${openai.retry.max-backoff-ms:5000}") long maxBackoffMs,
+            @Value("${openai.retry.max-retry-after-seconds:20}") long maxRetryAfterSeconds,
+            @Value("${openai.retry.budget-ratio:0.1}") double budgetRatio,
+            @Value("${openai.retry.budget-reserve:20}") double budgetReserve,
+            @Value("${openai.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${openai.hedge.min-delay-ms:500}") long hedgeMinDelayMs) {
+        RetrySettings settings = new RetrySettings(maxAttempts, Duration.ofMillis(baseBackoffMs),
+                Duration.ofMillis(maxBackoffMs), Duration.ofSeconds(maxRetryAfterSeconds),
+                budgetRatio, budgetReserve, hedgeEnabled, Duration.ofMillis(hedgeMinDelayMs));
+        log.info("Upstream retry: maxAttempts={}, budgetRatio={}, hedge={}", maxAttempts, budgetRatio, hedgeEnabled);
+        return new UpstreamRetrier(settings, meterRegistry);
+    }
+
+    /**
+     * 업스트림 대기열의 테넌트별 가중치/동시 호출 상한
+     * - openai.fair.default-weight / max-concurrent-per-tenant: 기본 등급
+     * - openai.fair.tiers.<name>.weight / max-concurrent: 추가 등급
+     * - openai.fair.tenants.<해시된 API Key>=<등급 이름>: 테넌트별 등급 지정
+     */
+    @Bean
+    public TenantPolicy tenantPolicy(
+            Environment environment,
+            @Value("${openai.fair.default-weight:1}") double defaultWeight,
+            @Value("${openai.fair.max-concurrent-per-tenant:64}") int maxConcurrentPerTenant) {
+        TenantPolicy.Tier defaultTier = new TenantPolicy.Tier(defaultWeight, maxConcurrentPerTenant);
+        Binder binder = Binder.get(environment);
+
+        Map<String, TenantPolicy.Tier> tiers = new HashMap<>();
+        binder.bind("openai.fair.tiers", Bindable.mapOf(String.class, TierProperties.class))
+                .orElse(Map.of())
+                .forEach((name, tier) -> tiers.put(name, new TenantPolicy.Tier(
+                        tier.weight() != null ? tier.weight() : defaultWeight,
+                        tier.maxConcurrent() != null ? tier.maxConcurrent() : maxConcurrentPerTenant)));
+        Map<String, String> tenants = binder.bind("openai.fair.tenants", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+
+        log.info("Upstream fair queue: default weight={}, maxConcurrentPerTenant={}, tiers={}, tenants={}",
+                defaultWeight, maxConcurrentPerTenant, tiers.keySet(), tenants.size());
+        return new TenantPolicy(defaultTier, tiers, tenants);
+    }
+}
@@ -4,7 +4,10 @@ import com.minje.chatbot.dto.ApiResponse;
 import com.minje.chatbot.dto.ChatRequest;
 import com.minje.chatbot.dto.ChatResponse;
 import com.minje.chatbot.dto.ConversationDTO;
+import com.minje.chatbot.dto.CursorPage;
+import com.minje.chatbot.dto.MessageDTO;
 import com.minje.chatbot.service.ChatService;
+import com.minje.chatbot.service.ConversationExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,8 +25,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping
@@ -95,11 +100,11 @@ public class ChatController {
             @Valid @RequestBody ChatRequest request,
             HttpServletRequest httpRequest) {
 
-        String apiKey = (String) httpRequest.getAttribute("apiKey");
+        Long userId = (Long) httpRequest.getAttribute("userId");
         log.info("Received chat request: conversationId={}, content={}",
                 request.getConversationId(), request.getContent());
 
-        ChatResponse response = chatService.sendMessage(apiKey, request);
+        ChatResponse response = chatService.sendMessage(userId, (String) httpRequest.getAttribute("apiKey"), request);
         return ApiResponse.success(response);
     }
 
@@ -139,11 +144,54 @@ public class ChatController {
             @Valid @RequestBody ChatRequest request,
             HttpServletRequest httpRequest) {
 
-        String apiKey = (String) httpRequest.getAttribute("apiKey");
+        Long userId = (Long) httpRequest.getAttribute("userId");
         log.info("Received streaming chat request: conversationId={}, message={}",
                 request.getConversationId(), request.getContent());
 
-        return chatService.sendMessageStream(apiKey, request);
+        return chatService.sendMessageStream(userId, (String) httpRequest.getAttribute("apiKey"), request);
+    }
+
+    @GetMapping(value = "/chat/completions/stream/{streamId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "스트리밍 이어받기",
+            description = """
+                    연결이 끊긴 스트리밍 응답을 이어서 받습니다.
+                    - `streamId`는 스트림의 첫 `stream` 이벤트로 전달됩니다.
+                    - `Last-Event-ID` 헤더 이후의 `content` 이벤트를 재생한 뒤 실시간으로 이어서 전송합니다.
+                    - 종료된 스트림도 만료(기본 60초) 전이면 남은 이벤트와 `[DONE]`을 받을 수 있습니다."""
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200", description = "이어받기 시작",
+                    content = @Content(mediaType = "text/event-stream", examples = @ExampleObject(value = """
+                            id: 42
+                            event: content
+                            data: 하세요
+
+                            id: 42
+                            event: done
+                            data: [DONE]"""))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404", description = "스트림이 없거나 만료됨",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "410", description = "중단되었거나 Last-Event-ID 이후 구간이 이미 버려져 이어받을 수 없음",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public SseEmitter resumeStream(
+            @Parameter(description = "스트림 ID", required = true)
+            @PathVariable String streamId,
+            @Parameter(description = "마지막으로 받은 이벤트 ID")
+            @RequestHeader(value = "Last-Event-ID", defaultValue = "0") long lastEventId,
+            HttpServletRequest httpRequest) {
+
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        log.info("Resuming stream {} after event {}", streamId, lastEventId);
+
+        return chatService.resumeStream(userId, streamId, lastEventId);
     }
 
     @GetMapping("/conversations")
@@ -163,8 +211,8 @@ public class ChatController {
                               "success": true,
                               "data": {
                                 "content": [
-                                  {"id": 1, "userId": 1, "title": "Spring Boot 학습", "messageCount": 8, "messages": null, "createdAt": "2026-02-23T10:00:00", "updatedAt": "2026-02-23T14:30:00"},
-                                  {"id": 2, "userId": 1, "title": "Java 질문", "messageCount": 4, "messages": null, "createdAt": "2026-02-22T09:00:00", "updatedAt": "2026-02-22T09:30:00"}
+                                  {"id": 1, "userId": 1, "title": "Spring Boot 학습", "messageCount": 8, "lastMessagePreview": "트랜잭션 전파 속성은 ...", "lastMessageRole": "assistant", "lastMessageAt": "2026-02-23T14:30:00", "messages": null, "createdAt": "2026-02-23T10:00:00", "updatedAt": "2026-02-23T14:30:00"},
+                                  {"id": 2, "userId": 1, "title": "Java 질문", "messageCount": 4, "lastMessagePreview": "record는 불변 데이터 ...", "lastMessageRole": "assistant", "lastMessageAt": "2026-02-22T09:30:00", "messages": null, "createdAt": "2026-02-22T09:00:00", "updatedAt": "2026-02-22T09:30:00"}
                                 ],
                                 "totalElements": 2, "totalPages": 1, "size": 20, "number": 0
                               },
@@ -184,13 +232,142 @@ public class ChatController {
             @ParameterObject @PageableDefault(size = 20, sort = "createdAt") Pageable pageable,
             HttpServletRequest httpRequest) {
 
-        String apiKey = (String) httpRequest.getAttribute("apiKey");
+        Long userId = (Long) httpRequest.getAttribute("userId");
         log.info("Fetching conversations with pageable: {}", pageable);
 
-        Page<ConversationDTO> conversations = chatService.getConversations(apiKey, pageable);
+        Page<ConversationDTO> conversations = chatService.getConversations(userId, pageable);
         return ApiResponse.success(conversations);
     }
 
+    @GetMapping("/conversations/cursor")
+    @Operation(
+            summary = "대화 목록 조회 (커서)",
+            description = """
+                    최근 수정 순 대화 목록을 커서 기반으로 조회합니다.
+                    - 응답의 `nextCursor`를 `after`로, `previousCursor`를 `before`로 전달해 다음/이전 페이지를 조회합니다.
+                    - 전체 개수를 세지 않고 OFFSET 없이 조회하므로 페이지 깊이와 무관하게 응답 시간이 일정합니다.
+                    - `size` 최대 100건"""
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200", description = "대화 목록 조회 성공",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                            {
+                              "success": true,
+                              "data": {
+                                "content": [
+                                  {"id": 2, "userId": 1, "title": "Java 질문", "messageCount": 4, "lastMessagePreview": "record는 불변 데이터 ...", "lastMessageRole": "assistant", "lastMessageAt": "2026-02-23T14:30:00", "messages": null, "createdAt": "2026-02-22T09:00:00", "updatedAt": "2026-02-23T14:30:00"}
+                                ],
+                                "size": 1, "nextCursor": "MjAyNi0wMi0yM1QxNDozMHwy", "previousCursor": null, "hasNext": true, "hasPrevious": false
+                              },
+                              "error": null
+                            }"""))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400", description = "유효하지 않은 커서 또는 after/before 동시 지정",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401", description = "API Key 누락 또는 유효하지 않음",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public ApiResponse<CursorPage<ConversationDTO>> getConversationsByCursor(
+            @Parameter(description = "다음 페이지 커서 (nextCursor)") @RequestParam(required = false) String after,
+            @Parameter(description = "이전 페이지 커서 (previousCursor)") @RequestParam(required = false) String before,
+            @Parameter(description = "페이지 크기 (최대 100)") @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest httpRequest) {
+
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        log.info("Fetching conversations by cursor: after={}, before={}, size={}", after, before, size);
+
+        return ApiResponse.success(chatService.getConversations(userId, after, before, size));
+    }
+
+    @GetMapping("/conversations/{conversationId}/messages")
+    @Operation(
+            summary = "대화 메시지 조회 (커서)",
+            description = """
+                    대화의 메시지를 시간 순으로 커서 기반 조회합니다.
+                    - 커서 없이 호출하면 첫 메시지부터, `after`는 이후 메시지, `before`는 이전 메시지를 조회합니다.
+                    - 긴 대화도 페이지마다 일정한 비용으로 조회됩니다. `size` 최대 100건"""
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200", description = "메시지 조회 성공",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                            {
+                              "success": true,
+                              "data": {
+                                "content": [
+                                  {"id": 10, "conversationId": 1, "role": "user", "content": "Spring Boot란?", "truncated": false, "createdAt": "2026-02-23T10:00:00"}
+                                ],
+                                "size": 1, "nextCursor": "MjAyNi0wMi0yM1QxMDowMHwxMA", "previousCursor": null, "hasNext": true, "hasPrevious": false
+                              },
+                              "error": null
+                            }"""))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400", description = "유효하지 않은 커서 또는 after/before 동시 지정",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404", description = "대화를 찾을 수 없음",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public ApiResponse<CursorPage<MessageDTO>> getMessages(
+            @Parameter(description = "대화 ID", required = true) @PathVariable Long conversationId,
+            @Parameter(description = "다음 페이지 커서 (nextCursor)") @RequestParam(required = false) String after,
+            @Parameter(description = "이전 페이지 커서 (previousCursor)") @RequestParam(required = false) String before,
+            @Parameter(description = "페이지 크기 (최대 100)") @RequestParam(defaultValue = "50") int size,
+            HttpServletRequest httpRequest) {
+
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        log.info("Fetching messages by cursor: conversationId={}, after={}, before={}, size={}",
+                conversationId, after, before, size);
+
+        return ApiResponse.success(chatService.getMessages(userId, conversationId, after, before, size));
+    }
+
+    @GetMapping("/conversations/{conversationId}/export")
+    @Operation(
+            summary = "대화 전체 내보내기 (스트리밍)",
+            description = """
+                    대화의 모든 메시지를 읽는 즉시 응답으로 흘려보냅니다.
+                    - `format=json`: 특정 대화 조회와 같은 모양의 JSON, `format=ndjson`: 한 줄에 메시지 하나
+                    - 메시지 수와 무관하게 서버 메모리 사용량이 일정하므로 메시지가 많은 대화에 사용합니다."""
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200", description = "내보내기 시작",
+                    content = @Content(mediaType = "application/x-ndjson", examples = @ExampleObject(value = """
+                            {"id":10,"conversationId":1,"role":"user","content":"Spring Boot란?","truncated":false,"createdAt":"2026-02-23T10:00:00"}
+                            {"id":11,"conversationId":1,"role":"assistant","content":"Spring Boot는 ...","truncated":false,"createdAt":"2026-02-23T10:00:01"}"""))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400", description = "지원하지 않는 형식",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404", description = "대화를 찾을 수 없음",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public ResponseEntity<StreamingResponseBody> exportConversation(
+            @Parameter(description = "대화 ID", required = true) @PathVariable Long conversationId,
+            @Parameter(description = "출력 형식 (json/ndjson)") @RequestParam(defaultValue = "json") String format,
+            HttpServletRequest httpRequest) {
+
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        log.info("Exporting conversation: {} as {}", conversationId, format);
+
+        ConversationExporter.Format exportFormat = ConversationExporter.Format.of(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .body(chatService.exportConversation(userId, conversationId, exportFormat));
+    }
+
     @GetMapping("/conversations/{conversationId}")
     @Operation(
             summary = "특정 대화 조회",
@@ -238,10 +415,10 @@ public class ChatController {
             @PathVariable Long conversationId,
             HttpServletRequest httpRequest) {
 
-        String apiKey = (String) httpRequest.getAttribute("apiKey");
+        Long userId = (Long) httpRequest.getAttribute("userId");
         log.info("Fetching conversation: {}", conversationId);
 
-        ConversationDTO conversation = chatService.getConversation(apiKey, conversationId);
+        ConversationDTO conversation = chatService.getConversation(userId, conversationId);
         return ApiResponse.success(conversation);
     }
 
@@ -251,7 +428,7 @@ public class ChatController {
             summary = "대화 삭제",
             description = """
                     대화 ID를 기반으로 특정 대화를 삭제합니다.
-                    - 해당 대화에 포함된 모든 메시지도 함께 삭제됩니다.
+                    - 대화는 즉시 목록/조회에서 사라지고, 메시지는 백그라운드에서 나누어 삭제됩니다.
                     - 다른 사용자의 대화는 삭제할 수 없습니다."""
     )
     @ApiResponses({
@@ -280,10 +457,44 @@ public class ChatController {
             @PathVariable Long conversationId,
             HttpServletRequest httpRequest) {
 
-        String apiKey = (String) httpRequest.getAttribute("apiKey");
+        Long userId = (Long) httpRequest.getAttribute("userId");
         log.info("Deleting conversation: {}", conversationId);
 
-        chatService.deleteConversation(apiKey, conversationId);
+        chatService.deleteConversation(userId, conversationId);
         return ApiResponse.success(null);
     }
+
+    @DeleteMapping("/conversations")
+    @Operation(
+            summary = "내 대화 전체 삭제",
+            description = """
+                    현재 사용자의 모든 대화를 삭제합니다.
+                    - 대화는 즉시 목록/조회에서 사라지고, 메시지는 백그라운드에서 나누어 삭제됩니다.
+                    - 응답 데이터는 삭제한 대화 수입니다."""
+    )
+    @ApiResponses({
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200", description = "대화 삭제 성공",
+                    content = @Content(mediaType = "application/json", examples = @ExampleObject(value = """
+                            {
+                              "success": true,
+                              "data": 12,
+                              "error": null
+                            }"""))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401", description = "API Key 누락 또는 유효하지 않음",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "500", description = "서버 내부 오류",
+                    content = @Content(mediaType = "application/json")
+            )
+    })
+    public ApiResponse<Integer> deleteAllConversations(HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        log.info("Deleting all conversations of user: {}", userId);
+
+        return ApiResponse.success(chatService.deleteAllConversations(userId));
+    }
 }
\ No newline at end of file
@@ -24,4 +24,7 @@ public class ChatRequest {
 
     @Schema(description = "시스템 프롬프트 (AI 역할/페르소나 지정, 선택값)", example = "너는 영어 튜터야", nullable = true)
     private String systemPrompt;
+
+    @Schema(description = "동일 요청 응답 캐시 사용 여부 (temperature 0이면 항상 사용)", example = "false", nullable = true)
+    private Boolean cache;
 }
\ No newline at end of file
@@ -28,6 +28,15 @@ public class ConversationDTO {
     @Schema(description = "메시지 개수", example = "8")
     private Integer messageCount;
 
+    @Schema(description = "마지막 메시지 미리보기 (앞 100자, 목록 조회 시에만 포함)", example = "Spring Boot는 ...")
+    private String lastMessagePreview;
+
+    @Schema(description = "마지막 메시지 역할 (목록 조회 시에만 포함)", example = "assistant")
+    private String lastMessageRole;
+
+    @Schema(description = "마지막 메시지 일시 (목록 조회 시에만 포함)", example = "2026-02-14T14:30:00")
+    private LocalDateTime lastMessageAt;
+
     @Schema(description = "메시지 목록 (상세 조회 시에만 포함)")
     private List<MessageDTO> messages;
 
@@ -0,0 +1,35 @@
+package com.minje.chatbot.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "커서 기반 페이지 (전체 개수/페이지 번호 없음)")
+public class CursorPage<T> {
+
+    @Schema(description = "페이지 항목")
+    private List<T> content;
+
+    @Schema(description = "요청한 페이지 크기 (상한 적용 후)", example = "20")
+    private int size;
+
+    @Schema(description = "다음 페이지 커서 — after 파라미터로 전달", example = "MjAyNi0wMi0yM1QxMDowMHwxMg")
+    private String nextCursor;
+
+    @Schema(description = "이전 페이지 커서 — before 파라미터로 전달", example = "MjAyNi0wMi0yM1QxNDozMHwzMQ")
+    private String previousCursor;
+
+    @Schema(description = "다음 페이지 존재 여부", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "이전 페이지 존재 여부", example = "false")
+    private boolean hasPrevious;
+}
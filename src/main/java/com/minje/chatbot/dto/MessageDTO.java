@@ -27,6 +27,9 @@ public class MessageDTO {
     @Schema(description = "메시지 내용", example = "안녕하세요!")
     private String content;
 
+    @Schema(description = "클라이언트 연결 종료로 중간에 끊긴 응답 여부", example = "false")
+    private boolean truncated;
+
     @Schema(description = "생성 일시", example = "2024-02-02T10:05:00")
     private LocalDateTime createdAt;
 }
@@ -6,16 +6,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
-@Table(name = "conversations")
+@Table(name = "conversations", indexes = {
+        // 대화 목록 키셋 페이지네이션 (updated_at, id)
+        @Index(name = "idx_conversations_user_updated_id", columnList = "user_id, updated_at, id"),
+        // 삭제 표시된 대화 정리 (ConversationPurger)
+        @Index(name = "idx_conversations_deleted_at", columnList = "deleted_at")
+})
+// 삭제 표시된 대화는 모든 엔티티 조회에서 제외 (메시지는 ConversationPurger가 나누어 삭제)
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @Builder
 @NoArgsConstructor
@@ -23,8 +30,11 @@ import java.util.List;
 @EntityListeners(AuditingEntityListener.class)
 public class Conversation {
 
+    // Message와 같은 pooled 시퀀스 — 새 대화 INSERT가 같은 트랜잭션의 메시지 INSERT와 함께 flush됨
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conversations_id_seq")
+    @SequenceGenerator(name = "conversations_id_seq", sequenceName = "conversations_id_seq", allocationSize = 50)
+    @ColumnDefault("nextval('conversations_id_seq')")
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -41,19 +51,11 @@ public class Conversation {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", insertable = false, updatable = false)
     @JsonIgnore  // ← 추가: Swagger 문서 생성 시 무한 루프 방지
     private User user;
-
-    @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
-    @OrderBy("createdAt ASC")
-    @JsonIgnore  // ← 추가: Swagger 문서 생성 시 무한 루프 방지
-    @Builder.Default
-    private List<Message> messages = new ArrayList<>();
-
-    @Transient
-    public int getMessageCount() {
-        return messages != null ? messages.size() : 0;
-    }
 }
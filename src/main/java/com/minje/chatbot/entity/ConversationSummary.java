@@ -0,0 +1,76 @@
+package com.minje.chatbot.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * 대화의 오래된 메시지를 요약한 누적 요약본 (대화당 1건)
+ * (summarizedUntilCreatedAt, summarizedUntilMessageId) 이하의 메시지는 요약에 반영되어 프롬프트에서 제외된다.
+ * 경계는 ID가 아닌 (created_at, id) 순서 — pooled 시퀀스는 노드마다 다른 ID 블록을 쓰므로 ID 순서가 시간 순서와 다를 수 있음
+ */
+@Entity
+@Table(name = "conversation_summaries")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class ConversationSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "conversation_id", nullable = false, unique = true)
+    private Long conversationId;
+
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String content;
+
+    @Column(name = "summarized_until_message_id", nullable = false)
+    private Long summarizedUntilMessageId;
+
+    // 경계 메시지의 created_at
+    @Column(name = "summarized_until_created_at", nullable = false)
+    private LocalDateTime summarizedUntilCreatedAt;
+
+    @Column(name = "token_count")
+    private Integer tokenCount;
+
+    // 여러 노드에서 같은 대화를 동시에 요약한 경우 나중 저장을 실패시킴
+    @Version
+    private Long version;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "conversation_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Conversation conversation;
+
+    /**
+     * 메시지가 요약에 반영된 구간인지 ((created_at, id)가 경계 이하)
+     */
+    public boolean covers(Message message) {
+        int compared = message.getCreatedAt().compareTo(summarizedUntilCreatedAt);
+        return compared < 0 || (compared == 0 && message.getId() <= summarizedUntilMessageId);
+    }
+}
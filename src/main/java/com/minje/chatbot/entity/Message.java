@@ -7,6 +7,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -14,7 +17,12 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // 대화 목록의 메시지 수/마지막 메시지 집계
+        @Index(name = "idx_messages_conversation_id_id", columnList = "conversation_id, id"),
+        // 메시지 키셋 페이지네이션 (created_at, id)
+        @Index(name = "idx_messages_conversation_created_id", columnList = "conversation_id, created_at, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -22,8 +30,12 @@ import java.util.Arrays;
 @EntityListeners(AuditingEntityListener.class)
 public class Message {
 
+    // 시퀀스에서 50개씩 미리 할당받아 INSERT를 JDBC 배치로 묶음 (IDENTITY는 배치 불가)
+    // 기존 IDENTITY 컬럼의 시퀀스를 그대로 사용하고, 직접 INSERT하는 SQL을 위해 컬럼 기본값도 같은 시퀀스
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "messages_id_seq")
+    @SequenceGenerator(name = "messages_id_seq", sequenceName = "messages_id_seq", allocationSize = 50)
+    @ColumnDefault("nextval('messages_id_seq')")
     private Long id;
 
     @Column(name = "conversation_id", nullable = false)
@@ -36,12 +48,23 @@ public class Message {
     @Column(name = "content", nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    // 프롬프트 조립 시 매 턴 재계산하지 않도록 저장 시점의 토큰 수(오버헤드 포함)를 보관
+    @Column(name = "token_count")
+    private Integer tokenCount;
+
+    // 스트림이 중간에 끊긴 응답 (클라이언트 이탈 또는 업스트림 오류)
+    @Builder.Default
+    @ColumnDefault("false")
+    @Column(name = "truncated", nullable = false)
+    private boolean truncated = false;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "conversation_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)  // 대화 행 삭제 시 DB가 남은 메시지를 함께 삭제
     @JsonIgnore  // ← 추가: Swagger 문서 생성 시 무한 루프 방지
     private Conversation conversation;
 
@@ -1,5 +1,6 @@
 package com.minje.chatbot.entity;
 
+import com.minje.chatbot.cache.UserCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,7 +21,7 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, UserCacheEvictionListener.class})
 public class User {
 
     @Id
@@ -3,6 +3,7 @@ package com.minje.chatbot.exception;
 import com.minje.chatbot.dto.ApiResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -36,6 +37,29 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(errorInfo));
     }
 
+    @ExceptionHandler(ThrottledException.class)
+    public ResponseEntity<ApiResponse<Void>> handleThrottledException(
+            ThrottledException ex, HttpServletRequest request) {
+
+        log.warn("Request throttled: {} (retry after {}s)", ex.getMessage(), ex.getRetryAfterSeconds());
+
+        ApiResponse.ErrorInfo errorInfo = ApiResponse.ErrorInfo.builder()
+                .code(ex.getErrorCode())
+                .message(ex.getMessage())
+                .timestamp(LocalDateTime.now().toString())
+                .path(request.getRequestURI())
+                .build();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        ex.getHeaders().forEach(headers::set);
+
+        return ResponseEntity
+                .status(ex.getHttpStatus())
+                .headers(headers)
+                .body(ApiResponse.error(errorInfo));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationException(
             MethodArgumentNotValidException ex, HttpServletRequest request) {
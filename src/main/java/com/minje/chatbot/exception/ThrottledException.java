@@ -0,0 +1,23 @@
+package com.minje.chatbot.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.Map;
+
+/**
+ * 한도 초과/과부하로 거절된 요청. Retry-After와 한도 관련 헤더를 함께 응답한다.
+ */
+@Getter
+public class ThrottledException extends CustomException {
+
+    private final long retryAfterSeconds;
+    private final Map<String, String> headers;
+
+    public ThrottledException(String errorCode, String message, HttpStatus httpStatus,
+                              long retryAfterSeconds, Map<String, String> headers) {
+        super(errorCode, message, httpStatus);
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.headers = headers;
+    }
+}
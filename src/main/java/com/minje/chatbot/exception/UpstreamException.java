@@ -0,0 +1,59 @@
+package com.minje.chatbot.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * OpenAI 등 업스트림 호출 실패
+ * - upstreamStatus: 업스트림 HTTP 상태 코드 (연결 실패/타임아웃이면 0)
+ * - retryAfter: 업스트림이 보낸 Retry-After (없으면 null)
+ * - 클라이언트에는 502(응답 오류) 또는 504(타임아웃)로 전달
+ */
+@Getter
+public class UpstreamException extends CustomException {
+
+    private static final String DEFAULT_MESSAGE = "AI 응답 생성에 실패했습니다. 잠시 후 다시 시도해주세요.";
+
+    private final int upstreamStatus;
+    private final Duration retryAfter;
+
+    public UpstreamException(String errorCode, HttpStatus httpStatus, int upstreamStatus, Throwable cause) {
+        this(errorCode, httpStatus, upstreamStatus, null, cause);
+    }
+
+    public UpstreamException(String errorCode, HttpStatus httpStatus, int upstreamStatus, Duration retryAfter,
+                             Throwable cause) {
+        super(errorCode, DEFAULT_MESSAGE, httpStatus);
+        this.upstreamStatus = upstreamStatus;
+        this.retryAfter = retryAfter;
+        if (cause != null) {
+            initCause(cause);
+        }
+    }
+
+    public static UpstreamException ofStatus(int upstreamStatus, String body) {
+        return ofStatus(upstreamStatus, body, null);
+    }
+
+    public static UpstreamException ofStatus(int upstreamStatus, String body, Duration retryAfter) {
+        return new UpstreamException("UPSTREAM_ERROR", HttpStatus.BAD_GATEWAY, upstreamStatus, retryAfter,
+                new IllegalStateException("Upstream responded " + upstreamStatus + ": " + body));
+    }
+
+    public static UpstreamException timeout(Throwable cause) {
+        return new UpstreamException("UPSTREAM_TIMEOUT", HttpStatus.GATEWAY_TIMEOUT, 0, cause);
+    }
+
+    public static UpstreamException network(Throwable cause) {
+        return new UpstreamException("UPSTREAM_ERROR", HttpStatus.BAD_GATEWAY, 0, cause);
+    }
+
+    /**
+     * 다시 시도해볼 만한 실패인지 (연결 실패, 타임아웃, 429, 5xx)
+     */
+    public boolean isRetryable() {
+        return upstreamStatus == 0 || upstreamStatus == 429 || upstreamStatus >= 500;
+    }
+}
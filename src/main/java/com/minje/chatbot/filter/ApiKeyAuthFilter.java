@@ -1,6 +1,8 @@
 package com.minje.chatbot.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minje.chatbot.cache.ApiKeyPrincipal;
+import com.minje.chatbot.cache.ApiKeyUserCache;
 import com.minje.chatbot.dto.ApiResponse;
 import com.minje.chatbot.entity.User;
 import com.minje.chatbot.repository.UserRepository;
@@ -29,16 +31,18 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
     private static final int MAX_REGISTRATIONS_PER_HOUR = 5;
     private static final long WINDOW_SECONDS = 3600;
 
-    private static final String LUA_SCRIPT =
+    private static final DefaultRedisScript<Long> REGISTRATION_LIMIT_SCRIPT = new DefaultRedisScript<>(
             "local count = redis.call('INCR', KEYS[1]) " +
             "if count == 1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
-            "return count";
+            "return count",
+            Long.class);
 
     private final ApiKeyValidator apiKeyValidator;
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
     private final ApiKeyHashUtil apiKeyHashUtil;
     private final StringRedisTemplate stringRedisTemplate;
+    private final ApiKeyUserCache apiKeyUserCache;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -65,14 +69,14 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        String hashedKey = apiKeyHashUtil.hash(apiKey);
+        // 캐시 적중 시 해싱/DB 조회 없이 사용자 확인
+        ApiKeyPrincipal principal = apiKeyUserCache.resolve(apiKey);
 
-        if (userRepository.findByApiKey(hashedKey).isEmpty()) {
+        if (principal == null) {
             // IP 기반 자동 등록 횟수 제한 (Lua 스크립트로 원자적 처리)
             String clientIp = request.getRemoteAddr();
             String redisKey = "reg_limit:" + clientIp;
-            DefaultRedisScript<Long> script = new DefaultRedisScript<>(LUA_SCRIPT, Long.class);
-            Long count = stringRedisTemplate.execute(script,
+            Long count = stringRedisTemplate.execute(REGISTRATION_LIMIT_SCRIPT,
                     Collections.singletonList(redisKey),
                     String.valueOf(WINDOW_SECONDS));
 
@@ -81,10 +85,12 @@ public class ApiKeyAuthFilter extends OncePerRequestFilter {
                 return;
             }
 
-            userRepository.save(User.builder().apiKey(hashedKey).build());
+            User user = userRepository.save(User.builder().apiKey(apiKeyHashUtil.hash(apiKey)).build());
+            principal = apiKeyUserCache.put(apiKey, user);
         }
 
-        request.setAttribute("apiKey", hashedKey);
+        request.setAttribute("apiKey", principal.hashedKey());
+        request.setAttribute("userId", principal.userId());
         filterChain.doFilter(request, response);
     }
 
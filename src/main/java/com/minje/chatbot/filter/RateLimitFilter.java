@@ -2,34 +2,25 @@ package com.minje.chatbot.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.minje.chatbot.dto.ApiResponse;
+import com.minje.chatbot.ratelimit.RateLimitDecision;
+import com.minje.chatbot.ratelimit.RateLimiter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Collections;
 
 @Component
 @RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private static final int MAX_REQUESTS = 10;
-    private static final long WINDOW_SECONDS = 60;
-
-    private static final String LUA_SCRIPT =
-            "local count = redis.call('INCR', KEYS[1]) " +
-            "if count == 1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
-            "return count";
-
-    private final StringRedisTemplate stringRedisTemplate;
+    private final RateLimiter rateLimiter;
     private final ObjectMapper objectMapper;
 
     @Override
@@ -51,21 +42,12 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        String redisKey = "rate_limit:" + hashedKey;
-
-        DefaultRedisScript<Long> script = new DefaultRedisScript<>(LUA_SCRIPT, Long.class);
-        Long count = stringRedisTemplate.execute(script,
-                Collections.singletonList(redisKey),
-                String.valueOf(WINDOW_SECONDS));
-
-        if (count == null) {
-            count = 0L;
-        }
+        RateLimitDecision decision = rateLimiter.tryAcquire(hashedKey);
 
-        response.setHeader("X-RateLimit-Limit", String.valueOf(MAX_REQUESTS));
-        response.setHeader("X-RateLimit-Remaining", String.valueOf(Math.max(0, MAX_REQUESTS - count)));
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
 
-        if (count > MAX_REQUESTS) {
+        if (!decision.allowed()) {
             response.setStatus(429);
             response.setContentType(MediaType.APPLICATION_JSON_VALUE);
             response.setCharacterEncoding("UTF-8");
@@ -0,0 +1,178 @@
+package com.minje.chatbot.quota;
+
+import com.minje.chatbot.exception.ThrottledException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 사용자(API Key)별 토큰 사용량 한도 (분당/일당)
+ * - 업스트림 호출 전에 예상 토큰(프롬프트 + maxTokens)을 예약하고, 완료 후 실제 사용량으로 확정
+ * - 예약은 만료 시각을 점수로 가진 ZSET 리스(lease)로 관리하여 여러 노드에서 원자적으로 처리
+ * - 노드가 죽어 확정/해제가 오지 않은 예약은 lease-seconds 후 자동으로 한도에서 빠진다
+ */
+@Service
+@Slf4j
+public class TokenQuotaService {
+
+    private static final String KEY_PREFIX = "token_quota:";
+    private static final long MINUTE_KEY_TTL_SECONDS = 120;
+    private static final long DAY_KEY_TTL_SECONDS = 2 * 24 * 3600;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RESERVE_SCRIPT = RedisScript.of(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', ARGV[1]) " +
+            "local pending = 0 " +
+            "for _, member in ipairs(redis.call('ZRANGE', KEYS[3], 0, -1)) do " +
+            "  pending = pending + tonumber(string.match(member, ':(%d+)$')) " +
+            "end " +
+            "local tokens = tonumber(ARGV[4]) " +
+            "local minuteUsed = tonumber(redis.call('GET', KEYS[1]) or '0') + pending " +
+            "local dayUsed = tonumber(redis.call('GET', KEYS[2]) or '0') + pending " +
+            "if minuteUsed + tokens > tonumber(ARGV[5]) then " +
+            "  return {0, 1, math.max(0, tonumber(ARGV[5]) - minuteUsed)} " +
+            "end " +
+            "if dayUsed + tokens > tonumber(ARGV[6]) then " +
+            "  return {0, 2, math.max(0, tonumber(ARGV[6]) - dayUsed)} " +
+            "end " +
+            "redis.call('ZADD', KEYS[3], ARGV[2], ARGV[3]) " +
+            "redis.call('PEXPIREAT', KEYS[3], ARGV[2]) " +
+            "return {1, 0, tonumber(ARGV[5]) - minuteUsed - tokens}",
+            List.class);
+
+    private static final RedisScript<Long> SETTLE_SCRIPT = RedisScript.of(
+            "local removed = redis.call('ZREM', KEYS[3], ARGV[1]) " +
+            "local tokens = tonumber(ARGV[2]) " +
+            "if tokens > 0 then " +
+            "  redis.call('INCRBY', KEYS[1], tokens) " +
+            "  redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "  redis.call('INCRBY', KEYS[2], tokens) " +
+            "  redis.call('EXPIRE', KEYS[2], ARGV[4]) " +
+            "end " +
+            "return removed",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean enabled;
+    private final long tokensPerMinute;
+    private final long tokensPerDay;
+    private final long leaseSeconds;
+
+    public TokenQuotaService(StringRedisTemplate stringRedisTemplate,
+                             @Value("${token-quota.enabled:true}") boolean enabled,
+                             @Value("${token-quota.tokens-per-minute:20000}") long tokensPerMinute,
+                             @Value("${token-quota.tokens-per-day:200000}") long tokensPerDay,
+                             @Value("${token-quota.lease-seconds:600}") long leaseSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.tokensPerMinute = tokensPerMinute;
+        this.tokensPerDay = tokensPerDay;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * 예상 토큰 예약. 한도를 초과하면 429 ThrottledException
+     */
+    public Reservation reserve(Long userId, long estimatedTokens) {
+        if (!enabled) {
+            return Reservation.NONE;
+        }
+
+        Instant now = Instant.now();
+        String member = UUID.randomUUID() + ":" + estimatedTokens;
+        long leaseExpiresAt = now.plusSeconds(leaseSeconds).toEpochMilli();
+
+        List<?> result = stringRedisTemplate.execute(RESERVE_SCRIPT, keys(userId, now),
+                String.valueOf(now.toEpochMilli()),
+                String.valueOf(leaseExpiresAt),
+                member,
+                String.valueOf(estimatedTokens),
+                String.valueOf(tokensPerMinute),
+                String.valueOf(tokensPerDay));
+
+        if (result == null || toLong(result.get(0)) == 1) {
+            return new Reservation(userId, member, estimatedTokens);
+        }
+
+        boolean dailyExceeded = toLong(result.get(1)) == 2;
+        long limit = dailyExceeded ? tokensPerDay : tokensPerMinute;
+        long resetSeconds = dailyExceeded ? secondsUntilNextDay(now) : secondsUntilNextMinute(now);
+
+        throw new ThrottledException("TOKEN_QUOTA_EXCEEDED",
+                (dailyExceeded ? "일일" : "분당") + " 토큰 사용 한도를 초과했습니다. 잠시 후 다시 시도해주세요.",
+                HttpStatus.TOO_MANY_REQUESTS,
+                resetSeconds,
+                Map.of("X-TokenLimit-Limit", String.valueOf(limit),
+                        "X-TokenLimit-Remaining", String.valueOf(toLong(result.get(2))),
+                        "X-TokenLimit-Reset", String.valueOf(resetSeconds)));
+    }
+
+    /**
+     * 실제 사용량으로 확정 (예약 해제 + 사용량 누적)
+     */
+    public void commit(Reservation reservation, long actualTokens) {
+        settle(reservation, actualTokens);
+    }
+
+    /**
+     * 업스트림 호출 실패 등으로 사용하지 않은 예약 해제
+     */
+    public void release(Reservation reservation) {
+        settle(reservation, 0);
+    }
+
+    private void settle(Reservation reservation, long tokens) {
+        if (reservation == null || reservation == Reservation.NONE) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(SETTLE_SCRIPT, keys(reservation.userId(), Instant.now()),
+                    reservation.member(),
+                    String.valueOf(Math.max(0, tokens)),
+                    String.valueOf(MINUTE_KEY_TTL_SECONDS),
+                    String.valueOf(DAY_KEY_TTL_SECONDS));
+        } catch (RuntimeException e) {
+            // 확정 실패 시 예약은 리스 만료로 정리된다
+            log.error("Failed to settle token reservation for user {}: {}", reservation.userId(), e.getMessage());
+        }
+    }
+
+    private List<String> keys(Long userId, Instant now) {
+        String prefix = KEY_PREFIX + userId;
+        return List.of(
+                prefix + ":m:" + now.getEpochSecond() / 60,
+                prefix + ":d:" + now.getEpochSecond() / 86400,
+                prefix + ":leases");
+    }
+
+    private static long secondsUntilNextMinute(Instant now) {
+        return 60 - now.getEpochSecond() % 60;
+    }
+
+    private static long secondsUntilNextDay(Instant now) {
+        ZonedDateTime utcNow = now.atZone(ZoneOffset.UTC);
+        return ChronoUnit.SECONDS.between(utcNow, utcNow.toLocalDate().plusDays(1).atStartOfDay(ZoneOffset.UTC));
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(String.valueOf(value));
+    }
+
+    /**
+     * 토큰 예약 (member = "UUID:예약토큰수")
+     */
+    public record Reservation(Long userId, String member, long tokens) {
+        static final Reservation NONE = new Reservation(null, null, 0);
+    }
+}
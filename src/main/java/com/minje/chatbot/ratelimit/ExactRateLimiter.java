@@ -0,0 +1,30 @@
+package com.minje.chatbot.ratelimit;
+
+import java.util.List;
+
+/**
+ * 요청마다 공유 저장소 카운터를 증가시키는 정확한 고정 윈도우 제한 (기존 동작)
+ */
+public class ExactRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    private final RateLimitStore store;
+    private final long maxRequests;
+    private final long windowSeconds;
+
+    public ExactRateLimiter(RateLimitStore store, long maxRequests, long windowSeconds) {
+        this.store = store;
+        this.maxRequests = maxRequests;
+        this.windowSeconds = windowSeconds;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String hashedKey) {
+        long count = store.incrementAll(List.of(KEY_PREFIX + hashedKey), List.of(1L), windowSeconds)
+                .get(0)
+                .count();
+
+        return new RateLimitDecision(count <= maxRequests, maxRequests, Math.max(0, maxRequests - count));
+    }
+}
@@ -0,0 +1,162 @@
+package com.minje.chatbot.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 로컬 토큰 버킷 + 주기적 Redis 동기화 제한
+ * - 요청 경로에서는 로컬 카운터만 확인하므로 Redis 왕복이 없음
+ * - syncIntervalMs마다 키별 소비량을 한 번의 스크립트 호출로 모아서 반영하고 전역 사용량을 받아옴
+ * - 동기화 사이에 다른 노드가 소비한 양은 알 수 없으므로 한도는 근사치
+ *   (초과 허용량 ≤ 노드 수 × 동기화 주기 동안의 노드별 요청 수)
+ */
+@Slf4j
+public class HybridRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    private final RateLimitStore store;
+    private final long maxRequests;
+    private final long windowSeconds;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService syncScheduler;
+
+    public HybridRateLimiter(RateLimitStore store, long maxRequests, long windowSeconds, long syncIntervalMs) {
+        this.store = store;
+        this.maxRequests = maxRequests;
+        this.windowSeconds = windowSeconds;
+        this.syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncScheduler.scheduleWithFixedDelay(this::syncSafely, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String hashedKey) {
+        while (true) {
+            Bucket bucket = buckets.computeIfAbsent(hashedKey, key -> new Bucket());
+            synchronized (bucket) {
+                // 동기화 스레드가 유휴 버킷을 제거한 직후라면 새 버킷으로 다시 시도
+                if (!bucket.removed) {
+                    return acquire(bucket, System.currentTimeMillis());
+                }
+            }
+        }
+    }
+
+    // bucket 잠금을 잡은 상태에서 호출
+    private RateLimitDecision acquire(Bucket bucket, long now) {
+        bucket.lastAccessMillis = now;
+        if (now >= bucket.windowResetAtMillis) {
+            // 윈도우 경과: 다음 동기화 전까지는 로컬 소비분만으로 판단
+            bucket.globalCount = 0;
+            bucket.windowResetAtMillis = now + TimeUnit.SECONDS.toMillis(windowSeconds);
+        }
+
+        long used = bucket.globalCount + bucket.inFlight + bucket.pending;
+        if (used >= maxRequests) {
+            return new RateLimitDecision(false, maxRequests, 0);
+        }
+        bucket.pending++;
+        return new RateLimitDecision(true, maxRequests, maxRequests - used - 1);
+    }
+
+    /**
+     * 남은 소비량을 반영하고 동기화 스레드 종료
+     */
+    @Override
+    public void close() {
+        syncScheduler.shutdown();
+        try {
+            syncScheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        syncSafely();
+    }
+
+    private void sync() {
+        long now = System.currentTimeMillis();
+        long idleMillis = TimeUnit.SECONDS.toMillis(windowSeconds) * 2;
+
+        List<String> hashedKeys = new ArrayList<>();
+        List<String> redisKeys = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        List<Bucket> targets = new ArrayList<>();
+
+        buckets.forEach((hashedKey, bucket) -> {
+            synchronized (bucket) {
+                if (bucket.pending == 0 && now - bucket.lastAccessMillis > idleMillis) {
+                    bucket.removed = true;
+                    buckets.remove(hashedKey, bucket);
+                    return;
+                }
+                // 소비가 없어도 최근 사용된 키는 다른 노드의 사용량을 받아오기 위해 조회
+                bucket.inFlight = bucket.pending;
+                bucket.pending = 0;
+                hashedKeys.add(hashedKey);
+                redisKeys.add(KEY_PREFIX + hashedKey);
+                deltas.add(bucket.inFlight);
+                targets.add(bucket);
+            }
+        });
+
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        List<RateLimitStore.WindowCount> counts;
+        try {
+            counts = store.incrementAll(redisKeys, deltas, windowSeconds);
+        } catch (RuntimeException e) {
+            // 동기화 실패 시 소비량을 되돌려 다음 주기에 다시 반영
+            for (Bucket bucket : targets) {
+                synchronized (bucket) {
+                    bucket.pending += bucket.inFlight;
+                    bucket.inFlight = 0;
+                }
+            }
+            throw e;
+        }
+
+        long syncedAt = System.currentTimeMillis();
+        for (int i = 0; i < targets.size(); i++) {
+            Bucket bucket = targets.get(i);
+            RateLimitStore.WindowCount count = counts.get(i);
+            synchronized (bucket) {
+                bucket.globalCount = count.count();
+                bucket.inFlight = 0;
+                if (count.ttlMillis() > 0) {
+                    bucket.windowResetAtMillis = syncedAt + count.ttlMillis();
+                }
+            }
+        }
+        log.debug("Rate limit synced: {} keys", hashedKeys.size());
+    }
+
+    private void syncSafely() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Rate limit sync failed: {}", e.getMessage());
+        }
+    }
+
+    private static final class Bucket {
+        private long globalCount;
+        private long inFlight;
+        private long pending;
+        private long windowResetAtMillis;
+        private long lastAccessMillis;
+        private boolean removed;
+    }
+}
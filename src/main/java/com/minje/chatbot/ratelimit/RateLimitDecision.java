@@ -0,0 +1,7 @@
+package com.minje.chatbot.ratelimit;
+
+/**
+ * 요청 허용 여부와 응답 헤더용 한도 정보
+ */
+public record RateLimitDecision(boolean allowed, long limit, long remaining) {
+}
@@ -0,0 +1,22 @@
+package com.minje.chatbot.ratelimit;
+
+import java.util.List;
+
+/**
+ * 노드 간 공유되는 고정 윈도우 카운터 저장소
+ */
+public interface RateLimitStore {
+
+    /**
+     * 키별로 delta만큼 카운터를 증가시키고(0이면 조회만) 증가 후 값과 남은 윈도우(ms)를 반환.
+     * 새로 생성된 카운터는 windowSeconds 후 만료된다.
+     */
+    List<WindowCount> incrementAll(List<String> keys, List<Long> deltas, long windowSeconds);
+
+    /**
+     * @param count     윈도우 내 전체 사용량
+     * @param ttlMillis 윈도우 종료까지 남은 시간 (알 수 없으면 음수)
+     */
+    record WindowCount(long count, long ttlMillis) {
+    }
+}
@@ -0,0 +1,13 @@
+package com.minje.chatbot.ratelimit;
+
+/**
+ * API Key(해시) 단위 요청 횟수 제한
+ */
+public interface RateLimiter extends AutoCloseable {
+
+    RateLimitDecision tryAcquire(String hashedKey);
+
+    @Override
+    default void close() {
+    }
+}
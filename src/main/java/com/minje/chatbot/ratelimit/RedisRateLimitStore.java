@@ -0,0 +1,68 @@
+package com.minje.chatbot.ratelimit;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis 고정 윈도우 카운터.
+ * 스크립트는 한 번만 생성하여 SHA1을 재사용하므로 Spring이 EVALSHA로 실행한다
+ * (NOSCRIPT 응답 시에만 EVAL로 재전송).
+ */
+public class RedisRateLimitStore implements RateLimitStore {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INCREMENT_SCRIPT = RedisScript.of(
+            "local result = {} " +
+            "for i, key in ipairs(KEYS) do " +
+            "  local delta = tonumber(ARGV[i + 1]) " +
+            "  local count " +
+            "  if delta > 0 then " +
+            "    count = redis.call('INCRBY', key, delta) " +
+            "  else " +
+            "    count = tonumber(redis.call('GET', key) or '0') " +
+            "  end " +
+            "  local ttl = redis.call('PTTL', key) " +
+            "  if ttl == -1 then " +
+            "    redis.call('EXPIRE', key, ARGV[1]) " +
+            "    ttl = tonumber(ARGV[1]) * 1000 " +
+            "  end " +
+            "  result[#result + 1] = count " +
+            "  result[#result + 1] = ttl " +
+            "end " +
+            "return result",
+            List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisRateLimitStore(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public List<WindowCount> incrementAll(List<String> keys, List<Long> deltas, long windowSeconds) {
+        Object[] args = new Object[deltas.size() + 1];
+        args[0] = String.valueOf(windowSeconds);
+        for (int i = 0; i < deltas.size(); i++) {
+            args[i + 1] = String.valueOf(deltas.get(i));
+        }
+
+        List<?> result = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys, args);
+
+        List<WindowCount> counts = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            if (result == null || result.size() < (i + 1) * 2) {
+                counts.add(new WindowCount(0, -1));
+                continue;
+            }
+            counts.add(new WindowCount(toLong(result.get(i * 2)), toLong(result.get(i * 2 + 1))));
+        }
+        return counts;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(String.valueOf(value));
+    }
+}
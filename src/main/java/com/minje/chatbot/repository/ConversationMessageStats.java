@@ -0,0 +1,19 @@
+package com.minje.chatbot.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 대화 목록용 메시지 집계 (메시지 수 + 마지막 메시지 미리보기)
+ */
+public interface ConversationMessageStats {
+
+    Long getConversationId();
+
+    Long getMessageCount();
+
+    String getLastRole();
+
+    String getLastPreview();
+
+    LocalDateTime getLastMessageAt();
+}
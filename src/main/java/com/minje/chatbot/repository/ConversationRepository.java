@@ -4,10 +4,56 @@ import com.minje.chatbot.entity.Conversation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
 
     Page<Conversation> findByUserId(Long userId, Pageable pageable);
+
+    // === 키셋 페이지네이션: (updated_at DESC, id DESC), (user_id, updated_at, id) 인덱스 범위 스캔 ===
+
+    List<Conversation> findByUserIdOrderByUpdatedAtDescIdDesc(Long userId, Pageable pageable);
+
+    /**
+     * 커서보다 오래된 대화 (다음 페이지)
+     */
+    @Query("""
+            SELECT c FROM Conversation c
+            WHERE c.userId = :userId
+              AND c.updatedAt <= :updatedAt AND (c.updatedAt < :updatedAt OR c.id < :id)
+            ORDER BY c.updatedAt DESC, c.id DESC""")
+    List<Conversation> findPageAfter(@Param("userId") Long userId,
+                                     @Param("updatedAt") LocalDateTime updatedAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
+    /**
+     * 커서보다 최근 대화 (이전 페이지) — 커서에 가까운 순(오름차순)으로 반환
+     */
+    @Query("""
+            SELECT c FROM Conversation c
+            WHERE c.userId = :userId
+              AND c.updatedAt >= :updatedAt AND (c.updatedAt > :updatedAt OR c.id > :id)
+            ORDER BY c.updatedAt ASC, c.id ASC""")
+    List<Conversation> findPageBefore(@Param("userId") Long userId,
+                                      @Param("updatedAt") LocalDateTime updatedAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    // === 삭제: 삭제 표시만 하고 메시지/대화 행은 ConversationPurger가 나누어 삭제 ===
+
+    @Modifying
+    @Query("UPDATE Conversation c SET c.deletedAt = :now WHERE c.id = :id AND c.deletedAt IS NULL")
+    int markDeleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Conversation c SET c.deletedAt = :now WHERE c.userId = :userId AND c.deletedAt IS NULL")
+    int markAllDeletedByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
 }
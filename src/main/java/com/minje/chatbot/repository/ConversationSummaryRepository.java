@@ -0,0 +1,13 @@
+package com.minje.chatbot.repository;
+
+import com.minje.chatbot.entity.ConversationSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummary, Long> {
+
+    Optional<ConversationSummary> findByConversationId(Long conversationId);
+}
@@ -1,9 +1,14 @@
 package com.minje.chatbot.repository;
 
 import com.minje.chatbot.entity.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,9 +17,68 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
     List<Message> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
 
-    List<Message> findTop10ByConversationIdOrderByCreatedAtDesc(Long conversationId);
+    List<Message> findByConversationIdAndRoleNotOrderByCreatedAtDescIdDesc(Long conversationId, Message.Role role, Pageable pageable);
+
+    List<Message> findByConversationIdAndRoleNotOrderByCreatedAtAscIdAsc(Long conversationId, Message.Role role);
+
+    /**
+     * 요약 경계 (created_at, id) 이후 메시지 (시간 순)
+     */
+    @Query("""
+            SELECT m FROM Message m
+            WHERE m.conversationId = :conversationId AND m.role <> :role
+              AND m.createdAt >= :createdAt AND (m.createdAt > :createdAt OR m.id > :id)
+            ORDER BY m.createdAt ASC, m.id ASC""")
+    List<Message> findUnsummarized(@Param("conversationId") Long conversationId,
+                                   @Param("role") Message.Role role,
+                                   @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id);
+
+    // === 키셋 페이지네이션: (created_at ASC, id ASC), (conversation_id, created_at, id) 인덱스 범위 스캔 ===
+
+    List<Message> findByConversationIdOrderByCreatedAtAscIdAsc(Long conversationId, Pageable pageable);
+
+    /**
+     * 커서 이후 메시지 (다음 페이지)
+     */
+    @Query("""
+            SELECT m FROM Message m
+            WHERE m.conversationId = :conversationId
+              AND m.createdAt >= :createdAt AND (m.createdAt > :createdAt OR m.id > :id)
+            ORDER BY m.createdAt ASC, m.id ASC""")
+    List<Message> findPageAfter(@Param("conversationId") Long conversationId,
+                                @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") Long id,
+                                Pageable pageable);
+
+    /**
+     * 커서 이전 메시지 (이전 페이지) — 커서에 가까운 순(내림차순)으로 반환
+     */
+    @Query("""
+            SELECT m FROM Message m
+            WHERE m.conversationId = :conversationId
+              AND m.createdAt <= :createdAt AND (m.createdAt < :createdAt OR m.id < :id)
+            ORDER BY m.createdAt DESC, m.id DESC""")
+    List<Message> findPageBefore(@Param("conversationId") Long conversationId,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
 
     Optional<Message> findFirstByConversationIdAndRoleOrderByCreatedAtAsc(Long conversationId, Message.Role role);
 
-    void deleteAllByConversationId(Long conversationId);
+    /**
+     * 대화별 메시지 수와 마지막 메시지 미리보기(앞 100자)를 한 번의 쿼리로 조회
+     * 메시지 엔티티를 읽지 않으며, 메시지 수는 (conversation_id, id) 인덱스로 집계하고
+     * 마지막 메시지는 (conversation_id, created_at, id) 인덱스의 끝에서 한 행 — 노드마다 ID 블록이 달라도 시간 순서 기준
+     */
+    @Query(value = """
+            SELECT s.conversation_id AS "conversationId", s.message_count AS "messageCount",
+                   m.role AS "lastRole", LEFT(m.content, 100) AS "lastPreview", m.created_at AS "lastMessageAt"
+            FROM (SELECT conversation_id, COUNT(*) AS message_count
+                  FROM messages WHERE conversation_id IN (:conversationIds)
+                  GROUP BY conversation_id) s
+            JOIN LATERAL (SELECT role, content, created_at FROM messages
+                          WHERE conversation_id = s.conversation_id
+                          ORDER BY created_at DESC, id DESC LIMIT 1) m ON true""", nativeQuery = true)
+    List<ConversationMessageStats> findStatsByConversationIds(@Param("conversationIds") Collection<Long> conversationIds);
 }
@@ -1,34 +1,44 @@
 package com.minje.chatbot.service;
 
+import com.minje.chatbot.cache.ConversationHistoryCache;
 import com.minje.chatbot.dto.ChatRequest;
 import com.minje.chatbot.dto.ChatResponse;
 import com.minje.chatbot.dto.ConversationDTO;
+import com.minje.chatbot.dto.CursorPage;
 import com.minje.chatbot.dto.MessageDTO;
 
 import com.minje.chatbot.entity.Conversation;
 import com.minje.chatbot.entity.Message;
-import com.minje.chatbot.entity.User;
 import com.minje.chatbot.exception.CustomException;
+import com.minje.chatbot.quota.TokenQuotaService;
+import com.minje.chatbot.repository.ConversationMessageStats;
 import com.minje.chatbot.repository.ConversationRepository;
 import com.minje.chatbot.repository.MessageRepository;
-import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.upstream.UpstreamConcurrencyLimit;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.annotation.PreDestroy;
-
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -38,78 +48,96 @@ public class ChatService {
 
     private static final int MAX_SYSTEM_PROMPT_LENGTH = 1000;
     private static final int MAX_CONTENT_LENGTH = 5000;
+    private static final int MAX_PAGE_SIZE = 100;
 
-    private final UserRepository userRepository;
     private final ConversationRepository conversationRepository;
     private final MessageRepository messageRepository;
     private final OpenAIService openAIService;
-    private final ExecutorService streamExecutor = Executors.newFixedThreadPool(10);
-
+    private final TransactionTemplate transactionTemplate;
+    private final TokenQuotaService tokenQuotaService;
+    private final TokenCounter tokenCounter;
+    private final PromptAssembler promptAssembler;
+    private final ConversationSummarizer conversationSummarizer;
+    private final UpstreamConcurrencyLimit upstreamConcurrencyLimit;
+    private final MeterRegistry meterRegistry;
+    private final StreamReplayBuffer streamReplayBuffer;
+    private final MessageWriteBehind messageWriteBehind;
+    private final ConversationExporter conversationExporter;
+    private final ConversationPurger conversationPurger;
+    private final ConversationHistoryCache conversationHistoryCache;
+
+    /**
+     * 저장 대기 중인 스트리밍 응답을 모두 저장
+     */
     @PreDestroy
     public void shutdown() {
-        streamExecutor.shutdown();
-        try {
-            if (!streamExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                streamExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            streamExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+        messageWriteBehind.flush();
     }
 
-    @Transactional
-    public ChatResponse sendMessage(String apiKey, ChatRequest request) {
+    /**
+     * 동기 채팅 턴.
+     * OpenAI 응답을 기다리는 동안 DB 커넥션을 잡고 있지 않도록
+     * 준비 트랜잭션 → 업스트림 호출(트랜잭션 밖) → 완료 트랜잭션으로 나누어 처리한다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChatResponse sendMessage(Long userId, ChatRequest request) {
+        return sendMessage(userId, userTenant(userId), request);
+    }
+
+    /**
+     * @param tenantKey 업스트림 공정 대기열의 테넌트 (해시된 API Key)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ChatResponse sendMessage(Long userId, String tenantKey, ChatRequest request) {
         validateInput(request);
-        User user = getUserByApiKey(apiKey);
 
-        // 대화 조회 또는 생성
-        Conversation conversation = getOrCreateConversation(user.getId(), request.getConversationId());
+        // 업스트림 한도 초과 시 메시지 저장/토큰 예약 전에 503으로 거절
+        CompletionResult completion;
+        PreparedTurn turn;
+        try (UpstreamConcurrencyLimit.Permit permit = upstreamConcurrencyLimit.acquire(tenantKey)) {
+            // 이전 턴의 스트리밍 응답이 저장된 뒤에 이력을 조회
+            messageWriteBehind.awaitPending(request.getConversationId());
+            turn = transactionTemplate.execute(status -> prepareTurn(userId, request));
 
-        // 기존 대화인 경우 소유권 검증
-        if (request.getConversationId() != null) {
-            validateOwnership(conversation, user.getId());
+            // OpenAI API 호출 (트랜잭션 밖) — 한도 조정의 지연 표본은 여기부터
+            permit.markUpstreamStart();
+            try {
+                completion = openAIService.complete(
+                        turn.history(),
+                        request.getContent(),
+                        turn.systemPrompt(),
+                        Boolean.TRUE.equals(request.getCache())
+                );
+            } catch (RuntimeException e) {
+                permit.onFailure(e);
+                tokenQuotaService.release(turn.reservation());
+                throw e;
+            }
+            // 캐시/합류 결과는 업스트림 지연이 아니므로 한도 조정에서 제외
+            if (!completion.cached()) {
+                permit.onSuccess();
+            }
         }
-
-        // 새 대화이고 systemPrompt가 있으면 SYSTEM 메시지로 저장
-        if (request.getConversationId() == null && request.getSystemPrompt() != null && !request.getSystemPrompt().isBlank()) {
-            saveMessage(conversation.getId(), Message.Role.SYSTEM, request.getSystemPrompt());
+        if (completion.cached()) {
+            // 캐시 적중은 업스트림 토큰을 사용하지 않음
+            tokenQuotaService.release(turn.reservation());
+        } else {
+            // 응답에 usage가 없으면 예약량으로 확정
+            tokenQuotaService.commit(turn.reservation(),
+                    completion.totalTokens() > 0 ? completion.totalTokens() : turn.reservation().tokens());
         }
 
-        // 시스템 프롬프트 결정: 요청에 있으면 우선, 없으면 DB에서 조회
-        String systemPrompt = resolveSystemPrompt(conversation.getId(), request.getSystemPrompt());
-
-        // 사용자 메시지 저장
-        Message userMessage = saveMessage(conversation.getId(), Message.Role.USER, request.getContent());
-
-        // 이전 대화 이력 가져오기 (최근 10개만)
-        List<Message> conversationHistory = getRecentMessages(conversation.getId());
-
-        // OpenAI API 호출
-        String aiResponse = openAIService.createChatCompletion(
-                conversationHistory,
-                request.getContent(),
-                systemPrompt
-        );
-
-        // AI 응답 저장
-        Message assistantMessage = saveMessage(conversation.getId(), Message.Role.ASSISTANT, aiResponse);
-
-        // 대화 제목 설정 (첫 메시지인 경우)
-        if (conversation.getTitle() == null || conversation.getTitle().isEmpty()) {
-            String title = (request.getTitle() != null && !request.getTitle().isBlank())
-                    ? request.getTitle()
-                    : request.getContent();
-            updateConversationTitle(conversation, title);
-        }
+        String aiResponse = completion.content();
+        Message assistantMessage = transactionTemplate.execute(status -> completeTurn(turn, request, aiResponse));
+        conversationSummarizer.scheduleIfNeeded(turn.conversationId());
 
         return ChatResponse.builder()
-                .conversationId(conversation.getId())
+                .conversationId(turn.conversationId())
                 .userMessage(ChatResponse.MessageInfo.builder()
-                        .id(userMessage.getId())
+                        .id(turn.userMessage().getId())
                         .role(Message.Role.USER.getValue())
                         .content(request.getContent())
-                        .createdAt(userMessage.getCreatedAt())
+                        .createdAt(turn.userMessage().getCreatedAt())
                         .build())
                 .assistantMessage(ChatResponse.MessageInfo.builder()
                         .id(assistantMessage.getId())
@@ -120,90 +148,281 @@ public class ChatService {
                 .build();
     }
 
-    @Transactional
-    public SseEmitter sendMessageStream(String apiKey, ChatRequest request) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter sendMessageStream(Long userId, ChatRequest request) {
+        return sendMessageStream(userId, userTenant(userId), request);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter sendMessageStream(Long userId, String tenantKey, ChatRequest request) {
         validateInput(request);
         SseEmitter emitter = new SseEmitter(300000L); // 5분 타임아웃
 
-        User user = getUserByApiKey(apiKey);
-
-        // 대화 조회 또는 생성
-        Conversation conversation = getOrCreateConversation(user.getId(), request.getConversationId());
-
-        // 기존 대화인 경우 소유권 검증
-        if (request.getConversationId() != null) {
-            validateOwnership(conversation, user.getId());
+        // 허가는 스트림이 끝날 때(완료/오류 콜백) 반납
+        UpstreamConcurrencyLimit.Permit permit = upstreamConcurrencyLimit.acquire(tenantKey);
+        PreparedTurn turn;
+        try {
+            messageWriteBehind.awaitPending(request.getConversationId());
+            turn = transactionTemplate.execute(status -> prepareTurn(userId, request));
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
         }
 
-        // 새 대화이고 systemPrompt가 있으면 SYSTEM 메시지로 저장
-        if (request.getConversationId() == null && request.getSystemPrompt() != null && !request.getSystemPrompt().isBlank()) {
-            saveMessage(conversation.getId(), Message.Role.SYSTEM, request.getSystemPrompt());
-        }
+        // 비동기 스트리밍 — 종료 시 토큰 사용량 확정, 응답 저장/대화 제목 갱신은 write-behind 큐에서 모아 처리
+        StreamListener listener = new StreamListener() {
+            @Override
+            public void onFirstChunk() {
+                permit.onSuccess();
+            }
 
-        // 시스템 프롬프트 결정
-        String systemPrompt = resolveSystemPrompt(conversation.getId(), request.getSystemPrompt());
+            @Override
+            public void onComplete(String content, int completionTokens) {
+                permit.close();
+                tokenQuotaService.commit(turn.reservation(), turn.promptTokens() + completionTokens);
+                afterStream(content, false);
+            }
 
-        // 사용자 메시지 저장
-        saveMessage(conversation.getId(), Message.Role.USER, request.getContent());
+            @Override
+            public void onCacheHit(String content) {
+                permit.close();
+                // 캐시 재생은 업스트림 토큰을 사용하지 않음
+                tokenQuotaService.release(turn.reservation());
+                afterStream(content, false);
+            }
 
-        // 이전 대화 이력 (최근 10개만)
-        List<Message> conversationHistory = getRecentMessages(conversation.getId());
+            @Override
+            public void onError(Throwable error, String partialContent, int completionTokens) {
+                permit.onFailure(error);
+                permit.close();
+                settleTokens(completionTokens);
+                if (!partialContent.isEmpty()) {
+                    afterStream(partialContent, true);
+                }
+            }
 
-        // 비동기 스트리밍
-        streamExecutor.submit(() -> {
-            try {
-                openAIService.createChatCompletionStream(
-                        conversationHistory,
-                        request.getContent(),
-                        systemPrompt,
-                        emitter
-                );
+            @Override
+            public void onCancelled(String partialContent, int completionTokens, boolean upstreamCancelled) {
+                // 클라이언트가 떠난 것이므로 업스트림 한도 조정에는 반영하지 않음
+                permit.close();
+                settleTokens(completionTokens);
+                meterRegistry.counter("chat.stream.cancelled").increment();
+                if (upstreamCancelled) {
+                    // 중단하지 않았다면 최대 max-tokens까지 생성되었을 토큰 (상한 추정)
+                    meterRegistry.counter("chat.stream.tokens_saved")
+                            .increment(Math.max(0, openAIService.getMaxTokens() - completionTokens));
+                }
+                if (!partialContent.isEmpty()) {
+                    afterStream(partialContent, true);
+                }
+            }
 
-                // 대화 제목 설정
-                if (conversation.getTitle() == null || conversation.getTitle().isEmpty()) {
-                    String title = (request.getTitle() != null && !request.getTitle().isBlank())
-                            ? request.getTitle()
-                            : request.getContent();
-                    updateConversationTitle(conversation, title);
+            private void settleTokens(int completionTokens) {
+                // 토큰을 받기 시작했다면 프롬프트는 이미 과금됨
+                if (completionTokens > 0) {
+                    tokenQuotaService.commit(turn.reservation(), turn.promptTokens() + completionTokens);
+                } else {
+                    tokenQuotaService.release(turn.reservation());
                 }
+            }
+
+            private void afterStream(String content, boolean truncated) {
+                messageWriteBehind.enqueue(new MessageWriteBehind.Reply(turn.conversationId(), content,
+                                tokenCounter.countMessage(content), truncated, LocalDateTime.now(),
+                                turn.needsTitle() ? titleOf(request) : null))
+                        .thenRun(() -> conversationSummarizer.scheduleIfNeeded(turn.conversationId()));
+            }
+        };
+
+        // 클라이언트 연결 종료/타임아웃 시 업스트림 스트림 중단 (정상 완료 후의 완료 콜백은 아무것도 하지 않음)
+        AtomicReference<StreamHandle> handle = new AtomicReference<>();
+        Runnable cancel = () -> {
+            StreamHandle started = handle.getAndSet(StreamHandle.NONE);
+            if (started != null) {
+                started.cancel();
+            }
+        };
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(error -> cancel.run());
+
+        // 이어받기용 스트림 ID를 첫 이벤트(id 0)로 알림 — 재연결 시 GET /chat/completions/stream/{streamId}
+        StreamReplayBuffer.ReplayLog replayLog = streamReplayBuffer.open(userId);
+        if (replayLog != null) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id("0")
+                        .name("stream")
+                        .data(replayLog.id()));
+            } catch (IOException e) {
+                log.warn("Failed to send stream id: {}", e.getMessage());
+            }
+        }
 
-            } catch (Exception e) {
-                log.error("Error in streaming chat", e);
-                emitter.completeWithError(e);
+        // 업스트림 스트림은 OkHttp 비동기 호출이라 요청 스레드에서 바로 시작 (수신/전송은 OkHttp·SSE 전송 스레드)
+        try {
+            permit.markUpstreamStart();
+            StreamHandle started = openAIService.createChatCompletionStream(
+                    turn.history(),
+                    request.getContent(),
+                    turn.systemPrompt(),
+                    emitter,
+                    listener,
+                    Boolean.TRUE.equals(request.getCache()),
+                    replayLog
+            );
+            if (!handle.compareAndSet(null, started)) {
+                // 시작하는 동안 클라이언트가 떠남
+                started.cancel();
             }
-        });
+        } catch (Exception e) {
+            log.error("Error in streaming chat", e);
+            emitter.completeWithError(e);
+            permit.close();
+            tokenQuotaService.release(turn.reservation());
+        }
 
         return emitter;
     }
 
-    public Page<ConversationDTO> getConversations(String apiKey, Pageable pageable) {
-        User user = getUserByApiKey(apiKey);
+    /**
+     * 끊긴 스트림 이어받기 — lastEventId 이후 조각을 재생한 뒤 이어서 실시간 전송
+     * 스트림이 끝났어도 재생 버퍼가 만료되기 전이면 남은 조각과 done 이벤트를 받음
+     */
+    public SseEmitter resumeStream(Long userId, String streamId, long lastEventId) {
+        StreamReplayBuffer.ReplayLog replayLog = streamReplayBuffer.find(streamId, userId);
+        SseFrameWriter.Stream stream = replayLog != null ? replayLog.stream() : null;
+        if (stream == null) {
+            throw new CustomException("NOT_FOUND", "Stream not found or expired", HttpStatus.NOT_FOUND);
+        }
+
+        SseEmitter emitter = new SseEmitter(300000L); // 5분 타임아웃
+        // 다시 끊기면 또 detach-grace 동안 이어받기를 기다림
+        Runnable detach = () -> stream.detach(emitter);
+        emitter.onCompletion(detach);
+        emitter.onTimeout(detach);
+        emitter.onError(error -> detach.run());
+
+        if (!stream.resume(emitter, lastEventId)) {
+            throw new CustomException("GONE", "Stream can no longer be resumed from event " + lastEventId,
+                    HttpStatus.GONE);
+        }
+        return emitter;
+    }
 
+    public Page<ConversationDTO> getConversations(Long userId, Pageable pageable) {
         Page<Conversation> conversations = conversationRepository
-                .findByUserId(user.getId(), pageable);
+                .findByUserId(userId, pageable);
+
+        // 페이지의 메시지 수/마지막 메시지를 한 번의 집계 쿼리로 조회 (페이지 크기와 무관하게 쿼리 수 일정)
+        Map<Long, ConversationMessageStats> stats = conversations.isEmpty()
+                ? Map.of()
+                : messageRepository.findStatsByConversationIds(
+                                conversations.map(Conversation::getId).getContent()).stream()
+                        .collect(Collectors.toMap(ConversationMessageStats::getConversationId, Function.identity()));
 
-        return conversations.map(this::toConversationDTO);
+        return conversations.map(conversation -> toConversationDTO(conversation, stats.get(conversation.getId())));
     }
 
-    public ConversationDTO getConversation(String apiKey, Long conversationId) {
-        User user = getUserByApiKey(apiKey);
+    /**
+     * 대화 목록 키셋 페이지 (최근 수정 순) — OFFSET/COUNT 없이 커서 위치부터 인덱스 범위 스캔
+     *
+     * @param after  다음 페이지 커서 (nextCursor)
+     * @param before 이전 페이지 커서 (previousCursor)
+     */
+    public CursorPage<ConversationDTO> getConversations(Long userId, String after, String before, int size) {
+        KeysetCursor cursor = cursorOf(after, before);
+        int pageSize = pageSizeOf(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+
+        List<Conversation> rows;
+        if (before != null && cursor != null) {
+            rows = new ArrayList<>(conversationRepository.findPageBefore(userId, cursor.timestamp(), cursor.id(), limit));
+        } else if (cursor != null) {
+            rows = conversationRepository.findPageAfter(userId, cursor.timestamp(), cursor.id(), limit);
+        } else {
+            rows = conversationRepository.findByUserIdOrderByUpdatedAtDescIdDesc(userId, limit);
+        }
+        boolean more = rows.size() > pageSize;
+        List<Conversation> page = rows.subList(0, Math.min(pageSize, rows.size()));
+        if (before != null && cursor != null) {
+            Collections.reverse(page);
+        }
+
+        Map<Long, ConversationMessageStats> stats = page.isEmpty()
+                ? Map.of()
+                : messageRepository.findStatsByConversationIds(page.stream().map(Conversation::getId).toList()).stream()
+                        .collect(Collectors.toMap(ConversationMessageStats::getConversationId, Function.identity()));
+        List<ConversationDTO> content = page.stream()
+                .map(conversation -> toConversationDTO(conversation, stats.get(conversation.getId())))
+                .toList();
+
+        return cursorPage(content, pageSize, before != null && cursor != null, cursor != null, more,
+                page.isEmpty() ? null : KeysetCursor.encode(page.get(0).getUpdatedAt(), page.get(0).getId()),
+                page.isEmpty() ? null : KeysetCursor.encode(page.get(page.size() - 1).getUpdatedAt(),
+                        page.get(page.size() - 1).getId()));
+    }
 
+    /**
+     * 대화 메시지 키셋 페이지 (시간 순) — 긴 대화도 페이지마다 일정한 비용
+     *
+     * @param after  다음(이후) 페이지 커서 (nextCursor)
+     * @param before 이전(과거) 페이지 커서 (previousCursor)
+     */
+    public CursorPage<MessageDTO> getMessages(Long userId, Long conversationId, String after, String before, int size) {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new CustomException("NOT_FOUND", "Conversation not found", HttpStatus.NOT_FOUND));
+        validateOwnership(conversation, userId);
+
+        KeysetCursor cursor = cursorOf(after, before);
+        int pageSize = pageSizeOf(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+
+        List<Message> rows;
+        if (before != null && cursor != null) {
+            rows = new ArrayList<>(messageRepository.findPageBefore(conversationId, cursor.timestamp(), cursor.id(), limit));
+        } else if (cursor != null) {
+            rows = messageRepository.findPageAfter(conversationId, cursor.timestamp(), cursor.id(), limit);
+        } else {
+            rows = messageRepository.findByConversationIdOrderByCreatedAtAscIdAsc(conversationId, limit);
+        }
+        boolean more = rows.size() > pageSize;
+        List<Message> page = rows.subList(0, Math.min(pageSize, rows.size()));
+        if (before != null && cursor != null) {
+            Collections.reverse(page);
+        }
+
+        return cursorPage(page.stream().map(this::toMessageDTO).toList(), pageSize,
+                before != null && cursor != null, cursor != null, more,
+                page.isEmpty() ? null : KeysetCursor.encode(page.get(0).getCreatedAt(), page.get(0).getId()),
+                page.isEmpty() ? null : KeysetCursor.encode(page.get(page.size() - 1).getCreatedAt(),
+                        page.get(page.size() - 1).getId()));
+    }
+
+    /**
+     * 대화 전체를 응답 스트림에 바로 쓰는 조회 (메시지 목록을 메모리에 올리지 않음)
+     * 소유권은 응답을 시작하기 전에 확인하므로 404/403은 일반 오류 응답으로 전달됨
+     */
+    public StreamingResponseBody exportConversation(Long userId, Long conversationId, ConversationExporter.Format format) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new CustomException("NOT_FOUND", "Conversation not found", HttpStatus.NOT_FOUND));
+
+        validateOwnership(conversation, userId);
+
+        return out -> conversationExporter.write(conversation, format, out);
+    }
 
-        validateOwnership(conversation, user.getId());
+    public ConversationDTO getConversation(Long userId, Long conversationId) {
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new CustomException("NOT_FOUND", "Conversation not found", HttpStatus.NOT_FOUND));
+
+        validateOwnership(conversation, userId);
 
         List<Message> messages = messageRepository
                 .findByConversationIdOrderByCreatedAtAsc(conversationId);
 
         List<MessageDTO> messageDTOs = messages.stream()
-                .map(msg -> MessageDTO.builder()
-                        .id(msg.getId())
-                        .conversationId(msg.getConversationId())
-                        .role(msg.getRole().getValue())
-                        .content(msg.getContent())
-                        .createdAt(msg.getCreatedAt())
-                        .build())
+                .map(this::toMessageDTO)
                 .toList();
 
         return ConversationDTO.builder()
@@ -217,22 +436,45 @@ public class ChatService {
                 .build();
     }
 
+    /**
+     * 대화 삭제 — 삭제 표시(UPDATE 한 번)만 하고 메시지는 ConversationPurger가 커밋 후 나누어 삭제
+     */
     @Transactional
-    public void deleteConversation(String apiKey, Long conversationId) {
-        User user = getUserByApiKey(apiKey);
-
+    public void deleteConversation(Long userId, Long conversationId) {
+        messageWriteBehind.awaitPending(conversationId);
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new CustomException("NOT_FOUND", "Conversation not found", HttpStatus.NOT_FOUND));
 
-        validateOwnership(conversation, user.getId());
+        validateOwnership(conversation, userId);
 
-        messageRepository.deleteAllByConversationId(conversationId);
-        conversationRepository.delete(conversation);
+        conversationRepository.markDeleted(conversationId, LocalDateTime.now());
+        conversationPurger.wakeAfterCommit();
+        conversationHistoryCache.evictAfterCommit(conversationId);
         log.info("Deleted conversation: {}", conversationId);
     }
 
+    /**
+     * 사용자의 모든 대화 삭제 (삭제 표시 후 백그라운드 정리)
+     * 이력 캐시는 비우지 않음 — 삭제된 대화는 조회할 수 없고 캐시 항목은 만료로 사라짐
+     *
+     * @return 삭제한 대화 수
+     */
+    @Transactional
+    public int deleteAllConversations(Long userId) {
+        int deleted = conversationRepository.markAllDeletedByUserId(userId, LocalDateTime.now());
+        if (deleted > 0) {
+            conversationPurger.wakeAfterCommit();
+        }
+        log.info("Deleted {} conversations of user {}", deleted, userId);
+        return deleted;
+    }
+
     // === Private Helper Methods ===
 
+    private static String userTenant(Long userId) {
+        return "user:" + userId;
+    }
+
     private void validateInput(ChatRequest request) {
         if (request.getContent() != null && request.getContent().length() > MAX_CONTENT_LENGTH) {
             throw new CustomException("BAD_REQUEST", "메시지는 " + MAX_CONTENT_LENGTH + "자 이하여야 합니다.", HttpStatus.BAD_REQUEST);
@@ -242,78 +484,186 @@ public class ChatService {
         }
     }
 
-    private User getUserByApiKey(String apiKey) {
-        return userRepository.findByApiKey(apiKey)
-                .orElseThrow(() -> new CustomException("UNAUTHORIZED", "Invalid API Key", HttpStatus.UNAUTHORIZED));
-    }
-
     private void validateOwnership(Conversation conversation, Long userId) {
         if (!conversation.getUserId().equals(userId)) {
             throw new CustomException("FORBIDDEN", "Access denied to this conversation", HttpStatus.FORBIDDEN);
         }
     }
 
-    private String resolveSystemPrompt(Long conversationId, String requestSystemPrompt) {
-        // 요청에 systemPrompt가 있으면 우선 사용
-        if (requestSystemPrompt != null && !requestSystemPrompt.isBlank()) {
-            return requestSystemPrompt;
-        }
-        // 없으면 DB에서 저장된 SYSTEM 메시지 조회
-        return messageRepository.findFirstByConversationIdAndRoleOrderByCreatedAtAsc(conversationId, Message.Role.SYSTEM)
-                .map(Message::getContent)
-                .orElse(null);
-    }
-
-    private Conversation getOrCreateConversation(Long userId, Long conversationId) {
-        if (conversationId != null) {
-            return conversationRepository.findById(conversationId)
+    private Conversation getOrCreateConversation(Long userId, ChatRequest request) {
+        if (request.getConversationId() != null) {
+            return conversationRepository.findById(request.getConversationId())
                     .orElseThrow(() -> new CustomException("NOT_FOUND", "Conversation not found", HttpStatus.NOT_FOUND));
         }
 
-        // 새 대화 생성
+        // 새 대화 생성 — 제목을 미리 정해 INSERT 한 번으로 끝냄 (시퀀스 ID라 INSERT는 커밋 시 메시지와 함께 flush)
         Conversation newConversation = Conversation.builder()
                 .userId(userId)
+                .title(titleOf(request))
                 .build();
 
         return conversationRepository.save(newConversation);
     }
 
-    private List<Message> getRecentMessages(Long conversationId) {
-        List<Message> messages = new ArrayList<>(
-                messageRepository.findTop10ByConversationIdOrderByCreatedAtDesc(conversationId));
-        Collections.reverse(messages);
-        return messages;
-    }
-
     private Message saveMessage(Long conversationId, Message.Role role, String content) {
         Message message = Message.builder()
                 .conversationId(conversationId)
                 .role(role)
                 .content(content)
+                .tokenCount(tokenCounter.countMessage(content))
                 .build();
 
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        conversationHistoryCache.appendAfterCommit(saved);
+        return saved;
     }
 
-    @Transactional
-    private void updateConversationTitle(Conversation conversation, String firstMessage) {
-        String title = firstMessage.length() > 50
+    /**
+     * 준비 트랜잭션: 사용자/대화 검증, SYSTEM·USER 메시지 저장, 대화 이력 조회
+     */
+    private PreparedTurn prepareTurn(Long userId, ChatRequest request) {
+        // 대화 조회 또는 생성
+        boolean newConversation = request.getConversationId() == null;
+        Conversation conversation = getOrCreateConversation(userId, request);
+
+        // 기존 대화인 경우 소유권 검증
+        if (!newConversation) {
+            validateOwnership(conversation, userId);
+        }
+
+        // 기존 대화의 시스템 프롬프트와 최근 이력 (캐시, 없으면 DB) — 이번 턴 메시지를 저장하기 전에 조회
+        ConversationHistoryCache.Window history = newConversation
+                ? null
+                : conversationHistoryCache.get(conversation.getId());
+
+        boolean hasRequestSystemPrompt = request.getSystemPrompt() != null && !request.getSystemPrompt().isBlank();
+        if (newConversation) {
+            conversationHistoryCache.startAfterCommit(conversation.getId(),
+                    hasRequestSystemPrompt ? request.getSystemPrompt() : null);
+        }
+
+        // 새 대화이고 systemPrompt가 있으면 SYSTEM 메시지로 저장
+        if (newConversation && hasRequestSystemPrompt) {
+            saveMessage(conversation.getId(), Message.Role.SYSTEM, request.getSystemPrompt());
+        }
+
+        // 시스템 프롬프트 결정: 요청에 있으면 우선, 없으면 대화에 저장된 SYSTEM 메시지 (새 대화는 저장된 것이 없음)
+        String systemPrompt = newConversation || hasRequestSystemPrompt
+                ? request.getSystemPrompt()
+                : history.systemPrompt();
+
+        // 사용자 메시지 저장
+        Message userMessage = saveMessage(conversation.getId(), Message.Role.USER, request.getContent());
+
+        // 토큰 예산 안에서 최신 이력부터 채움 (현재 메시지는 제외)
+        // 새 대화는 이력이 없으므로 조회하지 않음 — 대화/메시지 INSERT가 커밋 시 한 번에 배치로 전송됨
+        PromptAssembler.AssembledPrompt prompt = newConversation
+                ? promptAssembler.first(userMessage, systemPrompt)
+                : promptAssembler.assemble(conversation.getId(), userMessage, systemPrompt,
+                        history.history(), history.complete());
+
+        // 토큰 한도 예약 (초과 시 예외 → 이 트랜잭션의 저장 내용도 롤백)
+        TokenQuotaService.Reservation reservation = tokenQuotaService.reserve(userId,
+                prompt.promptTokens() + (long) openAIService.getMaxTokens());
+
+        // 요약이 있으면 요약이 붙은 시스템 프롬프트를 사용
+        boolean needsTitle = conversation.getTitle() == null || conversation.getTitle().isEmpty();
+        return new PreparedTurn(conversation.getId(), userMessage, prompt.history(), prompt.systemPrompt(),
+                prompt.promptTokens(), reservation, needsTitle);
+    }
+
+    /**
+     * 완료 트랜잭션: AI 응답 저장 및 대화 제목 설정 (스트리밍 응답은 MessageWriteBehind에서 저장)
+     */
+    private Message completeTurn(PreparedTurn turn, ChatRequest request, String aiResponse) {
+        Message assistantMessage = saveMessage(turn.conversationId(), Message.Role.ASSISTANT, aiResponse);
+        if (turn.needsTitle()) {
+            updateTitleIfMissing(turn, request);
+        }
+        return assistantMessage;
+    }
+
+    private void updateTitleIfMissing(PreparedTurn turn, ChatRequest request) {
+        // 분리된 스레드/트랜잭션에서 호출되므로 detached 엔티티 대신 현재 트랜잭션에서 다시 조회
+        Conversation conversation = conversationRepository.findById(turn.conversationId())
+                .orElse(null);
+        if (conversation == null || (conversation.getTitle() != null && !conversation.getTitle().isEmpty())) {
+            return;
+        }
+
+        conversation.setTitle(titleOf(request));
+    }
+
+    private static String titleOf(ChatRequest request) {
+        String firstMessage = (request.getTitle() != null && !request.getTitle().isBlank())
+                ? request.getTitle()
+                : request.getContent();
+        return firstMessage.length() > 50
                 ? firstMessage.substring(0, 50) + "..."
                 : firstMessage;
-
-        conversation.setTitle(title);
-        conversationRepository.save(conversation);
     }
 
-    private ConversationDTO toConversationDTO(Conversation conversation) {
+    private ConversationDTO toConversationDTO(Conversation conversation, ConversationMessageStats stats) {
         return ConversationDTO.builder()
                 .id(conversation.getId())
                 .userId(conversation.getUserId())
                 .title(conversation.getTitle())
-                .messageCount(conversation.getMessageCount())
+                .messageCount(stats != null ? stats.getMessageCount().intValue() : 0)
+                .lastMessagePreview(stats != null ? stats.getLastPreview() : null)
+                .lastMessageRole(stats != null ? stats.getLastRole() : null)
+                .lastMessageAt(stats != null ? stats.getLastMessageAt() : null)
                 .createdAt(conversation.getCreatedAt())
                 .updatedAt(conversation.getUpdatedAt())
                 .build();
     }
 
+    private MessageDTO toMessageDTO(Message message) {
+        return MessageDTO.builder()
+                .id(message.getId())
+                .conversationId(message.getConversationId())
+                .role(message.getRole().getValue())
+                .content(message.getContent())
+                .truncated(message.isTruncated())
+                .createdAt(message.getCreatedAt())
+                .build();
+    }
+
+    private static KeysetCursor cursorOf(String after, String before) {
+        if (after != null && before != null) {
+            throw new CustomException("BAD_REQUEST", "after와 before는 함께 사용할 수 없습니다.", HttpStatus.BAD_REQUEST);
+        }
+        return KeysetCursor.decode(after != null ? after : before);
+    }
+
+    private static int pageSizeOf(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * @param backward   before 커서로 조회한 페이지 (more는 더 이전 페이지 존재 여부)
+     * @param fromCursor 커서로 조회한 페이지 (반대 방향 페이지가 있음)
+     */
+    private static <T> CursorPage<T> cursorPage(List<T> content, int size, boolean backward, boolean fromCursor,
+                                                boolean more, String firstCursor, String lastCursor) {
+        // 빈 페이지에는 다음 위치가 없으므로 양방향 모두 없음으로 표시
+        boolean hasNext = !content.isEmpty() && (backward ? fromCursor : more);
+        boolean hasPrevious = !content.isEmpty() && (backward ? more : fromCursor);
+        return CursorPage.<T>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(hasNext ? lastCursor : null)
+                .previousCursor(hasPrevious ? firstCursor : null)
+                .hasNext(hasNext)
+                .hasPrevious(hasPrevious)
+                .build();
+    }
+
+    private record PreparedTurn(Long conversationId,
+                                Message userMessage,
+                                List<Message> history,
+                                String systemPrompt,
+                                int promptTokens,
+                                TokenQuotaService.Reservation reservation,
+                                boolean needsTitle) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.minje.chatbot.service;
+
+/**
+ * 채팅 완료 결과와 토큰 사용량
+ *
+ * @param cached 응답 캐시 또는 진행 중인 동일 요청에서 받은 결과인지 (이 요청 몫의 업스트림 토큰 없음)
+ */
+public record CompletionResult(String content, long promptTokens, long completionTokens, boolean cached) {
+
+    public CompletionResult(String content, long promptTokens, long completionTokens) {
+        this(content, promptTokens, completionTokens, false);
+    }
+
+    public long totalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
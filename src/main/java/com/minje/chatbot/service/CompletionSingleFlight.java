@@ -0,0 +1,423 @@
+package com.minje.chatbot.service;
+
+import com.minje.chatbot.upstream.ChatCompletionStreamHandler;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.sse.EventSource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 진행 중인 동일 요청 합치기 (single-flight)
+ * - 같은 키의 요청이 진행 중이면 새로 업스트림을 호출하지 않고 첫 요청의 결과/스트림에 합류
+ * - 동기: 모든 호출자가 같은 결과 또는 같은 예외를 받음. 합류한 호출자의 결과는 cached=true (업스트림 토큰 없음)
+ * - 스트림: 받은 청크를 모든 구독자에게 전달하고, 늦게 합류한 구독자에게는 지금까지의 청크를 먼저 재생
+ *   전달은 구독자별 대기열에 쌓아 잠금 밖(가상 스레드)에서 순서대로 — 느린 구독자가 업스트림 수신이나 다른 구독자를 막지 않음
+ * - 업스트림 호출은 마지막 구독자가 떠날 때(동기: future 취소, 스트림: 구독 취소 또는 전송 실패)만 취소
+ */
+@Slf4j
+class CompletionSingleFlight {
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Map<String, StreamFlight> streams = new ConcurrentHashMap<>();
+    private final Executor delivery = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param call 이 키로 진행 중인 요청이 없을 때만 호출되는 업스트림 호출
+     * @return 호출자 전용 future (취소해도 다른 호출자에게 영향 없음)
+     */
+    CompletableFuture<CompletionResult> complete(String key, Supplier<CompletableFuture<CompletionResult>> call) {
+        Flight flight;
+        boolean leader;
+        while (true) {
+            Flight created = new Flight();
+            flight = flights.computeIfAbsent(key, k -> created);
+            leader = flight == created;
+            if (flight.join()) {
+                break;
+            }
+            // 마지막 구독자가 떠나 닫히는 중인 요청이면 새로 시작
+            flights.remove(key, flight);
+        }
+
+        Flight joined = flight;
+        boolean isLeader = leader;
+        CompletableFuture<CompletionResult> mine = new CompletableFuture<>();
+        joined.shared.whenComplete((result, error) -> {
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(isLeader ? result : new CompletionResult(
+                        result.content(), result.promptTokens(), result.completionTokens(), true));
+            }
+        });
+        mine.whenComplete((result, error) -> {
+            if (mine.isCancelled() && joined.leave()) {
+                flights.remove(key, joined);
+                joined.cancelUpstream();
+            }
+        });
+
+        if (leader) {
+            log.debug("Single-flight leader: {}", key);
+            CompletableFuture<CompletionResult> upstream;
+            try {
+                upstream = call.get();
+            } catch (RuntimeException e) {
+                upstream = CompletableFuture.failedFuture(e);
+            }
+            joined.start(upstream);
+            upstream.whenComplete((result, error) -> {
+                flights.remove(key, joined);
+                if (error != null) {
+                    joined.shared.completeExceptionally(unwrap(error));
+                } else {
+                    joined.shared.complete(result);
+                }
+            });
+        } else {
+            log.debug("Joined in-flight completion: {}", key);
+        }
+        return mine;
+    }
+
+    /**
+     * @param subscriberFactory 호출자 전용 핸들러 생성 — 구독에 성공한 뒤 한 번만 호출
+     *                          (인자: 이 호출자의 구독 — 업스트림을 시작한 첫 요청인지 포함)
+     * @param starter           이 키로 진행 중인 스트림이 없을 때만 호출되는 업스트림 스트림 시작
+     * @return 호출자가 떠날 때 cancel할 구독
+     */
+    Subscription stream(String key,
+                        Function<Subscription, ChatCompletionStreamHandler> subscriberFactory,
+                        Function<ChatCompletionStreamHandler, EventSource> starter) {
+        Subscription subscription;
+        while (true) {
+            StreamFlight created = new StreamFlight(key);
+            StreamFlight flight = streams.computeIfAbsent(key, k -> created);
+            subscription = new Subscription(flight, flight == created);
+            if (flight.subscribe(subscription)) {
+                break;
+            }
+            // 이미 끝난 스트림이면 새로 시작
+            streams.remove(key, flight);
+        }
+
+        // 핸들러가 붙기 전에 온 청크(재생 포함)는 구독 대기열에 남아 있다가 붙은 뒤 전달됨
+        RuntimeException failure = null;
+        try {
+            subscription.attach(subscriberFactory.apply(subscription));
+        } catch (RuntimeException e) {
+            subscription.flight.unsubscribe(subscription);
+            failure = e;
+        }
+        if (subscription.leader) {
+            // 핸들러 생성에 실패해도 그 사이 합류한 구독자를 위해 시작 (남은 구독자가 없으면 start()에서 취소)
+            log.debug("Single-flight stream leader: {}", key);
+            subscription.flight.start(starter);
+        } else {
+            log.debug("Joined in-flight stream: {}", key);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return subscription;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 스트림 구독 하나. 받은 이벤트를 자기 대기열에 쌓고 한 번에 하나의 가상 스레드에서 순서대로 핸들러에 전달
+     */
+    final class Subscription {
+
+        private final StreamFlight flight;
+        private final boolean leader;
+        // 아래 필드는 이 구독의 잠금으로 보호
+        private final Deque<Consumer<ChatCompletionStreamHandler>> pending = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+        private volatile ChatCompletionStreamHandler subscriber;
+
+        private Subscription(StreamFlight flight, boolean leader) {
+            this.flight = flight;
+            this.leader = leader;
+        }
+
+        /**
+         * 업스트림 스트림을 시작한 첫 요청인지
+         */
+        boolean leader() {
+            return leader;
+        }
+
+        ChatCompletionStreamHandler subscriber() {
+            return subscriber;
+        }
+
+        /**
+         * 구독 해지. 이후 이 구독자에게는 콜백이 오지 않음
+         *
+         * @return 마지막 구독자라 업스트림 스트림까지 중단했으면 true
+         */
+        boolean cancel() {
+            return flight.unsubscribe(this);
+        }
+
+        /**
+         * 구독자가 모두 떠나 업스트림 스트림이 중단되었는지
+         */
+        boolean upstreamCancelled() {
+            return flight.isAbandoned();
+        }
+
+        private void attach(ChatCompletionStreamHandler handler) {
+            subscriber = handler;
+            deliver();
+        }
+
+        // 스트림 잠금 안에서 호출. 전달은 deliver()에서
+        private synchronized void enqueue(Consumer<ChatCompletionStreamHandler> event) {
+            if (!closed) {
+                pending.addLast(event);
+            }
+        }
+
+        // 스트림 잠금 밖에서 호출. 쌓인 이벤트가 있고 전달 중이 아니면 전달 시작
+        private void deliver() {
+            synchronized (this) {
+                if (scheduled || closed || subscriber == null || pending.isEmpty()) {
+                    return;
+                }
+                scheduled = true;
+            }
+            delivery.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                Consumer<ChatCompletionStreamHandler> next;
+                synchronized (this) {
+                    next = pending.pollFirst();
+                    if (next == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    next.accept(subscriber);
+                } catch (RuntimeException e) {
+                    log.warn("Stream subscriber callback failed: {}", e.getMessage());
+                }
+            }
+        }
+
+        private void chunk(ChatCompletionChunk chunk) {
+            enqueue(handler -> {
+                try {
+                    handler.onChunk(chunk);
+                } catch (RuntimeException e) {
+                    // 전송에 실패한 구독자는 빠지고, 이후 이벤트 대신 오류를 받음
+                    close();
+                    flight.drop(this);
+                    handler.onError(e);
+                }
+            });
+        }
+
+        // 이후 이벤트는 쌓지도 전달하지도 않음
+        private synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+    }
+
+    /**
+     * 동기 요청 하나의 공유 상태
+     */
+    private static final class Flight {
+
+        private final CompletableFuture<CompletionResult> shared = new CompletableFuture<>();
+        private CompletableFuture<CompletionResult> upstream;
+        private int subscribers;
+        private boolean closed;
+
+        synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        /**
+         * @return 마지막 구독자가 떠나 업스트림을 취소해야 하면 true
+         */
+        synchronized boolean leave() {
+            subscribers--;
+            if (subscribers == 0 && !shared.isDone()) {
+                closed = true;
+                return true;
+            }
+            return false;
+        }
+
+        void start(CompletableFuture<CompletionResult> upstream) {
+            boolean cancel;
+            synchronized (this) {
+                this.upstream = upstream;
+                cancel = closed;
+            }
+            // 시작 전에 모든 구독자가 떠난 경우
+            if (cancel) {
+                upstream.cancel(true);
+            }
+        }
+
+        void cancelUpstream() {
+            CompletableFuture<CompletionResult> target;
+            synchronized (this) {
+                target = upstream;
+            }
+            if (target != null) {
+                target.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 스트림 하나의 공유 상태. 업스트림 핸들러로 등록되어 청크를 구독자에게 분배
+     */
+    private final class StreamFlight implements ChatCompletionStreamHandler {
+
+        private final String key;
+        private final List<ChatCompletionChunk> received = new ArrayList<>();
+        private final List<Subscription> subscribers = new ArrayList<>();
+        private EventSource source;
+        private boolean finished;
+        private boolean abandoned;
+
+        StreamFlight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * 지금까지 받은 청크를 구독 대기열에 먼저 넣고 합류 (전달은 핸들러가 붙은 뒤)
+         *
+         * @return 이미 끝난 스트림이면 false
+         */
+        synchronized boolean subscribe(Subscription subscription) {
+            if (finished) {
+                return false;
+            }
+            received.forEach(subscription::chunk);
+            subscribers.add(subscription);
+            return true;
+        }
+
+        void start(Function<ChatCompletionStreamHandler, EventSource> starter) {
+            if (isAbandoned()) {
+                return;
+            }
+            EventSource started = starter.apply(this);
+            boolean cancel;
+            synchronized (this) {
+                source = started;
+                cancel = finished && subscribers.isEmpty();
+            }
+            if (cancel && started != null) {
+                started.cancel();
+            }
+        }
+
+        @Override
+        public void onChunk(ChatCompletionChunk chunk) {
+            List<Subscription> targets;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                received.add(chunk);
+                subscribers.forEach(subscription -> subscription.chunk(chunk));
+                targets = new ArrayList<>(subscribers);
+            }
+            targets.forEach(Subscription::deliver);
+        }
+
+        /**
+         * 구독 해지. 쌓여 있던 이벤트는 버림
+         *
+         * @return 마지막 구독자라 업스트림 스트림을 중단했으면 true
+         */
+        boolean unsubscribe(Subscription subscription) {
+            subscription.close();
+            return drop(subscription);
+        }
+
+        /**
+         * 구독자를 빼고, 마지막 구독자였으면 업스트림 스트림도 중단
+         *
+         * @return 업스트림 스트림을 중단했으면 true
+         */
+        boolean drop(Subscription subscription) {
+            EventSource toCancel;
+            synchronized (this) {
+                if (finished || !subscribers.remove(subscription) || !subscribers.isEmpty()) {
+                    return false;
+                }
+                finished = true;
+                abandoned = true;
+                toCancel = source;
+            }
+            streams.remove(key, this);
+            // 아직 시작 전이면 start()에서 취소됨
+            if (toCancel != null) {
+                toCancel.cancel();
+            }
+            return true;
+        }
+
+        synchronized boolean isAbandoned() {
+            return abandoned;
+        }
+
+        @Override
+        public void onComplete() {
+            finish(ChatCompletionStreamHandler::onComplete);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            finish(subscriber -> subscriber.onError(error));
+        }
+
+        // 종료 이벤트는 각 구독자의 남은 청크 뒤에 전달
+        private void finish(Consumer<ChatCompletionStreamHandler> event) {
+            List<Subscription> targets;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                subscribers.forEach(subscription -> subscription.enqueue(event));
+                targets = new ArrayList<>(subscribers);
+                subscribers.clear();
+            }
+            streams.remove(key, this);
+            targets.forEach(Subscription::deliver);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.minje.chatbot.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minje.chatbot.entity.Conversation;
+import com.minje.chatbot.exception.CustomException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * 대화 전체 메시지를 일정한 메모리로 응답에 직접 쓰기
+ * - 엔티티/DTO 목록을 만들지 않고 JDBC 커서(forward-only, fetch-size건씩)로 읽은 행을 바로 JSON으로 직렬화
+ * - PostgreSQL은 트랜잭션 안(autocommit off)에서만 fetch size로 나누어 읽으므로 읽기 전용 트랜잭션에서 조회
+ * - 힙 사용량은 메시지 수가 아니라 fetch-size건 + 출력 버퍼에 비례
+ */
+@Component
+@Slf4j
+public class ConversationExporter {
+
+    private static final String SELECT_MESSAGES = "SELECT id, role, content, truncated, created_at FROM messages "
+            + "WHERE conversation_id = ? ORDER BY created_at ASC, id ASC";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final Counter exportedMessages;
+
+    public ConversationExporter(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.export.fetch-size:200}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.exportedMessages = Counter.builder("chat.export.messages").register(meterRegistry);
+    }
+
+    /**
+     * 출력 형식
+     * - JSON: 기존 대화 상세 조회와 같은 모양의 {@code ApiResponse} 문서 (messages 배열을 이어 씀)
+     * - NDJSON: 한 줄에 메시지 하나
+     */
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        NDJSON(MediaType.APPLICATION_NDJSON);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException("BAD_REQUEST", "지원하지 않는 형식입니다: " + value, HttpStatus.BAD_REQUEST);
+            }
+        }
+    }
+
+    /**
+     * 대화의 메시지를 생성 순서대로 out에 씀 (소유권은 호출 측에서 확인)
+     */
+    public void write(Conversation conversation, Format format, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        if (format == Format.JSON) {
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeObjectFieldStart("data");
+            generator.writeNumberField("id", conversation.getId());
+            generator.writeNumberField("userId", conversation.getUserId());
+            generator.writeStringField("title", conversation.getTitle());
+            generator.writeObjectField("createdAt", conversation.getCreatedAt());
+            generator.writeObjectField("updatedAt", conversation.getUpdatedAt());
+            generator.writeArrayFieldStart("messages");
+        }
+
+        long count;
+        try {
+            count = readOnlyTransaction.execute(status -> streamMessages(conversation.getId(), format, generator));
+        } catch (UncheckedIOException e) {
+            // 클라이언트가 읽기를 멈추고 떠난 경우 — 커서와 트랜잭션은 정리됨
+            throw e.getCause();
+        }
+
+        if (format == Format.JSON) {
+            generator.writeEndArray();
+            generator.writeNumberField("messageCount", count);
+            generator.writeEndObject();
+            generator.writeNullField("error");
+            generator.writeEndObject();
+        }
+        generator.flush();
+        log.debug("Exported {} messages of conversation {}", count, conversation.getId());
+    }
+
+    private long streamMessages(Long conversationId, Format format, JsonGenerator generator) {
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_MESSAGES);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, conversationId);
+            return statement;
+        }, rs -> {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                generator.writeNumberField("conversationId", conversationId);
+                generator.writeStringField("role", rs.getString("role"));
+                generator.writeStringField("content", rs.getString("content"));
+                generator.writeBooleanField("truncated", rs.getBoolean("truncated"));
+                generator.writeObjectField("createdAt", rs.getObject("created_at", LocalDateTime.class));
+                generator.writeEndObject();
+                if (format == Format.NDJSON) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count[0]++;
+        });
+        exportedMessages.increment(count[0]);
+        return count[0];
+    }
+}
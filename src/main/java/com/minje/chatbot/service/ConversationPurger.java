@@ -0,0 +1,125 @@
+package com.minje.chatbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 삭제 표시된 대화의 백그라운드 정리
+ * - 삭제 요청은 대화에 deleted_at만 기록하고 바로 반환 (조회에서는 즉시 사라짐)
+ * - 정리 스레드가 메시지를 chunk-size건씩 짧은 트랜잭션(자동 커밋 DELETE 한 문장)으로 나누어 삭제해
+ *   큰 대화도 한 번에 잡는 행 잠금과 트랜잭션 길이가 제한됨
+ * - 마지막으로 대화 행을 삭제 — 그 사이 저장된 메시지와 요약은 DB의 ON DELETE CASCADE로 함께 삭제
+ * - 삭제 직후(커밋 후) 깨우고, 재시작 등으로 남은 대화는 interval-seconds마다 다시 확인
+ */
+@Component
+@Slf4j
+public class ConversationPurger implements AutoCloseable {
+
+    private static final int CONVERSATIONS_PER_SWEEP = 100;
+    private static final String SELECT_DELETED = "SELECT id FROM conversations WHERE deleted_at IS NOT NULL "
+            + "ORDER BY deleted_at LIMIT " + CONVERSATIONS_PER_SWEEP;
+    private static final String DELETE_MESSAGE_CHUNK = "DELETE FROM messages WHERE id IN "
+            + "(SELECT id FROM messages WHERE conversation_id = ? LIMIT ?)";
+    private static final String DELETE_CONVERSATION = "DELETE FROM conversations WHERE id = ? AND deleted_at IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final Counter purgedConversations;
+    private final Counter purgedMessages;
+    private final Timer chunkTimer;
+
+    public ConversationPurger(JdbcTemplate jdbcTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.purge.chunk-size:1000}") int chunkSize,
+                              @Value("${chat.purge.interval-seconds:30}") long intervalSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversation-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweep, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+
+        this.purgedConversations = Counter.builder("chat.purge.conversations").register(meterRegistry);
+        this.purgedMessages = Counter.builder("chat.purge.messages").register(meterRegistry);
+        this.chunkTimer = Timer.builder("chat.purge.chunk").register(meterRegistry);
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋된 뒤 정리 시작 (트랜잭션 밖이면 바로)
+     */
+    public void wakeAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wake();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wake();
+            }
+        });
+    }
+
+    /**
+     * 정리 예약 — 이미 예약되어 있으면 합침
+     */
+    public void wake() {
+        if (wakeScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                wakeScheduled.set(false);
+                sweep();
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            List<Long> deleted;
+            do {
+                deleted = jdbcTemplate.queryForList(SELECT_DELETED, Long.class);
+                deleted.forEach(this::purge);
+            } while (deleted.size() == CONVERSATIONS_PER_SWEEP && !Thread.currentThread().isInterrupted());
+        } catch (RuntimeException e) {
+            // 다음 주기에 남은 대화부터 다시 시도
+            log.warn("Conversation purge failed: {}", e.toString());
+        }
+    }
+
+    private void purge(Long conversationId) {
+        long messages = 0;
+        int deleted;
+        do {
+            long start = System.nanoTime();
+            deleted = jdbcTemplate.update(DELETE_MESSAGE_CHUNK, conversationId, chunkSize);
+            chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            messages += deleted;
+        } while (deleted == chunkSize);
+
+        jdbcTemplate.update(DELETE_CONVERSATION, conversationId);
+        purgedConversations.increment();
+        purgedMessages.increment(messages);
+        log.info("Purged conversation {} ({} messages)", conversationId, messages);
+    }
+}
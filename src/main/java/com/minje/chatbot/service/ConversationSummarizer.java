@@ -0,0 +1,217 @@
+package com.minje.chatbot.service;
+
+import com.minje.chatbot.entity.ConversationSummary;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.repository.ConversationSummaryRepository;
+import com.minje.chatbot.repository.MessageRepository;
+import com.minje.chatbot.upstream.UpstreamConcurrencyLimit;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 긴 대화의 오래된 메시지를 누적 요약 (compaction 모드, summarization.enabled)
+ * - 요약되지 않은 이력이 trigger-tokens를 넘으면 최근 keep-recent-messages건을 제외한 앞부분을 요약
+ * - 기존 요약 + 새 구간만 업스트림에 보내므로 매번 전체 대화를 다시 요약하지 않음 (증분)
+ * - 채팅 턴이 끝난 뒤 전용 스레드에서 실행되어 요청 지연에 영향을 주지 않음
+ * - 업스트림 호출은 채팅과 같은 동시 호출 한도 안에서 시스템 테넌트로 허가를 받고, 결과를 한도 조정에 반영
+ * - PromptAssembler는 요약을 시스템 프롬프트에 붙이고 요약 이후 메시지만 이력으로 사용
+ */
+@Service
+@Slf4j
+public class ConversationSummarizer {
+
+    static final String SUMMARY_INSTRUCTION = "너는 대화 요약기다. 주어진 기존 요약과 새 대화를 합쳐 하나의 요약으로 정리해라. "
+            + "사용자의 목표, 결정된 사항, 중요한 사실과 수치, 아직 해결되지 않은 질문을 빠짐없이 남기고 "
+            + "인사말이나 반복 설명은 생략해라. 요약문만 출력해라.";
+
+    private static final int QUEUE_CAPACITY = 100;
+    private static final String UPSTREAM_TENANT = "system:summarizer";
+
+    private final MessageRepository messageRepository;
+    private final ConversationSummaryRepository summaryRepository;
+    private final OpenAIService openAIService;
+    private final PromptAssembler promptAssembler;
+    private final TokenCounter tokenCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final UpstreamConcurrencyLimit upstreamConcurrencyLimit;
+    private final boolean enabled;
+    private final int triggerTokens;
+    private final int keepRecentMessages;
+    private final int maxSliceTokens;
+
+    // 같은 대화에 대한 요약 작업이 겹치지 않도록 실행 중인 대화 ID 보관
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+
+    public ConversationSummarizer(MessageRepository messageRepository,
+                                  ConversationSummaryRepository summaryRepository,
+                                  OpenAIService openAIService,
+                                  PromptAssembler promptAssembler,
+                                  TokenCounter tokenCounter,
+                                  TransactionTemplate transactionTemplate,
+                                  UpstreamConcurrencyLimit upstreamConcurrencyLimit,
+                                  @Value("${summarization.enabled:false}") boolean enabled,
+                                  @Value("${summarization.trigger-tokens:4000}") int triggerTokens,
+                                  @Value("${summarization.keep-recent-messages:6}") int keepRecentMessages,
+                                  @Value("${summarization.max-slice-tokens:6000}") int maxSliceTokens) {
+        this.messageRepository = messageRepository;
+        this.summaryRepository = summaryRepository;
+        this.openAIService = openAIService;
+        this.promptAssembler = promptAssembler;
+        this.tokenCounter = tokenCounter;
+        this.transactionTemplate = transactionTemplate;
+        this.upstreamConcurrencyLimit = upstreamConcurrencyLimit;
+        this.enabled = enabled;
+        this.triggerTokens = triggerTokens;
+        this.keepRecentMessages = keepRecentMessages;
+        this.maxSliceTokens = maxSliceTokens;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "conversation-summarizer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 채팅 턴 완료 후 호출. 요약이 필요한지 확인하고 요약하는 작업을 백그라운드에 등록
+     */
+    public void scheduleIfNeeded(Long conversationId) {
+        if (!enabled || !inFlight.add(conversationId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    // 밀린 구간이 max-slice-tokens보다 크면 여러 번에 나누어 요약
+                    while (summarizeNextSlice(conversationId)) {
+                        log.debug("Summarized slice of conversation {}", conversationId);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Conversation summarization failed: {}: {}", conversationId, e.getMessage());
+                } finally {
+                    inFlight.remove(conversationId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 큐가 가득 차면 이번 턴은 건너뛰고 다음 턴에 다시 시도
+            inFlight.remove(conversationId);
+        }
+    }
+
+    /**
+     * 요약되지 않은 구간 하나를 요약하여 저장. 요약할 구간이 없으면 false
+     */
+    public boolean summarizeNextSlice(Long conversationId) {
+        SummaryJob job = transactionTemplate.execute(status -> prepareJob(conversationId));
+        if (job == null) {
+            return false;
+        }
+
+        // 업스트림 호출은 트랜잭션 밖에서 (한도가 차 있으면 503 — 다음 턴에 다시 시도)
+        CompletionResult result;
+        try (UpstreamConcurrencyLimit.Permit permit = upstreamConcurrencyLimit.acquire(UPSTREAM_TENANT)) {
+            permit.markUpstreamStart();
+            try {
+                result = openAIService.complete(List.of(), job.transcript(), SUMMARY_INSTRUCTION);
+            } catch (RuntimeException e) {
+                permit.onFailure(e);
+                throw e;
+            }
+            if (!result.cached()) {
+                permit.onSuccess();
+            }
+        }
+        if (result.content() == null || result.content().isBlank()) {
+            return false;
+        }
+
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> saveSummary(conversationId, job, result.content())));
+    }
+
+    private SummaryJob prepareJob(Long conversationId) {
+        ConversationSummary summary = summaryRepository.findByConversationId(conversationId).orElse(null);
+        long summarizedUntil = summary != null ? summary.getSummarizedUntilMessageId() : 0L;
+
+        // 경계 이후 메시지 (created_at, id 순서)
+        List<Message> pending = summary == null
+                ? messageRepository.findByConversationIdAndRoleNotOrderByCreatedAtAscIdAsc(conversationId, Message.Role.SYSTEM)
+                : messageRepository.findUnsummarized(conversationId, Message.Role.SYSTEM,
+                        summary.getSummarizedUntilCreatedAt(), summarizedUntil);
+        int candidates = pending.size() - keepRecentMessages;
+        if (candidates <= 0) {
+            return null;
+        }
+        int pendingTokens = pending.stream().mapToInt(promptAssembler::tokensOf).sum();
+        if (pendingTokens < triggerTokens) {
+            return null;
+        }
+
+        StringBuilder transcript = new StringBuilder();
+        if (summary != null) {
+            transcript.append("[기존 요약]\n").append(summary.getContent()).append("\n\n");
+        }
+        transcript.append("[새 대화]\n");
+
+        Message sliceEnd = null;
+        int used = 0;
+        for (Message message : pending.subList(0, candidates)) {
+            int tokens = promptAssembler.tokensOf(message);
+            // 첫 메시지는 한도를 넘더라도 포함해야 진행됨
+            if (sliceEnd != null && used + tokens > maxSliceTokens) {
+                break;
+            }
+            transcript.append(message.getRole().getValue()).append(": ").append(message.getContent()).append('\n');
+            used += tokens;
+            sliceEnd = message;
+        }
+
+        return new SummaryJob(summarizedUntil, sliceEnd.getId(), sliceEnd.getCreatedAt(), transcript.toString());
+    }
+
+    private boolean saveSummary(Long conversationId, SummaryJob job, String content) {
+        ConversationSummary summary = summaryRepository.findByConversationId(conversationId)
+                .orElseGet(() -> ConversationSummary.builder().conversationId(conversationId).build());
+
+        // 그 사이 다른 노드가 먼저 요약을 갱신했다면 이번 결과는 버림
+        long current = summary.getSummarizedUntilMessageId() != null ? summary.getSummarizedUntilMessageId() : 0L;
+        if (current != job.summarizedFrom()) {
+            return false;
+        }
+
+        summary.setContent(content);
+        summary.setSummarizedUntilMessageId(job.summarizedUntil());
+        summary.setSummarizedUntilCreatedAt(job.summarizedUntilCreatedAt());
+        summary.setTokenCount(tokenCounter.countMessage(content));
+        summaryRepository.save(summary);
+        return true;
+    }
+
+    /**
+     * @param summarizedFrom  작업 준비 시점의 요약 경계 (이 값 이후 메시지부터 요약)
+     * @param summarizedUntil          이번 구간의 마지막 메시지 ID
+     * @param summarizedUntilCreatedAt 이번 구간의 마지막 메시지 created_at
+     */
+    private record SummaryJob(long summarizedFrom, long summarizedUntil, LocalDateTime summarizedUntilCreatedAt,
+                              String transcript) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.minje.chatbot.service;
+
+import com.minje.chatbot.exception.CustomException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 키셋 페이지네이션 커서 — (정렬 시각, id)를 base64url로 감싼 불투명 문자열
+ */
+record KeysetCursor(LocalDateTime timestamp, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    static String encode(LocalDateTime timestamp, Long id) {
+        String raw = timestamp + String.valueOf(SEPARATOR) + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return cursor가 없으면 null
+     */
+    static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new CustomException("BAD_REQUEST", "유효하지 않은 커서입니다.", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
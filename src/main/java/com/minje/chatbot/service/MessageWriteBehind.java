@@ -0,0 +1,299 @@
+package com.minje.chatbot.service;
+
+import com.minje.chatbot.cache.ConversationHistoryCache;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 스트리밍 응답(assistant 메시지)의 write-behind 저장
+ * - 스트림 종료 콜백은 큐에 넣고 바로 반환하며, 저장 스레드가 여러 스트림의 응답을 모아
+ *   JDBC 배치 INSERT(+ 제목 UPDATE) 한 트랜잭션으로 저장 (batch-size개 또는 flush-interval-ms마다)
+ * - INSERT는 Hibernate 배치로 보냄 — 메시지 ID를 다른 저장 경로와 같은 시퀀스 풀에서 할당받아
+ *   한 노드 안에서 대화의 메시지 ID 순서가 저장 순서와 같게 유지됨
+ * - 일시적 DB 오류는 지수 백오프로 max-attempts까지 재시도, 그래도 실패하거나 영구 오류면
+ *   한 건씩 나누어 저장해 문제 있는 행(삭제된 대화 등)만 버림
+ * - 큐(queue-capacity)가 가득 차면 enqueue-timeout-ms만큼 기다린 뒤 호출 스레드에서 직접 저장 (유실 없음)
+ * - 같은 대화의 다음 턴은 awaitPending으로 이전 응답이 저장된 뒤에 이력을 조회
+ * - 저장한 응답은 대기 중인 턴을 깨우기 전에 이력 캐시(ConversationHistoryCache)에 추가
+ */
+@Component
+@Slf4j
+public class MessageWriteBehind implements AutoCloseable {
+
+    private static final String SET_TITLE_IF_MISSING = "UPDATE conversations SET title = ?, updated_at = ? "
+            + "WHERE id = ? AND (title IS NULL OR title = '')";
+    private static final long AWAIT_PENDING_MS = 5000;
+
+    private final MessageRepository messageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConversationHistoryCache conversationHistoryCache;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long enqueueTimeoutMs;
+    private final Map<Long, CompletableFuture<Void>> lastWrites = new ConcurrentHashMap<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final Counter batches;
+    private final Counter messages;
+    private final DistributionSummary batchSizes;
+    private final Counter retries;
+    private final Counter dropped;
+    private final Counter overflow;
+
+    public MessageWriteBehind(MessageRepository messageRepository,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              ConversationHistoryCache conversationHistoryCache,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.persist.queue-capacity:10000}") int queueCapacity,
+                              @Value("${chat.persist.batch-size:100}") int batchSize,
+                              @Value("${chat.persist.flush-interval-ms:50}") long flushIntervalMs,
+                              @Value("${chat.persist.max-attempts:3}") int maxAttempts,
+                              @Value("${chat.persist.retry-backoff-ms:100}") long retryBackoffMs,
+                              @Value("${chat.persist.enqueue-timeout-ms:100}") long enqueueTimeoutMs) {
+        this.messageRepository = messageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.conversationHistoryCache = conversationHistoryCache;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMs = retryBackoffMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+
+        Gauge.builder("chat.persist.queue", queue, BlockingQueue::size).register(meterRegistry);
+        this.batches = Counter.builder("chat.persist.batches").register(meterRegistry);
+        this.messages = Counter.builder("chat.persist.messages").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("chat.persist.batch.size").register(meterRegistry);
+        this.retries = Counter.builder("chat.persist.retries").register(meterRegistry);
+        this.dropped = Counter.builder("chat.persist.dropped").register(meterRegistry);
+        this.overflow = Counter.builder("chat.persist.overflow").register(meterRegistry);
+
+        this.worker = new Thread(this::run, "message-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 저장할 assistant 응답
+     *
+     * @param createdAt 응답이 끝난 시각 (제목을 설정할 때 대화의 updated_at, 메시지 created_at은 저장 시각)
+     * @param title     대화 제목이 없을 때 설정할 제목 (null이면 제목 UPDATE 없음)
+     */
+    public record Reply(Long conversationId, String content, int tokenCount, boolean truncated,
+                        LocalDateTime createdAt, String title) {
+    }
+
+    /**
+     * @return 저장되면 완료 (끝내 저장하지 못하면 예외로 완료)
+     */
+    public CompletableFuture<Void> enqueue(Reply reply) {
+        Pending pending = new Pending(reply, new CompletableFuture<>());
+        CompletableFuture<Void> written = pending.written();
+        lastWrites.put(reply.conversationId(), written);
+        written.whenComplete((ignored, error) -> lastWrites.remove(reply.conversationId(), written));
+
+        boolean queued = false;
+        if (running) {
+            try {
+                queued = queue.offer(pending, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            // 큐가 가득 찼거나 종료 중 — 호출 스레드에서 바로 저장
+            overflow.increment();
+            write(List.of(pending));
+        }
+        return written;
+    }
+
+    /**
+     * 대화의 저장 대기 중인 응답이 저장될 때까지 대기 (다음 턴의 이력 조회 전)
+     */
+    public void awaitPending(Long conversationId) {
+        CompletableFuture<Void> pending = conversationId != null ? lastWrites.get(conversationId) : null;
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get(AWAIT_PENDING_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Pending reply for conversation {} not written: {}", conversationId, e.toString());
+        }
+    }
+
+    /**
+     * 큐에 남은 응답을 호출 스레드에서 모두 저장
+     */
+    public void flush() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * 저장 스레드를 멈추고 남은 응답을 저장
+     */
+    @Override
+    public void close() {
+        // 인터럽트하지 않음 — 재시도 대기 중인 배치도 끝까지 저장 (poll 주기 안에 루프 종료)
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                // flush-interval 동안 batch-size까지 모음
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Message writer failed", e);
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeBatch(batch);
+                batch.forEach(pending -> pending.written().complete(null));
+                return;
+            } catch (TransientDataAccessException | RecoverableDataAccessException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Batch of {} replies failed after {} attempts: {}", batch.size(), attempt, e.toString());
+                    break;
+                }
+                retries.increment();
+                if (!sleep(retryBackoffMs << (attempt - 1))) {
+                    break;
+                }
+            } catch (DataAccessException e) {
+                log.warn("Batch of {} replies rejected: {}", batch.size(), e.toString());
+                break;
+            }
+        }
+        if (batch.size() == 1) {
+            drop(batch.get(0), "write failed");
+            return;
+        }
+        // 문제 있는 행만 버리도록 한 건씩 저장
+        for (Pending pending : batch) {
+            write(List.of(pending));
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) {
+        // 재시도마다 새 엔티티 — 실패한 시도에서 할당된 ID를 재사용하지 않음
+        List<Message> rows = new ArrayList<>(batch.size());
+        Map<Long, Object[]> titles = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            Reply reply = pending.reply();
+            rows.add(Message.builder()
+                    .conversationId(reply.conversationId())
+                    .role(Message.Role.ASSISTANT)
+                    .content(reply.content())
+                    .tokenCount(reply.tokenCount())
+                    .truncated(reply.truncated())
+                    .build());
+            if (reply.title() != null) {
+                titles.putIfAbsent(reply.conversationId(),
+                        new Object[]{reply.title(), Timestamp.valueOf(reply.createdAt()), reply.conversationId()});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            // 트랜잭션 안에서 flush해 오류가 DataAccessException으로 변환되도록 함
+            messageRepository.saveAllAndFlush(rows);
+            if (!titles.isEmpty()) {
+                jdbcTemplate.batchUpdate(SET_TITLE_IF_MISSING, new ArrayList<>(titles.values()));
+            }
+        });
+        conversationHistoryCache.append(rows);
+        batches.increment();
+        messages.increment(batch.size());
+        batchSizes.record(batch.size());
+    }
+
+    private void drop(Pending pending, String reason) {
+        dropped.increment();
+        log.error("Dropping streamed reply for conversation {}: {}", pending.reply().conversationId(), reason);
+        pending.written().completeExceptionally(new IllegalStateException("Reply not persisted: " + reason));
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Pending(Reply reply, CompletableFuture<Void> written) {
+    }
+}
@@ -1,13 +1,22 @@
 package com.minje.chatbot.service;
 
+import com.minje.chatbot.cache.CompletionCache;
 import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.exception.UpstreamException;
+import com.minje.chatbot.upstream.ChatCompletionClient;
+import com.minje.chatbot.upstream.ChatCompletionStreamHandler;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.RequestFingerprint;
+import com.minje.chatbot.upstream.UpstreamRetrier;
+import com.theokanning.openai.Usage;
 import com.theokanning.openai.completion.chat.ChatCompletionChunk;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
 import com.theokanning.openai.completion.chat.ChatMessage;
 import com.theokanning.openai.completion.chat.ChatMessageRole;
-import com.theokanning.openai.service.OpenAiService;
-import io.reactivex.Flowable;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -15,23 +24,77 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @Slf4j
 public class OpenAIService {
 
-    private final OpenAiService openAiService;
+    // 캐시된 응답을 스트림으로 재생할 때 공백 뒤에서 나눔 (공백은 앞 조각에 포함)
+    private static final Pattern REPLAY_SPLIT = Pattern.compile("(?<=\\s)");
+
+    private final ChatCompletionClient client;
+    private final CompletionCache completionCache;
+    private final UpstreamRetrier retrier;
+    private final SseFrameWriter frameWriter;
+    private final CompletionSingleFlight singleFlight = new CompletionSingleFlight();
     private final String model;
     private final Integer maxTokens;
     private final Double temperature;
 
+    /**
+     * 기본 업스트림 설정(api.openai.com, 단일 timeout)으로 생성
+     */
     public OpenAIService(
             @Value("${openai.api-key}") String apiKey,
             @Value("${openai.model}") String model,
             @Value("${openai.max-tokens}") Integer maxTokens,
             @Value("${openai.temperature}") Double temperature,
             @Value("${openai.timeout}") Integer timeout) {
-        this.openAiService = new OpenAiService(apiKey, Duration.ofSeconds(timeout));
+        this(new OpenAIHttpClient(apiKey, OpenAIClientSettings.defaults(Duration.ofSeconds(timeout))),
+                model, maxTokens, temperature);
+    }
+
+    /**
+     * 응답 캐시 없이 생성
+     */
+    public OpenAIService(ChatCompletionClient client, String model, Integer maxTokens, Double temperature) {
+        this(client, null, model, maxTokens, temperature);
+    }
+
+    /**
+     * 재시도/헤징 없이 생성
+     */
+    public OpenAIService(ChatCompletionClient client, CompletionCache completionCache,
+                         String model, Integer maxTokens, Double temperature) {
+        this(client, completionCache, UpstreamRetrier.disabled(), model, maxTokens, temperature);
+    }
+
+    /**
+     * SSE 프레임을 모으지 않고 청크마다 전송
+     */
+    public OpenAIService(ChatCompletionClient client, CompletionCache completionCache, UpstreamRetrier retrier,
+                         String model, Integer maxTokens, Double temperature) {
+        this(client, completionCache, retrier, SseFrameWriter.passthrough(), model, maxTokens, temperature);
+    }
+
+    @Autowired
+    public OpenAIService(
+            ChatCompletionClient client,
+            CompletionCache completionCache,
+            UpstreamRetrier retrier,
+            SseFrameWriter frameWriter,
+            @Value("${openai.model}") String model,
+            @Value("${openai.max-tokens}") Integer maxTokens,
+            @Value("${openai.temperature}") Double temperature) {
+        this.client = client;
+        this.completionCache = completionCache;
+        this.retrier = retrier;
+        this.frameWriter = frameWriter;
         this.model = model;
         this.maxTokens = maxTokens;
         this.temperature = temperature;
@@ -41,89 +104,209 @@ public class OpenAIService {
      * 일반 채팅 완료 (동기)
      */
     public String createChatCompletion(List<Message> conversationHistory, String userMessage, String systemPrompt) {
-        try {
-            List<ChatMessage> messages = convertToChatMessages(conversationHistory, userMessage, systemPrompt);
+        return complete(conversationHistory, userMessage, systemPrompt).content();
+    }
 
-            ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(model)
-                    .messages(messages)
-                    .maxTokens(maxTokens)
-                    .temperature(temperature)
-                    .build();
+    /**
+     * 일반 채팅 완료 (동기) — 토큰 사용량 포함
+     */
+    public CompletionResult complete(List<Message> conversationHistory, String userMessage, String systemPrompt) {
+        return complete(conversationHistory, userMessage, systemPrompt, false);
+    }
 
-            String response = openAiService.createChatCompletion(request)
-                    .getChoices()
-                    .get(0)
-                    .getMessage()
-                    .getContent();
+    /**
+     * @param cacheRequested 요청의 cache 플래그 (temperature 0이면 플래그와 무관하게 캐시 사용)
+     */
+    public CompletionResult complete(List<Message> conversationHistory, String userMessage, String systemPrompt,
+                                     boolean cacheRequested) {
+        try {
+            return completeAsync(conversationHistory, userMessage, systemPrompt, cacheRequested).join();
+        } catch (CompletionException e) {
+            log.error("Error calling OpenAI API: ", e.getCause());
+            throw e.getCause() instanceof UpstreamException upstream
+                    ? upstream
+                    : UpstreamException.network(e.getCause());
+        }
+    }
+
+    /**
+     * 일반 채팅 완료 (비동기) — 응답을 기다리는 동안 호출 스레드를 점유하지 않음
+     * 실패 시 UpstreamException으로 완료된다.
+     */
+    public CompletableFuture<CompletionResult> completeAsync(List<Message> conversationHistory,
+                                                            String userMessage,
+                                                            String systemPrompt) {
+        return completeAsync(conversationHistory, userMessage, systemPrompt, false);
+    }
 
-            log.info("OpenAI response received: {} characters", response.length());
-            return response;
+    public CompletableFuture<CompletionResult> completeAsync(List<Message> conversationHistory,
+                                                            String userMessage,
+                                                            String systemPrompt,
+                                                            boolean cacheRequested) {
+        ChatCompletionRequest request = buildRequest(conversationHistory, userMessage, systemPrompt, false);
 
-        } catch (Exception e) {
-            log.error("Error calling OpenAI API: ", e);
-            throw new RuntimeException("AI 응답 생성에 실패했습니다. 잠시 후 다시 시도해주세요.");
+        String cacheKey = cacheKeyOf(request, cacheRequested);
+        if (cacheKey != null) {
+            CompletionResult cached = completionCache.get(cacheKey);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
         }
+
+        // 같은 요청이 진행 중이면 새로 호출하지 않고 그 결과를 공유
+        return singleFlight.complete(RequestFingerprint.of(request), () -> {
+            // 일시적 실패는 재시도, 헤징이 켜져 있으면 느린 응답에 대비해 한 번 더 요청
+            CompletableFuture<ChatCompletionResult> upstream = retrier.call(() -> client.createChatCompletion(request));
+            CompletableFuture<CompletionResult> mapped = upstream.thenApply(result -> {
+                String response = result.getChoices()
+                        .get(0)
+                        .getMessage()
+                        .getContent();
+
+                log.info("OpenAI response received: {} characters", response.length());
+                Usage usage = result.getUsage();
+                CompletionResult completion = usage != null
+                        ? new CompletionResult(response, usage.getPromptTokens(), usage.getCompletionTokens())
+                        : new CompletionResult(response, 0, 0);
+                if (cacheKey != null) {
+                    completionCache.put(cacheKey, completion);
+                }
+                return completion;
+            });
+            // thenApply 결과를 취소해도 원래 호출은 취소되지 않으므로 직접 전달
+            mapped.whenComplete((result, error) -> {
+                if (mapped.isCancelled()) {
+                    upstream.cancel(true);
+                }
+            });
+            return mapped;
+        });
     }
 
     /**
      * 스트리밍 채팅 완료
      */
-    public void createChatCompletionStream(List<Message> conversationHistory,
-                                           String userMessage,
-                                           String systemPrompt,
-                                           SseEmitter emitter) {
+    public StreamHandle createChatCompletionStream(List<Message> conversationHistory,
+                                                   String userMessage,
+                                                   String systemPrompt,
+                                                   SseEmitter emitter) {
+        return createChatCompletionStream(conversationHistory, userMessage, systemPrompt, emitter,
+                new StreamListener() { });
+    }
+
+    /**
+     * 스트리밍 채팅 완료 — 스트림 종료 시 listener에 응답/청크 수 전달
+     * 업스트림 청크는 OkHttp 디스패처 스레드에서 SSE로 전달되며, 이 메서드는 연결을 시작한 뒤 바로 반환한다.
+     *
+     * @return 클라이언트가 떠나면 cancel할 핸들
+     */
+    public StreamHandle createChatCompletionStream(List<Message> conversationHistory,
+                                                   String userMessage,
+                                                   String systemPrompt,
+                                                   SseEmitter emitter,
+                                                   StreamListener listener) {
+        return createChatCompletionStream(conversationHistory, userMessage, systemPrompt, emitter, listener, false);
+    }
+
+    /**
+     * @param cacheRequested 요청의 cache 플래그. 캐시 적중 시 저장된 응답을 같은 SSE 이벤트 형식으로 재생
+     */
+    public StreamHandle createChatCompletionStream(List<Message> conversationHistory,
+                                                   String userMessage,
+                                                   String systemPrompt,
+                                                   SseEmitter emitter,
+                                                   StreamListener listener,
+                                                   boolean cacheRequested) {
+        return createChatCompletionStream(conversationHistory, userMessage, systemPrompt, emitter, listener,
+                cacheRequested, null);
+    }
+
+    /**
+     * @param replayLog 이어받기용 재생 버퍼 — content 이벤트에 ID를 붙이고, 클라이언트가 떠나도 detach-grace 동안
+     *                  생성을 계속하며 버퍼에 쌓음 (null이면 떠나는 즉시 중단)
+     */
+    public StreamHandle createChatCompletionStream(List<Message> conversationHistory,
+                                                   String userMessage,
+                                                   String systemPrompt,
+                                                   SseEmitter emitter,
+                                                   StreamListener listener,
+                                                   boolean cacheRequested,
+                                                   StreamReplayBuffer.ReplayLog replayLog) {
         try {
-            List<ChatMessage> messages = convertToChatMessages(conversationHistory, userMessage, systemPrompt);
-
-            ChatCompletionRequest request = ChatCompletionRequest.builder()
-                    .model(model)
-                    .messages(messages)
-                    .maxTokens(maxTokens)
-                    .temperature(temperature)
-                    .stream(true)
-                    .build();
-
-            Flowable<ChatCompletionChunk> flowable = openAiService.streamChatCompletion(request);
-
-            StringBuilder fullResponse = new StringBuilder();
-
-            flowable.doOnNext(chunk -> {
-                        String content = chunk.getChoices().get(0).getMessage().getContent();
-                        if (content != null) {
-                            fullResponse.append(content);
-                            try {
-                                emitter.send(SseEmitter.event()
-                                        .name("content")
-                                        .data(content));
-                            } catch (IOException e) {
-                                log.error("Error sending SSE event: ", e);
-                                throw new RuntimeException(e);
-                            }
-                        }
-                    })
-                    .doOnComplete(() -> {
-                        try {
-                            emitter.send(SseEmitter.event()
-                                    .name("done")
-                                    .data("[DONE]"));
-                            emitter.complete();
-                            log.info("Streaming completed. Total length: {}", fullResponse.length());
-                        } catch (IOException e) {
-                            log.error("Error completing SSE: ", e);
-                            emitter.completeWithError(e);
-                        }
-                    })
-                    .doOnError(error -> {
-                        log.error("Error during streaming: ", error);
-                        emitter.completeWithError(error);
-                    })
-                    .subscribe();
+            ChatCompletionRequest request = buildRequest(conversationHistory, userMessage, systemPrompt, true);
+
+            String cacheKey = cacheKeyOf(request, cacheRequested);
+            if (cacheKey != null) {
+                CompletionResult cached = completionCache.get(cacheKey);
+                if (cached != null) {
+                    replay(cached.content(), emitter, listener, replayLog);
+                    return StreamHandle.NONE;
+                }
+            }
+
+            // 같은 요청의 스트림이 진행 중이면 합류하여 같은 청크를 받음 (첫 청크 전 실패만 재시도)
+            CompletionSingleFlight.Subscription subscription = singleFlight.stream(RequestFingerprint.of(request),
+                    joined -> new EmitterStreamHandler(emitter, listener, joined, cacheKey, replayLog),
+                    handler -> retrier.stream(handler, attempt -> client.streamChatCompletion(request, attempt)));
+            return ((EmitterStreamHandler) subscription.subscriber())::cancel;
 
         } catch (Exception e) {
             log.error("Error initializing OpenAI stream: ", e);
             emitter.completeWithError(e);
+            listener.onError(e, "", 0);
+            return StreamHandle.NONE;
+        }
+    }
+
+    /**
+     * 캐시된 응답을 업스트림 스트림과 같은 content/done 이벤트로 전송
+     */
+    private void replay(String content, SseEmitter emitter, StreamListener listener,
+                        StreamReplayBuffer.ReplayLog replayLog) {
+        SseFrameWriter.Stream out = frameWriter.open(emitter, replayLog);
+        StringBuilder sent = new StringBuilder();
+        try {
+            for (String piece : REPLAY_SPLIT.split(content)) {
+                out.write(piece);
+                sent.append(piece);
+            }
+        } catch (IOException e) {
+            log.error("Error replaying cached SSE: ", e);
+            out.completeWithError(e);
+            listener.onError(e, sent.toString(), 0);
+            return;
         }
+        out.complete();
+        log.info("Streaming replayed from cache. Total length: {}", content.length());
+        listener.onCacheHit(content);
+    }
+
+    /**
+     * 결정적 요청(temperature 0 또는 cache 플래그)이고 캐시가 켜져 있으면 캐시 키, 아니면 null
+     */
+    private String cacheKeyOf(ChatCompletionRequest request, boolean cacheRequested) {
+        if (completionCache == null || !completionCache.isEnabled()) {
+            return null;
+        }
+        boolean deterministic = temperature != null && temperature == 0.0;
+        return (deterministic || cacheRequested) ? completionCache.keyOf(request) : null;
+    }
+
+    public Integer getMaxTokens() {
+        return maxTokens;
+    }
+
+    private ChatCompletionRequest buildRequest(List<Message> conversationHistory,
+                                               String userMessage,
+                                               String systemPrompt,
+                                               boolean stream) {
+        return ChatCompletionRequest.builder()
+                .model(model)
+                .messages(convertToChatMessages(conversationHistory, userMessage, systemPrompt))
+                .maxTokens(maxTokens)
+                .temperature(temperature)
+                .stream(stream ? true : null)
+                .build();
     }
 
     /**
@@ -146,9 +329,131 @@ public class OpenAIService {
                 ))
                 .forEach(messages::add);
 
-        // 현재 사용자 메시지 추가
+        // 현재 사용자 메시지 추가 (이력에는 포함되지 않음 — PromptAssembler에서 제외)
         messages.add(new ChatMessage(ChatMessageRole.USER.value(), userMessage));
 
         return messages;
     }
-}
\ No newline at end of file
+
+    /**
+     * 호출자 하나의 SseEmitter로 청크를 전달하는 핸들러 (프레임 단위로 모아 전송)
+     * 동일 스트림에 합류한 호출자(leader=false)는 업스트림 토큰을 쓰지 않으므로 onCacheHit으로 종료를 알림
+     * 종료 콜백(완료/오류/취소)은 한 번만 호출된다.
+     */
+    private final class EmitterStreamHandler implements ChatCompletionStreamHandler {
+
+        private final SseEmitter emitter;
+        private final SseFrameWriter.Stream out;
+        private final StreamListener listener;
+        private final CompletionSingleFlight.Subscription subscription;
+        private final boolean leader;
+        private final String cacheKey;
+        private final StringBuilder fullResponse = new StringBuilder();
+        private final AtomicInteger chunkCount = new AtomicInteger();
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private volatile boolean disconnected;
+
+        EmitterStreamHandler(SseEmitter emitter, StreamListener listener,
+                             CompletionSingleFlight.Subscription subscription, String cacheKey,
+                             StreamReplayBuffer.ReplayLog replayLog) {
+            this.emitter = emitter;
+            this.out = frameWriter.open(emitter, replayLog);
+            this.out.onAbandoned(this::abandon);
+            this.listener = listener;
+            this.subscription = subscription;
+            this.leader = subscription.leader();
+            this.cacheKey = cacheKey;
+        }
+
+        @Override
+        public void onChunk(ChatCompletionChunk chunk) {
+            if (ended.get() || chunk.getChoices() == null || chunk.getChoices().isEmpty()
+                    || chunk.getChoices().get(0).getMessage() == null) {
+                return;
+            }
+            String content = chunk.getChoices().get(0).getMessage().getContent();
+            if (content != null) {
+                synchronized (fullResponse) {
+                    fullResponse.append(content);
+                }
+                if (chunkCount.incrementAndGet() == 1 && leader) {
+                    listener.onFirstChunk();
+                }
+                try {
+                    out.write(content);
+                } catch (IOException e) {
+                    // 클라이언트 연결 종료 — 구독에서 빠지며 onError로 돌아옴
+                    log.warn("SSE client gone: {}", e.getMessage());
+                    disconnected = true;
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!ended.compareAndSet(false, true)) {
+                return;
+            }
+            out.complete();
+            String content = response();
+            log.info("Streaming completed. Total length: {}", content.length());
+            if (!leader) {
+                listener.onCacheHit(content);
+                return;
+            }
+            if (cacheKey != null) {
+                completionCache.put(cacheKey, new CompletionResult(content, 0, chunkCount.get()));
+            }
+            listener.onComplete(content, chunkCount.get());
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (!ended.compareAndSet(false, true)) {
+                return;
+            }
+            if (disconnected) {
+                out.abort();
+                cancelled(subscription.upstreamCancelled());
+                return;
+            }
+            log.error("Error during streaming: ", error);
+            out.completeWithError(error);
+            listener.onError(error, response(), leader ? chunkCount.get() : 0);
+        }
+
+        /**
+         * 클라이언트가 떠남 (SseEmitter 완료/타임아웃/오류 콜백)
+         * 이어받을 수 있는 스트림이면 바로 중단하지 않고 분리해 두며, detach-grace가 지나면 abandon으로 중단
+         */
+        void cancel() {
+            if (ended.get() || out.detach(emitter)) {
+                return;
+            }
+            abandon();
+        }
+
+        private void abandon() {
+            if (!ended.compareAndSet(false, true)) {
+                return;
+            }
+            boolean upstreamCancelled = subscription.cancel();
+            out.abort();
+            cancelled(upstreamCancelled);
+        }
+
+        private void cancelled(boolean upstreamCancelled) {
+            int received = chunkCount.get();
+            log.info("Streaming cancelled by client after {} chunks (upstream cancelled: {})",
+                    received, upstreamCancelled);
+            listener.onCancelled(response(), leader ? received : 0, upstreamCancelled);
+        }
+
+        private String response() {
+            synchronized (fullResponse) {
+                return fullResponse.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.minje.chatbot.service;
+
+import com.minje.chatbot.entity.ConversationSummary;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.repository.ConversationSummaryRepository;
+import com.minje.chatbot.repository.MessageRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 토큰 예산 기반 프롬프트 조립
+ * - 시스템 프롬프트와 현재 사용자 메시지는 항상 포함
+ * - 남은 예산을 최신 메시지부터 과거 방향으로 채우며, 예산을 넘는 메시지를 만나면 중단 (연속성 유지)
+ * - 현재 턴 메시지는 이력에서 제외 (OpenAIService가 마지막에 별도로 추가)
+ * - 예산 = min(prompt.max-history-tokens, 모델 컨텍스트 윈도우 - maxTokens - 고정 토큰)
+ * - compaction 모드에서 대화 요약이 있으면 시스템 프롬프트 뒤에 붙이고, 요약 이후 메시지만 이력으로 사용
+ */
+@Component
+public class PromptAssembler {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int DEFAULT_CONTEXT_WINDOW = 4096;
+    private static final Map<String, Integer> CONTEXT_WINDOWS = Map.of(
+            "gpt-3.5-turbo", 16385,
+            "gpt-4", 8192,
+            "gpt-4-turbo", 128000,
+            "gpt-4o", 128000,
+            "gpt-4.1", 1047576
+    );
+
+    private final MessageRepository messageRepository;
+    private final ConversationSummaryRepository summaryRepository;
+    private final TokenCounter tokenCounter;
+    private final int contextWindow;
+    private final int maxTokens;
+    private final int maxHistoryTokens;
+    private final boolean summarizationEnabled;
+
+    public PromptAssembler(MessageRepository messageRepository,
+                           ConversationSummaryRepository summaryRepository,
+                           TokenCounter tokenCounter,
+                           @Value("${openai.model}") String model,
+                           @Value("${openai.max-tokens}") int maxTokens,
+                           @Value("${prompt.max-history-tokens:3000}") int maxHistoryTokens,
+                           @Value("${prompt.context-window:0}") int contextWindow,
+                           @Value("${summarization.enabled:false}") boolean summarizationEnabled) {
+        this.messageRepository = messageRepository;
+        this.summaryRepository = summaryRepository;
+        this.tokenCounter = tokenCounter;
+        this.contextWindow = contextWindow > 0 ? contextWindow : contextWindowOf(model);
+        this.maxTokens = maxTokens;
+        this.maxHistoryTokens = maxHistoryTokens;
+        this.summarizationEnabled = summarizationEnabled;
+    }
+
+    /**
+     * @param currentMessage 이번 턴에 저장된 사용자 메시지 (이력에서 제외)
+     */
+    public AssembledPrompt assemble(Long conversationId, Message currentMessage, String systemPrompt) {
+        return assemble(conversationId, currentMessage, systemPrompt, List.of(), false);
+    }
+
+    /**
+     * 캐시된 최근 이력으로 조립 — 예산이나 요약 경계에 닿기 전에 다 쓰면 DB에서 처음부터 다시 조회
+     *
+     * @param recent   최근 메시지 (시간순, SYSTEM 제외)
+     * @param complete recent가 대화의 모든 메시지인지 (true면 DB를 조회하지 않음)
+     */
+    public AssembledPrompt assemble(Long conversationId, Message currentMessage, String systemPrompt,
+                                    List<Message> recent, boolean complete) {
+        ConversationSummary summary = summarizationEnabled
+                ? summaryRepository.findByConversationId(conversationId).orElse(null)
+                : null;
+        String effectiveSystemPrompt = withSummary(systemPrompt, summary);
+
+        int fixedTokens = tokenCounter.countMessage(effectiveSystemPrompt) + tokensOf(currentMessage);
+        int budget = Math.max(0, Math.min(maxHistoryTokens, contextWindow - maxTokens - fixedTokens));
+
+        Selection selection = new Selection(currentMessage.getId(), summary, budget);
+        boolean done = selection.offer(recent.reversed());
+        if (!done && !complete) {
+            selection = new Selection(currentMessage.getId(), summary, budget);
+            int page = 0;
+            while (true) {
+                List<Message> messages = messageRepository.findByConversationIdAndRoleNotOrderByCreatedAtDescIdDesc(
+                        conversationId, Message.Role.SYSTEM, PageRequest.of(page++, PAGE_SIZE));
+                if (selection.offer(messages) || messages.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+
+        Collections.reverse(selection.selected);
+        return new AssembledPrompt(selection.selected, effectiveSystemPrompt, fixedTokens + selection.used);
+    }
+
+    /**
+     * 새 대화의 첫 턴 — 이력과 요약이 없으므로 DB를 조회하지 않음
+     */
+    public AssembledPrompt first(Message currentMessage, String systemPrompt) {
+        return new AssembledPrompt(List.of(), systemPrompt,
+                tokenCounter.countMessage(systemPrompt) + tokensOf(currentMessage));
+    }
+
+    /**
+     * 저장된 토큰 수가 없으면(기존 데이터) 즉시 계산
+     */
+    public int tokensOf(Message message) {
+        return message.getTokenCount() != null
+                ? message.getTokenCount()
+                : tokenCounter.countMessage(message.getContent());
+    }
+
+    private static String withSummary(String systemPrompt, ConversationSummary summary) {
+        if (summary == null) {
+            return systemPrompt;
+        }
+        String summaryBlock = "지금까지의 대화 요약:\n" + summary.getContent();
+        return (systemPrompt == null || systemPrompt.isBlank())
+                ? summaryBlock
+                : systemPrompt + "\n\n" + summaryBlock;
+    }
+
+    private static int contextWindowOf(String model) {
+        // 가장 긴 접두사 일치 (gpt-4o-mini → gpt-4o)
+        String matched = null;
+        for (String prefix : CONTEXT_WINDOWS.keySet()) {
+            if (model.startsWith(prefix) && (matched == null || prefix.length() > matched.length())) {
+                matched = prefix;
+            }
+        }
+        return matched != null ? CONTEXT_WINDOWS.get(matched) : DEFAULT_CONTEXT_WINDOW;
+    }
+
+    /**
+     * 최신 메시지부터 예산 안에서 선택
+     */
+    private final class Selection {
+
+        private final Long currentMessageId;
+        private final ConversationSummary summary;
+        private final int budget;
+        private final List<Message> selected = new ArrayList<>();
+        private int used;
+
+        private Selection(Long currentMessageId, ConversationSummary summary, int budget) {
+            this.currentMessageId = currentMessageId;
+            this.summary = summary;
+            this.budget = budget;
+        }
+
+        /**
+         * @param newestFirst 최신순 메시지
+         * @return 예산 초과나 요약 경계로 선택이 끝났으면 true
+         */
+        private boolean offer(List<Message> newestFirst) {
+            for (Message message : newestFirst) {
+                if (message.getId().equals(currentMessageId)) {
+                    continue;
+                }
+                // 요약에 이미 반영된 구간 ((created_at, id) 순서)
+                if (summary != null && summary.covers(message)) {
+                    return true;
+                }
+                int tokens = tokensOf(message);
+                if (used + tokens > budget) {
+                    return true;
+                }
+                selected.add(message);
+                used += tokens;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @param history      프롬프트에 포함할 이전 메시지 (시간순, 현재 턴 제외)
+     * @param systemPrompt 요약이 있으면 요약을 붙인 시스템 프롬프트
+     * @param promptTokens 시스템 프롬프트 + 이력 + 현재 메시지의 토큰 수
+     */
+    public record AssembledPrompt(List<Message> history, String systemPrompt, int promptTokens) {
+    }
+}
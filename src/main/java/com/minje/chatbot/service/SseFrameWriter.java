@@ -0,0 +1,506 @@
+package com.minje.chatbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스트리밍 응답의 SSE 프레임 전송
+ * - 업스트림 청크(대부분 토큰 하나)마다 emitter.send(= write + flush)하지 않고,
+ *   flush-interval-ms 동안 또는 flush-bytes가 찰 때까지 모아 content 이벤트 하나로 전송
+ * - 전송은 스트림별로 한 번에 하나씩 가상 스레드에서 수행 — 느린 클라이언트가 업스트림 수신 스레드
+ *   (및 같은 스트림에 합류한 다른 호출자)를 막지 않음
+ * - 전송이 밀리는 동안 도착한 토큰은 다음 프레임에 합쳐짐 (느린 클라이언트일수록 프레임이 커지고 드물어짐)
+ * - 보내지 못한 토큰이 max-buffered-bytes를 넘으면 그 스트림을 종료하고 write에서 SlowConsumerException
+ * - chat.stream.flush-interval-ms=0, flush-bytes=0이면 모으지 않고 호출 스레드에서 바로 전송 (기존 동작)
+ * - 재생 버퍼(StreamReplayBuffer)와 함께 열면 프레임마다 마지막 조각의 이벤트 ID를 붙이고, 클라이언트가 떠나도
+ *   스트림을 끝내지 않고 분리(detach)해 두었다가 resume으로 새 emitter에 이어서 전송 (프레임 전송 모드에서만)
+ */
+@Component
+@Slf4j
+public class SseFrameWriter implements AutoCloseable {
+
+    private final long flushIntervalNanos;
+    private final int flushBytes;
+    private final int maxBufferedBytes;
+    private final boolean passthrough;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService sender;
+    private final Counter frames;
+    private final DistributionSummary frameBytes;
+    private final Counter slowConsumers;
+
+    @Autowired
+    public SseFrameWriter(MeterRegistry meterRegistry,
+                          @Value("${chat.stream.flush-interval-ms:20}") long flushIntervalMs,
+                          @Value("${chat.stream.flush-bytes:256}") int flushBytes,
+                          @Value("${chat.stream.max-buffered-bytes:65536}") int maxBufferedBytes) {
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.flushBytes = flushBytes;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.passthrough = flushIntervalMs <= 0 && flushBytes <= 0;
+        // 스레드는 첫 예약 작업 때 생성됨 (passthrough면 스레드를 만들지 않음)
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-send-", 0).factory());
+        this.frames = Counter.builder("sse.frames").register(meterRegistry);
+        this.frameBytes = DistributionSummary.builder("sse.frame.bytes").baseUnit("bytes").register(meterRegistry);
+        this.slowConsumers = Counter.builder("sse.slow_consumers.terminated").register(meterRegistry);
+    }
+
+    /**
+     * 청크마다 호출 스레드에서 바로 전송 (모으지 않음)
+     */
+    public static SseFrameWriter passthrough() {
+        return new SseFrameWriter(new SimpleMeterRegistry(), 0, 0, Integer.MAX_VALUE);
+    }
+
+    public Stream open(SseEmitter emitter) {
+        return new Stream(emitter, null);
+    }
+
+    /**
+     * @param replayLog 이어받기용 재생 버퍼 (null이거나 passthrough면 이어받기 없음)
+     */
+    public Stream open(SseEmitter emitter, StreamReplayBuffer.ReplayLog replayLog) {
+        Stream stream = new Stream(emitter, passthrough ? null : replayLog);
+        if (stream.replayLog != null) {
+            replayLog.attach(stream);
+        }
+        return stream;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        sender.shutdown();
+    }
+
+    /**
+     * 보내지 못한 토큰이 max-buffered-bytes를 넘어 종료된 스트림
+     */
+    public static class SlowConsumerException extends IOException {
+
+        public SlowConsumerException(int bufferedBytes) {
+            super("SSE client too slow: " + bufferedBytes + " bytes buffered");
+        }
+    }
+
+    /**
+     * 스트림 하나의 전송 상태 (this 잠금으로 보호, emitter 호출은 잠금 밖에서 한 번에 하나씩)
+     * - 재생 버퍼가 있으면 emitter는 detach/resume으로 바뀔 수 있고, 바뀔 때마다 generation이 증가
+     *   (이전 연결로 전송 중이던 drain은 generation이 다르면 손을 뗌)
+     */
+    public final class Stream {
+
+        private final StreamReplayBuffer.ReplayLog replayLog;
+        private SseEmitter emitter;
+        private final StringBuilder pending = new StringBuilder();
+        private int pendingBytes;
+        private long pendingLastId;
+        private boolean sending;
+        private boolean closed;
+        private Throwable closeError;
+        private IOException failure;
+        private ScheduledFuture<?> timer;
+        private boolean detached;
+        private boolean delivered;
+        private int generation;
+        private ScheduledFuture<?> detachTimer;
+        private Runnable onAbandoned;
+
+        private Stream(SseEmitter emitter, StreamReplayBuffer.ReplayLog replayLog) {
+            this.emitter = emitter;
+            this.replayLog = replayLog;
+        }
+
+        /**
+         * 분리된 뒤 detach-grace 안에 이어받지 않았을 때 호출할 작업 (업스트림 중단)
+         */
+        public synchronized void onAbandoned(Runnable callback) {
+            this.onAbandoned = callback;
+        }
+
+        /**
+         * @throws IOException 클라이언트 연결이 끊겼거나(이전 전송 실패) 너무 느려 스트림이 종료됨
+         */
+        public void write(String content) throws IOException {
+            if (passthrough) {
+                sendContent(content, content.getBytes(StandardCharsets.UTF_8).length);
+                return;
+            }
+            boolean flushNow = false;
+            SlowConsumerException slow = null;
+            synchronized (this) {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (closed) {
+                    return;
+                }
+                long eventId = replayLog != null ? replayLog.append(content) : 0;
+                if (detached) {
+                    // 클라이언트가 없는 동안은 재생 버퍼에만 쌓음
+                    return;
+                }
+                pending.append(content);
+                pendingBytes += content.getBytes(StandardCharsets.UTF_8).length;
+                pendingLastId = eventId;
+                if (pendingBytes > maxBufferedBytes) {
+                    slow = new SlowConsumerException(pendingBytes);
+                    failure = slow;
+                    slowConsumers.increment();
+                    log.warn("Terminating slow SSE consumer: {} bytes buffered", pendingBytes);
+                    pending.setLength(0);
+                    pendingBytes = 0;
+                    closed = true;
+                    closeError = failure;
+                    cancelTimer();
+                    flushNow = !sending;
+                    sending = true;
+                } else if (sending) {
+                    // 진행 중인 전송이 끝나면 이어서 보냄
+                    return;
+                } else if (pendingBytes >= flushBytes) {
+                    cancelTimer();
+                    sending = true;
+                    flushNow = true;
+                } else if (timer == null) {
+                    timer = scheduler.schedule(this::onTimer, flushIntervalNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            if (flushNow) {
+                sender.execute(this::drain);
+            }
+            if (slow != null) {
+                if (replayLog != null) {
+                    replayLog.buffer().discard(replayLog);
+                }
+                throw slow;
+            }
+        }
+
+        /**
+         * 남은 토큰을 보낸 뒤 done 이벤트와 함께 종료
+         */
+        public void complete() {
+            close(null);
+        }
+
+        /**
+         * 남은 토큰을 보낸 뒤 오류로 종료
+         */
+        public void completeWithError(Throwable error) {
+            close(error);
+        }
+
+        /**
+         * 클라이언트가 이미 떠난 스트림 — 남은 토큰을 버리고 emitter에는 더 쓰지 않음
+         */
+        public void abort() {
+            synchronized (this) {
+                closed = true;
+                failure = new IOException("SSE client disconnected");
+                pending.setLength(0);
+                pendingBytes = 0;
+                cancelTimer();
+                cancelDetachTimer();
+                // 전송 중인 작업은 다음 조각이 없으므로 그대로 끝남
+                sending = true;
+            }
+            if (replayLog != null) {
+                replayLog.buffer().discard(replayLog);
+            }
+        }
+
+        /**
+         * 클라이언트 연결이 끊김 — 재생 버퍼가 있으면 스트림을 끝내지 않고 분리한 뒤 detach-grace 동안 이어받기를 기다림
+         *
+         * @param which 끊긴 연결 (이미 다른 연결로 이어받았으면 무시)
+         * @return 분리했거나 처리할 필요가 없으면 true, 이어받을 수 없는 스트림이면 false (바로 중단해야 함)
+         */
+        public boolean detach(SseEmitter which) {
+            if (replayLog == null) {
+                return false;
+            }
+            synchronized (this) {
+                if (emitter != which || detached || delivered) {
+                    return true;
+                }
+                if (failure != null) {
+                    return false;
+                }
+                detached = true;
+                generation++;
+                sending = false;
+                pending.setLength(0);
+                pendingBytes = 0;
+                cancelTimer();
+                if (!closed) {
+                    StreamReplayBuffer buffer = replayLog.buffer();
+                    detachTimer = buffer.schedule(this::abandon, buffer.detachGrace());
+                }
+            }
+            log.info("SSE client detached from stream {}", replayLog.id());
+            return true;
+        }
+
+        /**
+         * 새 연결로 이어받음 — lastEventId 이후 조각을 재생한 뒤 이어서 실시간 전송
+         * 아직 연결된 이전 emitter가 있으면 종료시킴 (같은 스트림의 전송 대상은 하나)
+         *
+         * @return 스트림이 중단되었거나 lastEventId 이후 구간을 이미 버려 이어받을 수 없으면 false
+         */
+        public boolean resume(SseEmitter target, long lastEventId) {
+            if (replayLog == null) {
+                return false;
+            }
+            SseEmitter previous = null;
+            synchronized (this) {
+                if (failure != null) {
+                    return false;
+                }
+                List<StreamReplayBuffer.Event> missed = replayLog.since(lastEventId);
+                if (missed == null) {
+                    return false;
+                }
+                if (!detached && !delivered) {
+                    previous = emitter;
+                }
+                cancelDetachTimer();
+                cancelTimer();
+                detached = false;
+                delivered = false;
+                emitter = target;
+                generation++;
+                pending.setLength(0);
+                pendingBytes = 0;
+                pendingLastId = lastEventId;
+                for (StreamReplayBuffer.Event event : missed) {
+                    pending.append(event.data());
+                    pendingBytes += event.data().getBytes(StandardCharsets.UTF_8).length;
+                    pendingLastId = event.id();
+                }
+                sending = true;
+            }
+            replayLog.buffer().onResumed();
+            log.info("SSE stream {} resumed after event {}", replayLog.id(), lastEventId);
+            if (previous != null) {
+                previous.complete();
+            }
+            sender.execute(this::drain);
+            return true;
+        }
+
+        private void abandon() {
+            Runnable callback;
+            synchronized (this) {
+                detachTimer = null;
+                if (!detached || closed) {
+                    // 이미 이어받았거나 끝난 스트림 — 버퍼는 만료 시각까지 남겨 둠
+                    return;
+                }
+                failure = new IOException("SSE client did not resume");
+                closed = true;
+                callback = onAbandoned;
+            }
+            log.info("SSE stream {} abandoned: client did not resume within {}",
+                    replayLog.id(), replayLog.buffer().detachGrace());
+            if (callback != null) {
+                callback.run();
+            }
+            replayLog.buffer().discard(replayLog);
+        }
+
+        private void close(Throwable error) {
+            if (passthrough) {
+                finish(error);
+                return;
+            }
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                closeError = error;
+                cancelTimer();
+                if (replayLog != null) {
+                    replayLog.finish();
+                }
+                if (detached) {
+                    // 분리된 동안 끝난 스트림 — 버퍼가 만료되기 전에 이어받으면 남은 조각과 done을 보냄
+                    cancelDetachTimer();
+                    return;
+                }
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        private void onTimer() {
+            synchronized (this) {
+                timer = null;
+                if (sending || detached || pending.isEmpty()) {
+                    return;
+                }
+                sending = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                String frame;
+                int bytes;
+                long eventId;
+                SseEmitter target;
+                int attachment;
+                synchronized (this) {
+                    frame = pending.toString();
+                    bytes = pendingBytes;
+                    eventId = pendingLastId;
+                    target = emitter;
+                    attachment = generation;
+                    pending.setLength(0);
+                    pendingBytes = 0;
+                }
+                try {
+                    if (!frame.isEmpty()) {
+                        sendContent(target, frame, bytes, eventId);
+                    }
+                } catch (IOException e) {
+                    if (detach(target)) {
+                        return;
+                    }
+                    synchronized (this) {
+                        failure = e;
+                        closed = true;
+                        pending.setLength(0);
+                        pendingBytes = 0;
+                    }
+                    target.completeWithError(e);
+                    return;
+                }
+                Throwable error;
+                synchronized (this) {
+                    if (generation != attachment) {
+                        // 전송 중에 분리되었거나 다른 연결로 이어받음 — 새 연결의 drain이 이어서 보냄
+                        return;
+                    }
+                    if (failure != null && !(failure instanceof SlowConsumerException)) {
+                        // 전송 중에 abort됨
+                        return;
+                    }
+                    if (!pending.isEmpty() && (closed || pendingBytes >= flushBytes)) {
+                        // 전송 중에 쌓인 조각이 임계값을 넘었거나 종료가 요청됨 — 바로 이어서 보냄
+                        continue;
+                    }
+                    if (!closed) {
+                        sending = false;
+                        // 전송 중에 쌓인 작은 조각은 다음 주기에 모아서 보냄
+                        if (!pending.isEmpty() && timer == null) {
+                            timer = scheduler.schedule(this::onTimer, flushIntervalNanos, TimeUnit.NANOSECONDS);
+                        }
+                        return;
+                    }
+                    error = closeError;
+                }
+                finish(target, error);
+                return;
+            }
+        }
+
+        private void finish(Throwable error) {
+            SseEmitter target;
+            synchronized (this) {
+                target = emitter;
+            }
+            finish(target, error);
+        }
+
+        private void finish(SseEmitter target, Throwable error) {
+            if (error != null) {
+                markDelivered();
+                target.completeWithError(error);
+                return;
+            }
+            try {
+                SseEmitter.SseEventBuilder done = SseEmitter.event();
+                if (replayLog != null) {
+                    done.id(String.valueOf(replayLog.lastId()));
+                }
+                target.send(done
+                        .name("done")
+                        .data("[DONE]"));
+                markDelivered();
+                target.complete();
+            } catch (IOException | IllegalStateException e) {
+                if (replayLog != null && detach(target)) {
+                    return;
+                }
+                log.error("Error completing SSE: ", e);
+                target.completeWithError(e);
+            }
+        }
+
+        private synchronized void markDelivered() {
+            delivered = true;
+        }
+
+        private void sendContent(String content, int bytes) throws IOException {
+            sendContent(emitter, content, bytes, 0);
+        }
+
+        private void sendContent(SseEmitter target, String content, int bytes, long eventId) throws IOException {
+            try {
+                SseEmitter.SseEventBuilder event = SseEmitter.event();
+                if (replayLog != null) {
+                    event.id(String.valueOf(eventId));
+                }
+                target.send(event
+                        .name("content")
+                        .data(content));
+            } catch (IllegalStateException e) {
+                // 이미 종료된 emitter (타임아웃 등)
+                throw new IOException(e);
+            }
+            frames.increment();
+            frameBytes.record(bytes);
+        }
+
+        private void cancelTimer() {
+            if (timer != null) {
+                timer.cancel(false);
+                timer = null;
+            }
+        }
+
+        private void cancelDetachTimer() {
+            if (detachTimer != null) {
+                detachTimer.cancel(false);
+                detachTimer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.minje.chatbot.service;
+
+/**
+ * 시작된 스트리밍 응답 하나. 클라이언트가 떠나면(연결 종료, 타임아웃) cancel
+ */
+@FunctionalInterface
+public interface StreamHandle {
+
+    /**
+     * 이미 끝났거나 업스트림을 호출하지 않은 스트림
+     */
+    StreamHandle NONE = () -> { };
+
+    /**
+     * 이 호출자의 스트림을 중단하고 StreamListener.onCancelled를 호출한다.
+     * 같은 스트림에 합류한 다른 호출자가 없으면 업스트림 HTTP 호출도 중단한다. 이미 끝난 스트림이면 아무것도 하지 않음
+     */
+    void cancel();
+}
@@ -0,0 +1,51 @@
+package com.minje.chatbot.service;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 스트리밍 응답 종료 콜백 (업스트림 스트림 스레드에서 호출됨)
+ */
+public interface StreamListener {
+
+    /**
+     * 스트림 정상 종료
+     *
+     * @param content          전체 응답
+     * @param completionTokens 수신한 청크 수 (청크 ≒ 토큰)
+     */
+    default void onComplete(String content, int completionTokens) {
+    }
+
+    /**
+     * 업스트림에서 첫 청크 수신 (업스트림을 직접 호출한 스트림만, 응답 지연 측정용)
+     */
+    default void onFirstChunk() {
+    }
+
+    /**
+     * 스트림 오류 종료
+     *
+     * @param partialContent   오류 전까지 수신한 응답
+     * @param completionTokens 오류 전까지 수신한 청크 수
+     */
+    default void onError(Throwable error, String partialContent, int completionTokens) {
+    }
+
+    /**
+     * 클라이언트가 떠나(연결 종료, 타임아웃) 스트림 중단 — 기본은 onError와 같게 처리
+     *
+     * @param partialContent    중단 전까지 수신한 응답
+     * @param completionTokens  중단 전까지 수신한 청크 수
+     * @param upstreamCancelled 업스트림 호출까지 중단했는지 (같은 스트림에 합류한 다른 호출자가 남아 있으면 false)
+     */
+    default void onCancelled(String partialContent, int completionTokens, boolean upstreamCancelled) {
+        onError(new CancellationException("Client disconnected"), partialContent, completionTokens);
+    }
+
+    /**
+     * 응답 캐시 재생 또는 진행 중인 동일 스트림 합류로 정상 종료 (이 요청 몫의 업스트림 토큰 사용 없음)
+     */
+    default void onCacheHit(String content) {
+        onComplete(content, 0);
+    }
+}
@@ -0,0 +1,305 @@
+package com.minje.chatbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 끊긴 SSE 스트림을 이어받기 위한 노드별 재생 버퍼 (Last-Event-ID)
+ * - 스트림마다 content 조각에 1부터 증가하는 이벤트 ID를 붙여 링 버퍼(max-bytes-per-stream)에 보관
+ * - 클라이언트가 떠나도 detach-grace 동안은 업스트림 생성을 계속하며 버퍼에 쌓고,
+ *   그 안에 재연결하면 Last-Event-ID 이후 조각을 재생한 뒤 이어서 실시간 전송. 아니면 업스트림 중단
+ * - 끝난 스트림의 버퍼는 grace-seconds 뒤 만료. 전체 버퍼 크기는 max-total-bytes 이하
+ *   (넘으면 끝난 스트림부터 비우고, 그래도 넘으면 진행 중인 스트림의 오래된 조각을 버림 — 그 구간은 이어받을 수 없음)
+ * - 노드 로컬 버퍼이므로 여러 노드로 배포하면 스트림 ID 기준 고정 라우팅(sticky)이 필요
+ */
+@Component
+public class StreamReplayBuffer implements AutoCloseable {
+
+    private static final long SWEEP_INTERVAL_SECONDS = 5;
+
+    private final boolean enabled;
+    private final long maxBytesPerStream;
+    private final long maxTotalBytes;
+    private final Duration completedTtl;
+    private final Duration detachGrace;
+    private final Map<String, ReplayLog> logs = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+    private final Counter resumed;
+    private final Counter evicted;
+
+    public StreamReplayBuffer(MeterRegistry meterRegistry,
+                              @Value("${chat.stream.resume.enabled:true}") boolean enabled,
+                              @Value("${chat.stream.resume.max-bytes-per-stream:262144}") long maxBytesPerStream,
+                              @Value("${chat.stream.resume.max-total-bytes:67108864}") long maxTotalBytes,
+                              @Value("${chat.stream.resume.grace-seconds:60}") long graceSeconds,
+                              @Value("${chat.stream.resume.detach-grace-seconds:30}") long detachGraceSeconds) {
+        this.enabled = enabled;
+        this.maxBytesPerStream = maxBytesPerStream;
+        this.maxTotalBytes = maxTotalBytes;
+        this.completedTtl = Duration.ofSeconds(graceSeconds);
+        this.detachGrace = Duration.ofSeconds(detachGraceSeconds);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stream-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS,
+                    TimeUnit.SECONDS);
+        }
+
+        Gauge.builder("stream.replay.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("stream.replay.streams", logs, Map::size).register(meterRegistry);
+        this.resumed = Counter.builder("stream.resumed").register(meterRegistry);
+        this.evicted = Counter.builder("stream.replay.evicted").register(meterRegistry);
+    }
+
+    /**
+     * 새 스트림의 재생 버퍼. 꺼져 있으면 null (이어받기 없이 기존처럼 동작)
+     *
+     * @param ownerId 이어받을 수 있는 사용자
+     */
+    public ReplayLog open(Long ownerId) {
+        if (!enabled) {
+            return null;
+        }
+        ReplayLog log = new ReplayLog(UUID.randomUUID().toString(), ownerId);
+        logs.put(log.id, log);
+        return log;
+    }
+
+    /**
+     * @return 만료되었거나 다른 사용자의 스트림이면 null
+     */
+    public ReplayLog find(String streamId, Long ownerId) {
+        ReplayLog log = streamId != null ? logs.get(streamId) : null;
+        if (log == null || !Objects.equals(log.ownerId, ownerId) || log.isExpired(System.nanoTime())) {
+            return null;
+        }
+        return log;
+    }
+
+    Duration detachGrace() {
+        return detachGrace;
+    }
+
+    ScheduledFuture<?> schedule(Runnable task, Duration delay) {
+        return scheduler.schedule(task, delay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    void onResumed() {
+        resumed.increment();
+    }
+
+    /**
+     * 더 이상 이어받을 수 없는 스트림 (업스트림 중단 등) — 버퍼를 바로 비움
+     */
+    void discard(ReplayLog log) {
+        if (logs.remove(log.id, log)) {
+            totalBytes.addAndGet(-log.clear());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        long now = System.nanoTime();
+        for (ReplayLog log : logs.values()) {
+            if (log.isExpired(now)) {
+                discard(log);
+            }
+        }
+    }
+
+    // 전체 상한을 넘으면 끝난 스트림부터(오래된 순) 비움. 그래도 넘으면 appending 스트림의 오래된 조각을 버림
+    private void enforceTotalCap(ReplayLog appending) {
+        if (totalBytes.get() <= maxTotalBytes) {
+            return;
+        }
+        List<ReplayLog> finished = new ArrayList<>();
+        for (ReplayLog log : logs.values()) {
+            if (log != appending && log.isFinished()) {
+                finished.add(log);
+            }
+        }
+        finished.sort(Comparator.comparingLong(ReplayLog::finishedAt));
+        for (ReplayLog log : finished) {
+            if (totalBytes.get() <= maxTotalBytes) {
+                return;
+            }
+            discard(log);
+            evicted.increment();
+        }
+        if (totalBytes.get() > maxTotalBytes) {
+            totalBytes.addAndGet(-appending.trimTo(Math.max(0, maxTotalBytes - (totalBytes.get() - appending.bytes()))));
+        }
+    }
+
+    /**
+     * 재생할 content 조각 하나
+     */
+    public record Event(long id, String data) {
+    }
+
+    /**
+     * 스트림 하나의 재생 버퍼 (this 잠금으로 보호)
+     */
+    public final class ReplayLog {
+
+        private final String id;
+        private final Long ownerId;
+        private final long openedAt = System.nanoTime();
+        private final Deque<Event> events = new ArrayDeque<>();
+        private final Deque<Integer> sizes = new ArrayDeque<>();
+        private long lastId;
+        private long bytes;
+        private long finishedAt;
+        private boolean finished;
+        private SseFrameWriter.Stream stream;
+
+        private ReplayLog(String id, Long ownerId) {
+            this.id = id;
+            this.ownerId = ownerId;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        StreamReplayBuffer buffer() {
+            return StreamReplayBuffer.this;
+        }
+
+        /**
+         * 이 버퍼에 쌓고 있는 전송 스트림 (이어받을 때 새 emitter를 붙임)
+         */
+        public synchronized SseFrameWriter.Stream stream() {
+            return stream;
+        }
+
+        synchronized void attach(SseFrameWriter.Stream stream) {
+            this.stream = stream;
+        }
+
+        /**
+         * @return 조각의 이벤트 ID
+         */
+        long append(String data) {
+            int size = data.getBytes(StandardCharsets.UTF_8).length;
+            long eventId;
+            long freed = 0;
+            synchronized (this) {
+                eventId = ++lastId;
+                events.addLast(new Event(eventId, data));
+                sizes.addLast(size);
+                bytes += size;
+                while (bytes > maxBytesPerStream && !events.isEmpty()) {
+                    freed += dropOldest();
+                }
+            }
+            totalBytes.addAndGet(size - freed);
+            enforceTotalCap(this);
+            return eventId;
+        }
+
+        /**
+         * @return lastEventId 이후의 조각. 이미 버린 구간이 포함되면 null (이어받을 수 없음)
+         */
+        synchronized List<Event> since(long lastEventId) {
+            long firstRetained = events.isEmpty() ? lastId + 1 : events.peekFirst().id();
+            if (lastEventId < firstRetained - 1 || lastEventId > lastId) {
+                return null;
+            }
+            List<Event> missed = new ArrayList<>();
+            for (Event event : events) {
+                if (event.id() > lastEventId) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+
+        synchronized long lastId() {
+            return lastId;
+        }
+
+        /**
+         * 스트림 종료 — grace-seconds 뒤 만료
+         */
+        synchronized void finish() {
+            if (!finished) {
+                finished = true;
+                finishedAt = System.nanoTime();
+            }
+        }
+
+        synchronized boolean isFinished() {
+            return finished;
+        }
+
+        synchronized long finishedAt() {
+            return finishedAt;
+        }
+
+        synchronized boolean isExpired(long now) {
+            if (stream == null) {
+                // 시작하기 전에 실패한 스트림 (업스트림 호출 전 오류 등)
+                return now - openedAt > detachGrace.toNanos();
+            }
+            return finished && now - finishedAt > completedTtl.toNanos();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        // @return 비운 바이트 수
+        private synchronized long clear() {
+            long freed = bytes;
+            events.clear();
+            sizes.clear();
+            bytes = 0;
+            return freed;
+        }
+
+        // @return 버린 바이트 수
+        private synchronized long trimTo(long maxBytes) {
+            long freed = 0;
+            while (bytes > maxBytes && !events.isEmpty()) {
+                freed += dropOldest();
+            }
+            return freed;
+        }
+
+        private long dropOldest() {
+            events.pollFirst();
+            int size = sizes.pollFirst();
+            bytes -= size;
+            return size;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.minje.chatbot.service;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 로컬 토크나이저(jtokkit)로 모델별 토큰 수 계산
+ * - 알 수 없는 모델은 cl100k_base 인코딩 사용
+ * - 메시지마다 role/구분자 오버헤드를 더한다
+ */
+@Component
+public class TokenCounter {
+
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final Encoding encoding;
+
+    public TokenCounter(@Value("${openai.model:gpt-3.5-turbo}") String model) {
+        EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
+        this.encoding = registry.getEncodingForModel(model)
+                .orElseGet(() -> registry.getEncoding(EncodingType.CL100K_BASE));
+    }
+
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encoding.countTokens(text);
+    }
+
+    /**
+     * 메시지 1건의 토큰 수 (없는 메시지는 0)
+     */
+    public int countMessage(String content) {
+        if (content == null || content.isBlank()) {
+            return 0;
+        }
+        return count(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+}
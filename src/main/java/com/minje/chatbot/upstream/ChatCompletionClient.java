@@ -0,0 +1,23 @@
+package com.minje.chatbot.upstream;
+
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import okhttp3.sse.EventSource;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Chat Completions 호출 (단일 업스트림 OpenAIHttpClient 또는 여러 업스트림을 고르는 UpstreamPool)
+ */
+public interface ChatCompletionClient {
+
+    /**
+     * 비스트리밍 채팅 완료. 실패 시 UpstreamException으로 완료되며, future를 취소하면 HTTP 호출도 취소된다.
+     */
+    CompletableFuture<ChatCompletionResult> createChatCompletion(ChatCompletionRequest request);
+
+    /**
+     * 스트리밍 채팅 완료. 반환된 EventSource를 cancel()하면 업스트림 연결을 끊는다.
+     */
+    EventSource streamChatCompletion(ChatCompletionRequest request, ChatCompletionStreamHandler handler);
+}
@@ -0,0 +1,16 @@
+package com.minje.chatbot.upstream;
+
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+
+/**
+ * 스트리밍 응답 콜백 (OkHttp 디스패처 스레드에서 호출됨)
+ * onComplete/onError 중 하나만 한 번 호출된다.
+ */
+public interface ChatCompletionStreamHandler {
+
+    void onChunk(ChatCompletionChunk chunk);
+
+    void onComplete();
+
+    void onError(Throwable error);
+}
@@ -0,0 +1,39 @@
+package com.minje.chatbot.upstream;
+
+import java.time.Duration;
+
+/**
+ * 업스트림 HTTP 클라이언트 설정
+ *
+ * @param baseUrl            API 기본 URL (로컬 대체 서버로 바꿔 부하 테스트 가능)
+ * @param maxIdleConnections 커넥션 풀에 유지할 유휴 커넥션 수
+ * @param keepAlive          유휴 커넥션 유지 시간
+ * @param pingInterval       HTTP/2 PING 주기 (끊긴 커넥션 감지, 0이면 사용 안 함)
+ * @param maxRequests        동시 실행 요청 수 (스트림 포함)
+ * @param maxRequestsPerHost 호스트별 동시 실행 요청 수
+ * @param connectTimeout     연결 타임아웃
+ * @param readTimeout        읽기 간격 타임아웃 (스트림의 청크 사이 대기 시간에도 적용)
+ * @param callTimeout        비스트리밍 요청 전체 타임아웃 (0이면 제한 없음)
+ * @param http2              HTTP/2 협상 허용 여부
+ */
+public record OpenAIClientSettings(String baseUrl,
+                                   int maxIdleConnections,
+                                   Duration keepAlive,
+                                   Duration pingInterval,
+                                   int maxRequests,
+                                   int maxRequestsPerHost,
+                                   Duration connectTimeout,
+                                   Duration readTimeout,
+                                   Duration callTimeout,
+                                   boolean http2) {
+
+    public static final String DEFAULT_BASE_URL = "https://api.openai.com/v1/";
+
+    /**
+     * 기존 단일 timeout 설정과 같은 동작의 기본값
+     */
+    public static OpenAIClientSettings defaults(Duration timeout) {
+        return new OpenAIClientSettings(DEFAULT_BASE_URL, 50, Duration.ofMinutes(5), Duration.ofSeconds(30),
+                256, 256, Duration.ofSeconds(5), timeout, timeout.multipliedBy(2), true);
+    }
+}
@@ -0,0 +1,239 @@
+package com.minje.chatbot.upstream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minje.chatbot.exception.UpstreamException;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import com.theokanning.openai.service.OpenAiService;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+import okhttp3.sse.EventSources;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * OpenAI Chat Completions 비동기 클라이언트 (OkHttp + okhttp-sse)
+ * - 호출 스레드를 막지 않고 CompletableFuture / 콜백으로 결과 전달
+ * - 커넥션 풀, 호스트별 동시 요청 수, 타임아웃, keep-alive, HTTP/2를 설정으로 조정
+ * - 요청/응답 모델은 theokanning 라이브러리 것을 그대로 사용
+ */
+@Slf4j
+public class OpenAIHttpClient implements ChatCompletionClient, AutoCloseable {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String DONE = "[DONE]";
+
+    private final OkHttpClient client;
+    private final HttpUrl chatCompletionsUrl;
+    private final String authorization;
+    private final ObjectMapper objectMapper = OpenAiService.defaultObjectMapper();
+
+    public OpenAIHttpClient(String apiKey, OpenAIClientSettings settings) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.maxRequests());
+        // OkHttp 기본값은 호스트당 5개라 단일 업스트림에서는 사실상 동시 호출 상한이 된다
+        dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost());
+
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(settings.maxIdleConnections(),
+                        settings.keepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .pingInterval(settings.pingInterval())
+                .protocols(settings.http2()
+                        ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : List.of(Protocol.HTTP_1_1))
+                .connectTimeout(settings.connectTimeout())
+                .readTimeout(settings.readTimeout())
+                .callTimeout(settings.callTimeout())
+                .build();
+
+        String baseUrl = settings.baseUrl().endsWith("/") ? settings.baseUrl() : settings.baseUrl() + "/";
+        this.chatCompletionsUrl = HttpUrl.get(baseUrl).resolve("chat/completions");
+        this.authorization = "Bearer " + apiKey;
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletionResult> createChatCompletion(ChatCompletionRequest request) {
+        CompletableFuture<ChatCompletionResult> future = new CompletableFuture<>();
+        Call call;
+        try {
+            call = client.newCall(newRequest(request, false));
+        } catch (JsonProcessingException e) {
+            future.completeExceptionally(new IllegalArgumentException("Invalid chat completion request", e));
+            return future;
+        }
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    String payload = body != null ? body.string() : "";
+                    if (!response.isSuccessful()) {
+                        future.completeExceptionally(
+                                UpstreamException.ofStatus(response.code(), payload, retryAfterOf(response)));
+                        return;
+                    }
+                    future.complete(objectMapper.readValue(payload, ChatCompletionResult.class));
+                } catch (IOException e) {
+                    future.completeExceptionally(toUpstreamException(e));
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(toUpstreamException(e));
+            }
+        });
+
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public EventSource streamChatCompletion(ChatCompletionRequest request, ChatCompletionStreamHandler handler) {
+        Request httpRequest;
+        try {
+            httpRequest = newRequest(request, true);
+        } catch (JsonProcessingException e) {
+            handler.onError(new IllegalArgumentException("Invalid chat completion request", e));
+            return null;
+        }
+
+        AtomicBoolean finished = new AtomicBoolean();
+        return EventSources.createFactory(client).newEventSource(httpRequest, new EventSourceListener() {
+            @Override
+            public void onEvent(EventSource eventSource, String id, String type, String data) {
+                if (finished.get()) {
+                    return;
+                }
+                if (DONE.equals(data)) {
+                    finish();
+                    eventSource.cancel();
+                    return;
+                }
+                try {
+                    handler.onChunk(objectMapper.readValue(data, ChatCompletionChunk.class));
+                } catch (JsonProcessingException e) {
+                    fail(UpstreamException.network(e));
+                    eventSource.cancel();
+                } catch (RuntimeException e) {
+                    // 핸들러에서 발생한 오류(클라이언트 연결 끊김 등)는 업스트림 스트림도 중단
+                    fail(e);
+                    eventSource.cancel();
+                }
+            }
+
+            @Override
+            public void onClosed(EventSource eventSource) {
+                finish();
+            }
+
+            @Override
+            public void onFailure(EventSource eventSource, Throwable t, Response response) {
+                if (response != null && !response.isSuccessful()) {
+                    String body = "";
+                    try (ResponseBody responseBody = response.body()) {
+                        body = responseBody != null ? responseBody.string() : "";
+                    } catch (IOException ignored) {
+                        // 오류 본문은 로그용
+                    }
+                    fail(UpstreamException.ofStatus(response.code(), body, retryAfterOf(response)));
+                } else {
+                    fail(t instanceof IOException io ? toUpstreamException(io) : UpstreamException.network(t));
+                }
+            }
+
+            private void finish() {
+                if (finished.compareAndSet(false, true)) {
+                    handler.onComplete();
+                }
+            }
+
+            private void fail(Throwable error) {
+                if (finished.compareAndSet(false, true)) {
+                    handler.onError(error);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+    }
+
+    private Request newRequest(ChatCompletionRequest request, boolean stream) throws JsonProcessingException {
+        Request.Builder builder = new Request.Builder()
+                .url(chatCompletionsUrl)
+                .header("Authorization", authorization)
+                .post(RequestBody.create(objectMapper.writeValueAsBytes(request), JSON));
+        if (stream) {
+            builder.header("Accept", "text/event-stream");
+        }
+        return builder.build();
+    }
+
+    /**
+     * 429/503 응답의 재시도 대기 시간 (OpenAI의 retry-after-ms 우선, 표준 Retry-After는 초 또는 HTTP 날짜)
+     */
+    private static Duration retryAfterOf(Response response) {
+        String millis = response.header("retry-after-ms");
+        if (millis != null) {
+            try {
+                return Duration.ofMillis((long) Double.parseDouble(millis.trim()));
+            } catch (NumberFormatException ignored) {
+                // 표준 헤더로 대체
+            }
+        }
+        String value = response.header("Retry-After");
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilDate = Duration.between(Instant.now(),
+                        ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private static UpstreamException toUpstreamException(IOException e) {
+        // SocketTimeoutException, 전체 호출 타임아웃 모두 InterruptedIOException
+        return e instanceof InterruptedIOException ? UpstreamException.timeout(e) : UpstreamException.network(e);
+    }
+}
@@ -0,0 +1,43 @@
+package com.minje.chatbot.upstream;
+
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 채팅 완료 요청의 내용 해시 (응답 캐시 키, 동일 요청 합치기 키)
+ * - model, temperature, maxTokens, 메시지 목록(역할 + 공백 정규화한 내용)의 SHA-256
+ * - stream 여부 등 응답 내용과 무관한 필드는 제외
+ */
+public final class RequestFingerprint {
+
+    private RequestFingerprint() {
+    }
+
+    public static String of(ChatCompletionRequest request) {
+        StringBuilder canonical = new StringBuilder()
+                .append(request.getModel()).append('\u0000')
+                .append(request.getTemperature()).append('\u0000')
+                .append(request.getMaxTokens()).append('\u0000');
+        for (ChatMessage message : request.getMessages()) {
+            canonical.append(message.getRole()).append('\u0001')
+                    .append(normalize(message.getContent())).append('\u0002');
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String normalize(String content) {
+        return content == null ? "" : content.strip().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,32 @@
+package com.minje.chatbot.upstream;
+
+import java.time.Duration;
+
+/**
+ * 업스트림 재시도/헤징 설정
+ *
+ * @param maxAttempts    요청당 최대 시도 횟수 (첫 시도 포함, 1이면 재시도 안 함)
+ * @param baseBackoff    첫 재시도 대기 시간 상한 (시도마다 2배, full jitter)
+ * @param maxBackoff     재시도 대기 시간 상한
+ * @param maxRetryAfter  업스트림 Retry-After가 이보다 길면 재시도하지 않고 실패
+ * @param budgetRatio    요청 1건당 적립되는 재시도 예산 (0.1이면 정상 상태에서 요청의 10%까지 재시도)
+ * @param budgetReserve  재시도 예산 상한 (짧은 장애 동안 쓸 수 있는 재시도 수)
+ * @param hedgeEnabled   비스트리밍 요청 헤징 사용 여부
+ * @param hedgeMinDelay  헤지 요청을 보내기 전 최소 대기 시간 (최근 지연 p95가 더 길면 p95)
+ */
+public record RetrySettings(int maxAttempts,
+                            Duration baseBackoff,
+                            Duration maxBackoff,
+                            Duration maxRetryAfter,
+                            double budgetRatio,
+                            double budgetReserve,
+                            boolean hedgeEnabled,
+                            Duration hedgeMinDelay) {
+
+    /**
+     * 재시도/헤징 없음
+     */
+    public static RetrySettings disabled() {
+        return new RetrySettings(1, Duration.ZERO, Duration.ZERO, Duration.ZERO, 0, 0, false, Duration.ZERO);
+    }
+}
@@ -0,0 +1,57 @@
+package com.minje.chatbot.upstream;
+
+import java.util.Map;
+
+/**
+ * 업스트림 대기열의 테넌트(해시된 API Key)별 가중치와 동시 호출 상한
+ * - 테넌트는 등급(tier)에 속하고, 등급마다 가중치와 테넌트당 동시 호출 상한을 가짐
+ * - 등급이 지정되지 않은 테넌트는 기본 등급
+ */
+public class TenantPolicy {
+
+    public static final String DEFAULT_TIER = "default";
+
+    /**
+     * @param weight        가중치 (2면 같은 시간 동안 기본 등급 테넌트의 2배를 처리)
+     * @param maxConcurrent 이 등급 테넌트 하나의 동시 업스트림 호출 상한
+     */
+    public record Tier(double weight, int maxConcurrent) {
+    }
+
+    private final Tier defaultTier;
+    private final Map<String, Tier> tiers;
+    private final Map<String, String> tenantTiers;
+
+    /**
+     * @param tiers       등급 이름 → 등급
+     * @param tenantTiers 해시된 API Key → 등급 이름
+     */
+    public TenantPolicy(Tier defaultTier, Map<String, Tier> tiers, Map<String, String> tenantTiers) {
+        this.defaultTier = defaultTier;
+        this.tiers = Map.copyOf(tiers);
+        this.tenantTiers = Map.copyOf(tenantTiers);
+    }
+
+    /**
+     * 모든 테넌트가 같은 가중치와 상한
+     */
+    public static TenantPolicy uniform(int maxConcurrentPerTenant) {
+        return new TenantPolicy(new Tier(1.0, maxConcurrentPerTenant), Map.of(), Map.of());
+    }
+
+    public String tierOf(String tenant) {
+        String tier = tenant != null ? tenantTiers.get(tenant) : null;
+        return tier != null && tiers.containsKey(tier) ? tier : DEFAULT_TIER;
+    }
+
+    /**
+     * 등급이 명시적으로 지정된 테넌트 (지표에 테넌트 태그를 붙이는 대상)
+     */
+    public boolean isConfigured(String tenant) {
+        return tenant != null && tenantTiers.containsKey(tenant);
+    }
+
+    public Tier tier(String name) {
+        return tiers.getOrDefault(name, defaultTier);
+    }
+}
@@ -0,0 +1,425 @@
+package com.minje.chatbot.upstream;
+
+import com.minje.chatbot.exception.ThrottledException;
+import com.minje.chatbot.exception.UpstreamException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 노드별 업스트림 동시 호출 상한 (동기 응답 + 진행 중인 스트림)
+ * - 한도는 고정값이 아니라 AIMD로 조정: 업스트림이 과부하 신호(429/5xx/타임아웃)를 보내거나
+ *   응답 지연이 기준 지연 × latency-tolerance를 넘으면 backoff-ratio만큼 줄이고,
+ *   한도를 절반 이상 쓰는 중에 정상 응답이 오면 1씩 늘린다 (min-concurrent ~ max-concurrent)
+ * - 한도가 차면 테넌트(해시된 API Key)별 대기열에서 기다리고, 가중 공정 큐(WFQ)로 차례를 정한다:
+ *   요청마다 max(가상 시각, 테넌트의 마지막 태그) + 1/가중치 태그를 붙이고 태그가 가장 작은 요청부터 허가
+ *   — 요청을 몰아 보낸 테넌트의 태그는 멀리 밀려나므로 가벼운 테넌트는 앞 순서를 받음
+ * - 테넌트별 동시 호출 상한(등급별 max-concurrent)을 넘은 테넌트의 요청은 다른 테넌트에게 차례를 양보
+ * - 대기열이 가득 차면 대기 요청이 가장 많은 테넌트의 마지막 요청을 밀어내고, 그 테넌트 자신이면 거절.
+ *   요청별 대기 기한(acquire-timeout-ms) 안에 차례가 오지 않아도 503 + Retry-After로 거절
+ * - 기준 지연은 관측된 최소 지연에서 천천히 따라 올라가므로 업스트림이 영구히 느려져도 한도가 바닥에 고정되지 않음
+ */
+@Component
+@Slf4j
+public class UpstreamConcurrencyLimit {
+
+    private static final double BASELINE_DRIFT = 0.01;
+    private static final String ANONYMOUS = "anonymous";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int queueCapacity;
+    private final long acquireTimeoutMs;
+    private final TenantPolicy tenantPolicy;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Tenant> tenants = new HashMap<>();
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final Counter queueFullRejections;
+    private final Counter deadlineRejections;
+    private final Counter evictions;
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double virtualTime;
+    private long sequence;
+    private volatile long baselineNanos;
+
+    /**
+     * 모든 테넌트가 같은 가중치, 테넌트별 상한 없음
+     */
+    public UpstreamConcurrencyLimit(MeterRegistry meterRegistry, int minConcurrent, int initialConcurrent,
+                                    int maxConcurrent, double backoffRatio, double latencyTolerance,
+                                    int queueCapacity, long acquireTimeoutMs) {
+        this(meterRegistry, TenantPolicy.uniform(Integer.MAX_VALUE), minConcurrent, initialConcurrent,
+                maxConcurrent, backoffRatio, latencyTolerance, queueCapacity, acquireTimeoutMs);
+    }
+
+    @Autowired
+    public UpstreamConcurrencyLimit(MeterRegistry meterRegistry,
+                                    TenantPolicy tenantPolicy,
+                                    @Value("${openai.min-concurrent:8}") int minConcurrent,
+                                    @Value("${openai.initial-concurrent:32}") int initialConcurrent,
+                                    @Value("${openai.max-concurrent:256}") int maxConcurrent,
+                                    @Value("${openai.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                    @Value("${openai.concurrency.latency-tolerance:2.0}") double latencyTolerance,
+                                    @Value("${openai.queue-capacity:512}") int queueCapacity,
+                                    @Value("${openai.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        this.minLimit = Math.max(1, Math.min(minConcurrent, maxConcurrent));
+        this.maxLimit = maxConcurrent;
+        this.limit = Math.max(minLimit, Math.min(initialConcurrent, maxConcurrent));
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.queueCapacity = queueCapacity;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.tenantPolicy = tenantPolicy;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("upstream.concurrency.limit", this, UpstreamConcurrencyLimit::currentLimit)
+                .register(meterRegistry);
+        Gauge.builder("upstream.concurrency.in_flight", this, UpstreamConcurrencyLimit::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("upstream.concurrency.queue_depth", this, UpstreamConcurrencyLimit::queueDepth)
+                .register(meterRegistry);
+        this.queueFullRejections = rejectionCounter(meterRegistry, "queue_full");
+        this.deadlineRejections = rejectionCounter(meterRegistry, "deadline");
+        this.evictions = rejectionCounter(meterRegistry, "evicted");
+    }
+
+    /**
+     * 허가 획득 (테넌트 구분 없음, 기본 대기 기한)
+     */
+    public Permit acquire() {
+        return acquire(ANONYMOUS);
+    }
+
+    /**
+     * 허가 획득 (기본 대기 기한). 반환된 Permit은 업스트림 호출(스트림은 종료 콜백)이 끝난 뒤 close
+     *
+     * @param tenant 해시된 API Key (공정 대기열의 단위)
+     */
+    public Permit acquire(String tenant) {
+        return acquire(tenant, Duration.ofMillis(acquireTimeoutMs));
+    }
+
+    public Permit acquire(Duration maxWait) {
+        return acquire(ANONYMOUS, maxWait);
+    }
+
+    /**
+     * @param maxWait 이 요청의 대기열 대기 기한. 지나면 503
+     */
+    public Permit acquire(String tenant, Duration maxWait) {
+        String key = tenant != null ? tenant : ANONYMOUS;
+        Waiter waiter;
+        boolean evicted;
+        synchronized (this) {
+            Tenant state = tenants.computeIfAbsent(key, this::newTenant);
+            // 대기 중인 요청이 없고 한도/테넌트 상한에 여유가 있으면 바로 허가
+            if (queued == 0 && inFlight < (int) limit && state.inFlight < state.maxConcurrent) {
+                grant(state);
+                recordWait(state, 0);
+                return new Permit(this, state);
+            }
+            evicted = queued >= queueCapacity;
+            if (evicted && !evictFromLongestQueue(state)) {
+                queueFullRejections.increment();
+                releaseIfIdle(state);
+                throw busy();
+            }
+            waiter = new Waiter(state, Math.max(virtualTime, state.lastTag) + 1.0 / state.weight, sequence++);
+            state.lastTag = waiter.tag;
+            state.queue.addLast(waiter);
+            queued++;
+            grantWaiters();
+        }
+        if (evicted) {
+            evictions.increment();
+        }
+
+        try {
+            return waiter.granted.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // 기한 초과 — 단, 그 사이에 허가를 받았다면 그대로 사용
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+
+        boolean removed;
+        synchronized (this) {
+            removed = waiter.tenant.queue.remove(waiter);
+            if (removed) {
+                queued--;
+                releaseIfIdle(waiter.tenant);
+            }
+        }
+        if (!removed) {
+            // 기한 직전에 허가를 받았거나 밀려남 (밀려난 경우 503).
+            // 대기열에서 빠지는 순간 잠금 안에서 결과가 정해지므로 join은 기다리지 않음
+            try {
+                return waiter.granted.join();
+            } catch (CompletionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+        deadlineRejections.increment();
+        throw busy();
+    }
+
+    public synchronized int currentLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int queueDepth() {
+        return queued;
+    }
+
+    public synchronized int availablePermits() {
+        return Math.max(0, (int) limit - inFlight);
+    }
+
+    private Tenant newTenant(String key) {
+        String tier = tenantPolicy.tierOf(key);
+        String metricTag = tenantPolicy.isConfigured(key) ? key.substring(0, Math.min(12, key.length())) : "other";
+        return new Tenant(key, metricTag, tenantPolicy.tier(tier), waitTimer(tier, metricTag));
+    }
+
+    private synchronized void onSample(long latencyNanos) {
+        if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        } else {
+            baselineNanos += (long) ((latencyNanos - baselineNanos) * BASELINE_DRIFT);
+        }
+
+        if (latencyNanos > baselineNanos * latencyTolerance) {
+            decrease();
+        } else if (inFlight * 2 >= (int) limit) {
+            // 한도를 충분히 쓰고 있을 때만 늘림 (유휴 상태에서 한도가 끝없이 커지지 않도록)
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        grantWaiters();
+    }
+
+    private synchronized void onDropped() {
+        decrease();
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private synchronized void release(Tenant tenant) {
+        inFlight--;
+        tenant.inFlight--;
+        grantWaiters();
+        releaseIfIdle(tenant);
+    }
+
+    // this 잠금을 잡은 상태에서 호출
+    private void grant(Tenant tenant) {
+        inFlight++;
+        tenant.inFlight++;
+    }
+
+    // this 잠금을 잡은 상태에서 호출. 상한에 여유가 있는 테넌트 중 맨 앞 요청의 태그가 가장 작은 것부터 허가
+    private void grantWaiters() {
+        while (inFlight < (int) limit && queued > 0) {
+            Waiter next = null;
+            for (Tenant tenant : tenants.values()) {
+                Waiter head = tenant.queue.peekFirst();
+                if (head != null && tenant.inFlight < tenant.maxConcurrent
+                        && (next == null || head.tag < next.tag || (head.tag == next.tag && head.seq < next.seq))) {
+                    next = head;
+                }
+            }
+            if (next == null) {
+                // 대기 중인 테넌트가 모두 자기 상한에 걸림
+                return;
+            }
+            next.tenant.queue.pollFirst();
+            queued--;
+            virtualTime = Math.max(virtualTime, next.tag - 1.0 / next.tenant.weight);
+            grant(next.tenant);
+            recordWait(next.tenant, System.nanoTime() - next.enqueuedAt);
+            next.granted.complete(new Permit(this, next.tenant));
+        }
+    }
+
+    // this 잠금을 잡은 상태에서 호출. 밀어낸 요청은 잠금 안에서 503으로 끝냄.
+    // 밀어낸 요청이 없으면 false (요청한 테넌트가 가장 많이 대기 중)
+    private boolean evictFromLongestQueue(Tenant arriving) {
+        Tenant longest = null;
+        for (Tenant tenant : tenants.values()) {
+            if (longest == null || tenant.queue.size() > longest.queue.size()) {
+                longest = tenant;
+            }
+        }
+        if (longest == null || longest == arriving || longest.queue.size() <= arriving.queue.size() + 1) {
+            return false;
+        }
+        Waiter evicted = longest.queue.pollLast();
+        queued--;
+        releaseIfIdle(longest);
+        evicted.granted.completeExceptionally(busy());
+        return true;
+    }
+
+    // this 잠금을 잡은 상태에서 호출. 대기/진행 중인 요청이 없는 테넌트 상태는 정리 (다시 오면 현재 가상 시각부터)
+    private void releaseIfIdle(Tenant tenant) {
+        if (tenant.inFlight == 0 && tenant.queue.isEmpty()) {
+            tenants.remove(tenant.key, tenant);
+        }
+    }
+
+    private void recordWait(Tenant tenant, long waitNanos) {
+        tenant.waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos > TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs) / 2) {
+            log.debug("Tenant {} waited {}ms for upstream permit", tenant.metricTag,
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+
+    // 테넌트 태그는 등급이 지정된 테넌트만 (API Key 해시 앞부분), 나머지는 other로 묶어 지표 카디널리티를 제한
+    private Timer waitTimer(String tier, String metricTag) {
+        return waitTimers.computeIfAbsent(tier + '/' + metricTag, key -> Timer.builder("upstream.concurrency.queue_wait")
+                .tag("tier", tier)
+                .tag("tenant", metricTag)
+                .register(meterRegistry));
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof ThrottledException throttled ? throttled : new IllegalStateException(cause);
+    }
+
+    // 잠금 없이 만듦 (기준 지연은 volatile). 잠금 안팎 어디서 불러도 됨
+    private ThrottledException busy() {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(baselineNanos));
+        return new ThrottledException("UPSTREAM_BUSY",
+                "현재 요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.",
+                HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, Map.of());
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("upstream.concurrency.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 테넌트 하나의 대기열과 진행 중 호출 수 (this 잠금으로 보호)
+     */
+    private static final class Tenant {
+
+        private final String key;
+        private final String metricTag;
+        private final double weight;
+        private final int maxConcurrent;
+        private final Timer waitTimer;
+        private final Deque<Waiter> queue = new ArrayDeque<>();
+        private int inFlight;
+        private double lastTag;
+
+        Tenant(String key, String metricTag, TenantPolicy.Tier policy, Timer waitTimer) {
+            this.key = key;
+            this.metricTag = metricTag;
+            this.waitTimer = waitTimer;
+            this.weight = policy.weight() > 0 ? policy.weight() : 1.0;
+            this.maxConcurrent = policy.maxConcurrent() > 0 ? policy.maxConcurrent() : Integer.MAX_VALUE;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final Tenant tenant;
+        private final double tag;
+        private final long seq;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Permit> granted = new CompletableFuture<>();
+
+        Waiter(Tenant tenant, double tag, long seq) {
+            this.tenant = tenant;
+            this.tag = tag;
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * 한 번만 반납되는 허가 (스트림 완료/오류/제출 실패 경로에서 중복 호출돼도 안전)
+     * 업스트림 결과는 onSuccess/onFailure로 알려 한도 조정에 반영하며, 처음 알린 결과만 사용한다.
+     * 캐시 적중처럼 업스트림을 거치지 않은 경우에는 결과를 알리지 않고 close만 한다.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final UpstreamConcurrencyLimit owner;
+        private final Tenant tenant;
+        private volatile long startedAtNanos = System.nanoTime();
+        private final AtomicBoolean sampled = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(UpstreamConcurrencyLimit owner, Tenant tenant) {
+            this.owner = owner;
+            this.tenant = tenant;
+        }
+
+        /**
+         * 업스트림 호출 시작. 허가 이후 DB 조회 등 업스트림과 무관한 시간은 지연 표본에서 제외
+         * (호출하지 않으면 허가 시각부터 측정)
+         */
+        public void markUpstreamStart() {
+            startedAtNanos = System.nanoTime();
+        }
+
+        /**
+         * 업스트림 응답 도착 (동기: 응답 완료, 스트림: 첫 청크). 업스트림 호출 시작 이후 지연을 표본으로 기록
+         */
+        public void onSuccess() {
+            if (sampled.compareAndSet(false, true)) {
+                owner.onSample(System.nanoTime() - startedAtNanos);
+            }
+        }
+
+        /**
+         * 업스트림 실패. 과부하 신호(429/5xx/타임아웃/네트워크 오류)일 때만 한도를 줄임
+         */
+        public void onFailure(Throwable error) {
+            if (error instanceof UpstreamException upstream && upstream.isRetryable()
+                    && sampled.compareAndSet(false, true)) {
+                owner.onDropped();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                owner.release(tenant);
+            }
+        }
+    }
+}
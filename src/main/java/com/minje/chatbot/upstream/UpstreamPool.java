@@ -0,0 +1,351 @@
+package com.minje.chatbot.upstream;
+
+import com.minje.chatbot.exception.UpstreamException;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import com.theokanning.openai.completion.chat.ChatCompletionRequest;
+import com.theokanning.openai.completion.chat.ChatCompletionResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.sse.EventSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 업스트림(조직/리전별 API Key, 내부 호환 게이트웨이)에 요청을 나누어 보내는 풀
+ * - 대상마다 별도 클라이언트(커넥션 풀, 호스트별 동시 요청 수)와 진행 중 요청 상한(maxOutstanding)을 가짐
+ * - 라우팅: (진행 중 요청 수 + 1) × 최근 응답 지연(EWMA) × (1 + 오류율 가중치)가 가장 작은 대상
+ *   동점이면 무작위 — 상한이 찬 대상은 다른 대상이 있으면 건너뜀
+ * - 대상 실패(429/5xx/타임아웃/연결 실패, 키 폐기·권한 없음 401/403)가 eject-after-failures번 연속되면
+ *   eject-duration 동안 제외. 요청 자체의 문제(400/404/422)는 성공도 실패도 아님
+ *   모든 대상이 제외되면 가장 먼저 복귀할 대상으로 보냄 (라우팅 때문에 요청이 실패하지 않도록)
+ * - 응답 지연: 비스트리밍은 전체 응답, 스트림은 첫 청크까지 (정상 응답만 — 오류 응답은 빨라도 반영하지 않음)
+ * - upstream.target.*{target} 지표 노출
+ */
+@Slf4j
+public class UpstreamPool implements ChatCompletionClient, AutoCloseable {
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final double ERROR_PENALTY = 10.0;
+    private static final Set<Integer> REQUEST_FAULTS = Set.of(400, 404, 422);
+
+    private final List<Target> targets;
+    private final int ejectAfterFailures;
+    private final long ejectNanos;
+
+    /**
+     * @param name           지표/로그에 쓰는 대상 이름
+     * @param client         대상 전용 클라이언트 (풀이 닫힐 때 함께 닫힘)
+     * @param maxOutstanding 이 대상에 동시에 보낼 요청 수 상한
+     */
+    public record TargetSpec(String name, ChatCompletionClient client, int maxOutstanding) {
+    }
+
+    /**
+     * 대상별 현재 상태 (지표/테스트용)
+     */
+    public record TargetStatus(String name, int outstanding, double latencyMs, double errorRate, boolean ejected) {
+    }
+
+    public UpstreamPool(List<TargetSpec> specs, int ejectAfterFailures, Duration ejectDuration,
+                        MeterRegistry meterRegistry) {
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("At least one upstream target is required");
+        }
+        this.targets = specs.stream().map(spec -> new Target(spec, meterRegistry)).toList();
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.ejectNanos = ejectDuration.toNanos();
+    }
+
+    @Override
+    public CompletableFuture<ChatCompletionResult> createChatCompletion(ChatCompletionRequest request) {
+        Target target = pick();
+        long startedAt = target.begin();
+        CompletableFuture<ChatCompletionResult> future = target.client.createChatCompletion(request);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                // 호출자가 떠난 것이므로 대상 상태에는 반영하지 않음
+                target.end();
+            } else {
+                target.end(System.nanoTime() - startedAt, error);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public EventSource streamChatCompletion(ChatCompletionRequest request, ChatCompletionStreamHandler handler) {
+        Target target = pick();
+        TargetStream stream = new TargetStream(target, handler);
+        stream.source = target.client.streamChatCompletion(request, stream);
+        return stream;
+    }
+
+    public List<TargetStatus> status() {
+        long now = System.nanoTime();
+        return targets.stream().map(target -> target.status(now)).toList();
+    }
+
+    @Override
+    public void close() {
+        for (Target target : targets) {
+            if (target.client instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close upstream target {}", target.name, e);
+                }
+            }
+        }
+    }
+
+    private Target pick() {
+        long now = System.nanoTime();
+        double defaultLatency = averageMeasuredLatency();
+
+        // 동점일 때 앞쪽 대상에 몰리지 않도록 무작위 위치부터 탐색
+        int offset = ThreadLocalRandom.current().nextInt(targets.size());
+        Target best = null;
+        double bestScore = Double.MAX_VALUE;
+        Target fallback = null;
+        for (int i = 0; i < targets.size(); i++) {
+            Target target = targets.get((offset + i) % targets.size());
+            if (target.isEjected(now)) {
+                if (fallback == null || target.ejectedUntil() < fallback.ejectedUntil()) {
+                    fallback = target;
+                }
+                continue;
+            }
+            double score = target.score(defaultLatency);
+            if (!target.hasCapacity()) {
+                // 상한이 찬 대상은 다른 대상이 모두 찼을 때만 사용
+                score += Double.MAX_VALUE / 2;
+            }
+            if (score < bestScore) {
+                best = target;
+                bestScore = score;
+            }
+        }
+        if (best == null) {
+            log.warn("All upstream targets ejected, routing to {}", fallback.name);
+            return fallback;
+        }
+        return best;
+    }
+
+    private double averageMeasuredLatency() {
+        double sum = 0;
+        int measured = 0;
+        for (Target target : targets) {
+            double latency = target.latencyMs();
+            if (latency > 0) {
+                sum += latency;
+                measured++;
+            }
+        }
+        return measured > 0 ? sum / measured : 1.0;
+    }
+
+    /**
+     * 업스트림 대상 하나. 진행 중 요청 수는 원자 변수, 지연/오류율/제외 상태는 잠금으로 보호
+     */
+    private final class Target {
+
+        private final String name;
+        private final ChatCompletionClient client;
+        private final int maxOutstanding;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Counter successes;
+        private final Counter failures;
+        private final Counter rejected;
+        private final Counter ejections;
+        private double latencyMs;
+        private double errorRate;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+        private boolean ejected;
+
+        Target(TargetSpec spec, MeterRegistry meterRegistry) {
+            this.name = spec.name();
+            this.client = spec.client();
+            this.maxOutstanding = spec.maxOutstanding();
+
+            Gauge.builder("upstream.target.outstanding", outstanding, AtomicInteger::get)
+                    .tag("target", name).register(meterRegistry);
+            Gauge.builder("upstream.target.latency_ms", this, Target::latencyMs)
+                    .tag("target", name).register(meterRegistry);
+            Gauge.builder("upstream.target.error_rate", this, Target::errorRate)
+                    .tag("target", name).register(meterRegistry);
+            Gauge.builder("upstream.target.ejected", this, target -> target.isEjected(System.nanoTime()) ? 1 : 0)
+                    .tag("target", name).register(meterRegistry);
+            this.successes = Counter.builder("upstream.target.requests")
+                    .tag("target", name).tag("outcome", "success").register(meterRegistry);
+            this.failures = Counter.builder("upstream.target.requests")
+                    .tag("target", name).tag("outcome", "failure").register(meterRegistry);
+            this.rejected = Counter.builder("upstream.target.requests")
+                    .tag("target", name).tag("outcome", "rejected").register(meterRegistry);
+            this.ejections = Counter.builder("upstream.target.ejections")
+                    .tag("target", name).register(meterRegistry);
+        }
+
+        long begin() {
+            outstanding.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        /**
+         * 결과를 반영하지 않고 반납 (취소)
+         */
+        void end() {
+            outstanding.decrementAndGet();
+        }
+
+        /**
+         * @param error null이면 성공 (지연 반영). 요청 문제(400/404/422)는 대상 상태에 반영하지 않고,
+         *              나머지 오류는 대상 실패로 침
+         */
+        void end(long latencyNanos, Throwable error) {
+            outstanding.decrementAndGet();
+            if (error == null) {
+                successes.increment();
+                recordSuccess(latencyNanos);
+            } else if (error instanceof UpstreamException upstream && REQUEST_FAULTS.contains(upstream.getUpstreamStatus())) {
+                rejected.increment();
+            } else {
+                if (error instanceof UpstreamException upstream
+                        && (upstream.getUpstreamStatus() == 401 || upstream.getUpstreamStatus() == 403)) {
+                    log.warn("Upstream target {} rejected its credentials ({})", name, upstream.getUpstreamStatus());
+                }
+                failures.increment();
+                recordFailure();
+            }
+        }
+
+        void recordFirstChunk(long latencyNanos) {
+            recordSuccess(latencyNanos);
+        }
+
+        private synchronized void recordSuccess(long latencyNanos) {
+            double sampleMs = latencyNanos / 1_000_000.0;
+            latencyMs = latencyMs == 0 ? sampleMs : latencyMs + EWMA_ALPHA * (sampleMs - latencyMs);
+            errorRate *= 1 - EWMA_ALPHA;
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void recordFailure() {
+            errorRate += EWMA_ALPHA * (1 - errorRate);
+            if (++consecutiveFailures >= ejectAfterFailures) {
+                consecutiveFailures = 0;
+                ejected = true;
+                ejectedUntil = System.nanoTime() + ejectNanos;
+                ejections.increment();
+                log.warn("Ejecting upstream target {} for {}ms", name, ejectNanos / 1_000_000);
+            }
+        }
+
+        synchronized boolean isEjected(long now) {
+            if (ejected && now - ejectedUntil >= 0) {
+                ejected = false;
+                log.info("Upstream target {} back in rotation", name);
+            }
+            return ejected;
+        }
+
+        synchronized long ejectedUntil() {
+            return ejectedUntil;
+        }
+
+        synchronized double latencyMs() {
+            return latencyMs;
+        }
+
+        synchronized double errorRate() {
+            return errorRate;
+        }
+
+        boolean hasCapacity() {
+            return outstanding.get() < maxOutstanding;
+        }
+
+        synchronized double score(double defaultLatencyMs) {
+            double latency = latencyMs > 0 ? latencyMs : defaultLatencyMs;
+            return (outstanding.get() + 1) * latency * (1 + ERROR_PENALTY * errorRate);
+        }
+
+        synchronized TargetStatus status(long now) {
+            return new TargetStatus(name, outstanding.get(), latencyMs, errorRate, isEjected(now));
+        }
+    }
+
+    /**
+     * 대상 하나로 보낸 스트림. 종료/취소 시 한 번만 진행 중 요청 수를 반납
+     */
+    private static final class TargetStream implements ChatCompletionStreamHandler, EventSource {
+
+        private final Target target;
+        private final ChatCompletionStreamHandler handler;
+        private final long startedAt;
+        private final AtomicBoolean firstChunk = new AtomicBoolean();
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private volatile EventSource source;
+
+        TargetStream(Target target, ChatCompletionStreamHandler handler) {
+            this.target = target;
+            this.handler = handler;
+            this.startedAt = target.begin();
+        }
+
+        @Override
+        public void onChunk(ChatCompletionChunk chunk) {
+            if (firstChunk.compareAndSet(false, true)) {
+                target.recordFirstChunk(System.nanoTime() - startedAt);
+            }
+            handler.onChunk(chunk);
+        }
+
+        @Override
+        public void onComplete() {
+            if (ended.compareAndSet(false, true)) {
+                target.end();
+                target.successes.increment();
+            }
+            handler.onComplete();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (ended.compareAndSet(false, true)) {
+                if (firstChunk.get()) {
+                    target.end();
+                } else {
+                    target.end(System.nanoTime() - startedAt, error);
+                }
+            }
+            handler.onError(error);
+        }
+
+        @Override
+        public Request request() {
+            return source != null ? source.request() : null;
+        }
+
+        @Override
+        public void cancel() {
+            // 호출자가 끊은 스트림은 대상 실패로 치지 않음
+            if (ended.compareAndSet(false, true)) {
+                target.end();
+            }
+            if (source != null) {
+                source.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.minje.chatbot.upstream;
+
+import com.minje.chatbot.exception.UpstreamException;
+import com.theokanning.openai.completion.chat.ChatCompletionChunk;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Request;
+import okhttp3.sse.EventSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 업스트림 호출 재시도 + 헤징
+ * - 재시도 대상: 연결 실패/타임아웃, 429, 5xx (UpstreamException.isRetryable). 400 등은 바로 실패
+ * - 대기: 지수 백오프 + full jitter, 업스트림 Retry-After가 있으면 그보다 먼저 다시 보내지 않음
+ * - 노드 전체 재시도 예산: 요청마다 budgetRatio씩 적립되고 재시도/헤지마다 1씩 차감 — 장애 중 재시도 폭주 방지
+ * - 헤징(비스트리밍만): 최근 지연 p95가 지나도 응답이 없으면 같은 요청을 한 번 더 보내고 먼저 온 응답을 사용, 나머지는 취소
+ * - 스트림: 첫 청크를 받기 전에 실패한 경우에만 재시도 (이미 전송한 토큰이 중복되지 않도록)
+ * 대기는 스케줄러에서 처리하므로 호출 스레드를 막지 않는다.
+ */
+@Slf4j
+public class UpstreamRetrier implements AutoCloseable {
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    private final RetrySettings settings;
+    private final ScheduledExecutorService scheduler;
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private double budget;
+    private final Counter syncRetries;
+    private final Counter streamRetries;
+    private final Counter budgetExhausted;
+    private final Counter hedges;
+    private final Counter hedgeWins;
+
+    public UpstreamRetrier(RetrySettings settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.budget = settings.budgetReserve();
+        // 스레드는 첫 예약 작업 때 생성됨 (재시도를 끈 경우 스레드를 만들지 않음)
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upstream-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncRetries = Counter.builder("upstream.retries").tag("type", "sync").register(meterRegistry);
+        this.streamRetries = Counter.builder("upstream.retries").tag("type", "stream").register(meterRegistry);
+        this.budgetExhausted = Counter.builder("upstream.retries.budget_exhausted").register(meterRegistry);
+        this.hedges = Counter.builder("upstream.hedges").register(meterRegistry);
+        this.hedgeWins = Counter.builder("upstream.hedges.won").register(meterRegistry);
+    }
+
+    /**
+     * 재시도/헤징 없이 한 번만 호출
+     */
+    public static UpstreamRetrier disabled() {
+        return new UpstreamRetrier(RetrySettings.disabled(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * 비스트리밍 호출. 반환된 future를 취소하면 진행 중인 모든 시도와 예약된 재시도를 취소한다.
+     *
+     * @param attempt 시도마다 새 업스트림 호출을 시작 (future 취소 시 HTTP 호출도 취소되어야 함)
+     */
+    public <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> attempt) {
+        deposit();
+        RetryingCall<T> call = new RetryingCall<>(attempt);
+        call.start(false);
+        return call.result;
+    }
+
+    /**
+     * 스트리밍 호출. 반환된 EventSource를 cancel()하면 현재 연결과 예약된 재시도를 취소한다.
+     *
+     * @param starter 시도마다 새 업스트림 스트림을 시작
+     */
+    public EventSource stream(ChatCompletionStreamHandler handler,
+                              Function<ChatCompletionStreamHandler, EventSource> starter) {
+        deposit();
+        RetryingStream stream = new RetryingStream(handler, starter);
+        stream.start();
+        return stream;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 재시도 대기 시간. 재시도하지 않아야 하면 null
+     *
+     * @param retries 지금까지의 재시도 횟수
+     */
+    private Duration backoff(Throwable error, int retries) {
+        if (!(error instanceof UpstreamException upstream) || !upstream.isRetryable()
+                || retries + 1 >= settings.maxAttempts()) {
+            return null;
+        }
+        Duration retryAfter = upstream.getRetryAfter();
+        if (retryAfter != null && retryAfter.compareTo(settings.maxRetryAfter()) > 0) {
+            log.warn("Upstream Retry-After {} exceeds limit, not retrying", retryAfter);
+            return null;
+        }
+        if (!withdraw()) {
+            budgetExhausted.increment();
+            log.warn("Upstream retry budget exhausted");
+            return null;
+        }
+
+        long capMillis = Math.min(settings.maxBackoff().toMillis(),
+                settings.baseBackoff().toMillis() << Math.min(retries, 20));
+        Duration jittered = Duration.ofMillis(ThreadLocalRandom.current().nextLong(capMillis + 1));
+        return retryAfter != null && retryAfter.compareTo(jittered) > 0 ? retryAfter : jittered;
+    }
+
+    private synchronized void deposit() {
+        budget = Math.min(settings.budgetReserve(), budget + settings.budgetRatio());
+    }
+
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget -= 1;
+        return true;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyCount++ % LATENCY_WINDOW] = nanos;
+    }
+
+    /**
+     * 헤지 요청을 보낼 대기 시간. 표본이 부족하면 null (헤징 안 함)
+     */
+    private Duration hedgeDelay() {
+        long[] samples;
+        synchronized (this) {
+            if (!settings.hedgeEnabled() || latencyCount < MIN_HEDGE_SAMPLES) {
+                return null;
+            }
+            samples = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_WINDOW));
+        }
+        Arrays.sort(samples);
+        Duration p95 = Duration.ofNanos(samples[(int) Math.ceil(samples.length * HEDGE_QUANTILE) - 1]);
+        return p95.compareTo(settings.hedgeMinDelay()) > 0 ? p95 : settings.hedgeMinDelay();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 비스트리밍 요청 하나의 시도들. 먼저 성공한 시도가 결과가 되고 나머지는 취소
+     */
+    private final class RetryingCall<T> {
+
+        private final Supplier<CompletableFuture<T>> attempt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<CompletableFuture<T>> outstanding = new ArrayList<>();
+        private ScheduledFuture<?> pending;
+        private int retries;
+        private boolean hedged;
+
+        RetryingCall(Supplier<CompletableFuture<T>> attempt) {
+            this.attempt = attempt;
+            result.whenComplete((value, error) -> cancelOutstanding());
+        }
+
+        void start(boolean hedge) {
+            if (result.isDone()) {
+                return;
+            }
+            long startedAt = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = attempt.get();
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                outstanding.add(future);
+            }
+            // 시작하는 사이에 다른 시도가 결과를 냈으면 바로 취소
+            if (result.isDone()) {
+                future.cancel(true);
+            }
+            future.whenComplete((value, error) -> onAttemptDone(future, startedAt, hedge, value, error));
+
+            if (!hedge) {
+                scheduleHedge();
+            }
+        }
+
+        private void scheduleHedge() {
+            Duration delay = hedgeDelay();
+            synchronized (this) {
+                if (delay == null || hedged || result.isDone()) {
+                    return;
+                }
+                pending = scheduler.schedule(() -> {
+                    synchronized (this) {
+                        if (hedged || result.isDone() || outstanding.isEmpty() || !withdraw()) {
+                            return;
+                        }
+                        hedged = true;
+                    }
+                    hedges.increment();
+                    start(true);
+                }, delay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void onAttemptDone(CompletableFuture<T> future, long startedAt, boolean hedge, T value, Throwable error) {
+            boolean othersRunning;
+            synchronized (this) {
+                outstanding.remove(future);
+                othersRunning = !outstanding.isEmpty();
+            }
+            if (error == null) {
+                recordLatency(System.nanoTime() - startedAt);
+                if (result.complete(value) && hedge) {
+                    hedgeWins.increment();
+                }
+                return;
+            }
+            // 다른 시도(헤지)가 진행 중이면 그 결과를 기다림
+            if (result.isDone() || othersRunning) {
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            Duration delay;
+            synchronized (this) {
+                delay = backoff(cause, retries);
+                if (delay != null) {
+                    retries++;
+                }
+            }
+            if (delay == null) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            syncRetries.increment();
+            log.warn("Retrying upstream call in {}ms: {}", delay.toMillis(), cause.getMessage());
+            synchronized (this) {
+                if (!result.isDone()) {
+                    pending = scheduler.schedule(() -> start(false), delay.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private void cancelOutstanding() {
+            List<CompletableFuture<T>> targets;
+            synchronized (this) {
+                targets = new ArrayList<>(outstanding);
+                outstanding.clear();
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            }
+            targets.forEach(target -> target.cancel(true));
+        }
+    }
+
+    /**
+     * 첫 청크 전 실패만 재시도하는 스트림. 업스트림 핸들러와 호출자에게 돌려줄 EventSource 역할을 함께 함
+     */
+    private final class RetryingStream implements ChatCompletionStreamHandler, EventSource {
+
+        private final ChatCompletionStreamHandler handler;
+        private final Function<ChatCompletionStreamHandler, EventSource> starter;
+        private EventSource current;
+        private ScheduledFuture<?> pending;
+        private volatile boolean started;
+        private boolean cancelled;
+        private int retries;
+
+        RetryingStream(ChatCompletionStreamHandler handler, Function<ChatCompletionStreamHandler, EventSource> starter) {
+            this.handler = handler;
+            this.starter = starter;
+        }
+
+        void start() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+            }
+            EventSource source = starter.apply(this);
+            boolean cancel;
+            synchronized (this) {
+                current = source;
+                cancel = cancelled;
+            }
+            if (cancel && source != null) {
+                source.cancel();
+            }
+        }
+
+        @Override
+        public void onChunk(ChatCompletionChunk chunk) {
+            started = true;
+            handler.onChunk(chunk);
+        }
+
+        @Override
+        public void onComplete() {
+            handler.onComplete();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            Duration delay = null;
+            synchronized (this) {
+                if (!started && !cancelled) {
+                    delay = backoff(error, retries);
+                    if (delay != null) {
+                        retries++;
+                        Duration wait = delay;
+                        pending = scheduler.schedule(this::start, wait.toNanos(), TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+            if (delay == null) {
+                handler.onError(error);
+                return;
+            }
+            streamRetries.increment();
+            log.warn("Retrying upstream stream in {}ms: {}", delay.toMillis(), error.getMessage());
+        }
+
+        @Override
+        public Request request() {
+            EventSource source;
+            synchronized (this) {
+                source = current;
+            }
+            return source != null ? source.request() : null;
+        }
+
+        @Override
+        public void cancel() {
+            EventSource source;
+            synchronized (this) {
+                cancelled = true;
+                source = current;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            }
+            if (source != null) {
+                source.cancel();
+            }
+        }
+    }
+}
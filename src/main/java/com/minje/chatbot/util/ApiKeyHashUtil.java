@@ -1,33 +1,152 @@
 package com.minje.chatbot.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * API Key HMAC-SHA256 해시
+ * - pepper별로 초기화가 끝난 Mac을 풀에 보관하여 요청마다 Provider 조회/키 스케줄을 반복하지 않음
+ * - ThreadLocal 대신 공유 풀을 사용하므로 가상 스레드가 많아도 인스턴스 수가 풀 크기로 제한됨
+ * - pepper 교체 시 API_KEY_PEPPER_PREVIOUS로 이전 pepper 해시도 검증 가능
+ */
 @Component
 public class ApiKeyHashUtil {
 
-    private final String pepper;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
 
-    public ApiKeyHashUtil(@Value("${API_KEY_PEPPER:default-pepper-change-in-prod}") String pepper) {
-        this.pepper = pepper;
+    private final MacPool currentPool;
+    private final MacPool previousPool;
+
+    public ApiKeyHashUtil(String pepper) {
+        this(pepper, "");
+    }
+
+    @Autowired
+    public ApiKeyHashUtil(@Value("${API_KEY_PEPPER:default-pepper-change-in-prod}") String pepper,
+                          @Value("${API_KEY_PEPPER_PREVIOUS:}") String previousPepper) {
+        this.currentPool = new MacPool(pepper);
+        this.previousPool = (previousPepper == null || previousPepper.isEmpty()) ? null : new MacPool(previousPepper);
     }
 
+    /**
+     * 현재 pepper로 해시
+     */
     public String hash(String apiKey) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec keySpec = new SecretKeySpec(pepper.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(keySpec);
-            byte[] hashBytes = mac.doFinal(apiKey.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hashBytes);
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            throw new RuntimeException("HMAC-SHA256 hashing failed", e);
+        return currentPool.hash(apiKey);
+    }
+
+    public boolean hasPreviousPepper() {
+        return previousPool != null;
+    }
+
+    /**
+     * 이전 pepper로 해시 (교체 기간 동안 기존 사용자 검증용). 이전 pepper가 없으면 null
+     */
+    public String hashWithPreviousPepper(String apiKey) {
+        return previousPool != null ? previousPool.hash(apiKey) : null;
+    }
+
+    private static final class MacPool {
+
+        private final Mac prototype;
+        private final BlockingQueue<Hasher> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        MacPool(String pepper) {
+            try {
+                this.prototype = Mac.getInstance(ALGORITHM);
+                this.prototype.init(new SecretKeySpec(pepper.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException("HMAC-SHA256 initialization failed", e);
+            }
+        }
+
+        String hash(String apiKey) {
+            Hasher hasher = idle.poll();
+            if (hasher == null) {
+                hasher = new Hasher(newMac());
+            }
+            String hashed = hasher.hash(apiKey);
+            // 실패한 Hasher는 상태가 불확실하므로 성공한 경우에만 반납, 풀이 가득 차 있으면 버린다
+            idle.offer(hasher);
+            return hashed;
+        }
+
+        private Mac newMac() {
+            try {
+                // 초기화된 Mac 복제는 키 스케줄을 다시 계산하지 않음
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("HMAC-SHA256 provider does not support clone", e);
+            }
+        }
+    }
+
+    /**
+     * 단일 스레드 전용 해시 상태 (Mac + 재사용 버퍼)
+     */
+    private static final class Hasher {
+
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final Mac mac;
+        private final byte[] digest;
+        private final char[] hex;
+        private byte[] input = new byte[128];
+
+        Hasher(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+            this.hex = new char[digest.length * 2];
+        }
+
+        String hash(String apiKey) {
+            int length = apiKey.length();
+            if (isAscii(apiKey, length)) {
+                if (input.length < length) {
+                    input = new byte[Math.max(length, input.length * 2)];
+                }
+                for (int i = 0; i < length; i++) {
+                    input[i] = (byte) apiKey.charAt(i);
+                }
+                mac.update(input, 0, length);
+                // 원문 키가 풀에 남지 않도록 즉시 지움
+                Arrays.fill(input, 0, length, (byte) 0);
+            } else {
+                mac.update(apiKey.getBytes(StandardCharsets.UTF_8));
+            }
+
+            try {
+                mac.doFinal(digest, 0);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException("HMAC-SHA256 hashing failed", e);
+            }
+
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0x0f];
+                hex[i * 2 + 1] = HEX[digest[i] & 0x0f];
+            }
+            return new String(hex);
+        }
+
+        private static boolean isAscii(String value, int length) {
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 }
@@ -0,0 +1,194 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.ThrottledException;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.UpstreamConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 적응형 업스트림 동시 호출 한도
+ * - 부하가 늘수록 느려지고 일정 동시 요청 수를 넘으면 429를 보내는 대체 서버에 대해
+ *   고정 한도와 AIMD 한도의 업스트림 429 수를 비교
+ * - 대기열 가득 참/대기 기한 초과 시 503 + Retry-After, 지표 노출
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final int CALLS = 300;
+    private static final int MAX_LIMIT = 64;
+    private static final int UPSTREAM_CAPACITY = 16;
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 32,
+                Duration.ofMinutes(1), Duration.ZERO, CALLS, CALLS, Duration.ofSeconds(1),
+                Duration.ofSeconds(10), Duration.ofSeconds(30), false));
+        openAIService = new OpenAIService(httpClient, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void adaptiveLimitBacksOffWhenUpstreamDegrades() throws Exception {
+        server.latencyMs(20);
+        server.latencyPerInFlightMs(5);
+        server.overloadAbove(UPSTREAM_CAPACITY);
+
+        UpstreamConcurrencyLimit fixed = new UpstreamConcurrencyLimit(new SimpleMeterRegistry(),
+                MAX_LIMIT, MAX_LIMIT, MAX_LIMIT, 0.9, 2.0, CALLS, 30_000);
+        Result before = run(fixed);
+        int rejectedBefore = server.overloadedResponses();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamConcurrencyLimit adaptive = new UpstreamConcurrencyLimit(registry,
+                4, MAX_LIMIT, MAX_LIMIT, 0.9, 2.0, CALLS, 30_000);
+        Result after = run(adaptive);
+        int rejectedAfter = server.overloadedResponses() - rejectedBefore;
+
+        System.out.println("고정 한도 " + MAX_LIMIT + ": 성공 " + before.succeeded() + ", 업스트림 429 " + rejectedBefore
+                + ", 소요 시간 " + before.elapsedMs() + "ms");
+        System.out.println("적응형 한도: 성공 " + after.succeeded() + ", 업스트림 429 " + rejectedAfter
+                + ", 소요 시간 " + after.elapsedMs() + "ms, 최종 한도 " + adaptive.currentLimit());
+
+        assertTrue(after.succeeded() > before.succeeded());
+        assertTrue(rejectedAfter < rejectedBefore / 2,
+                "적응형 한도는 업스트림 429를 크게 줄여야 합니다: " + rejectedAfter + " vs " + rejectedBefore);
+        assertTrue(adaptive.currentLimit() < MAX_LIMIT);
+        assertEquals(adaptive.currentLimit(), registry.get("upstream.concurrency.limit").gauge().value());
+        assertEquals(0, adaptive.inFlight());
+        assertEquals(0, adaptive.queueDepth());
+    }
+
+    @Test
+    void shedsWithRetryAfterWhenQueueIsFullOrDeadlinePasses() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamConcurrencyLimit limit = new UpstreamConcurrencyLimit(registry, 1, 1, 1, 0.9, 2.0, 1, 5_000);
+
+        UpstreamConcurrencyLimit.Permit held = limit.acquire();
+
+        // 대기 기한 초과
+        ThrottledException deadline = assertThrows(ThrottledException.class,
+                () -> limit.acquire(Duration.ofMillis(50)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, deadline.getHttpStatus());
+        assertTrue(deadline.getRetryAfterSeconds() >= 1);
+        assertEquals(0, limit.queueDepth());
+
+        // 대기열(1)이 차면 기다리지 않고 바로 거절
+        CompletableFuture<UpstreamConcurrencyLimit.Permit> waiting = CompletableFuture.supplyAsync(limit::acquire,
+                Executors.newVirtualThreadPerTaskExecutor());
+        awaitQueueDepth(limit, 1);
+        assertEquals(1.0, registry.get("upstream.concurrency.queue_depth").gauge().value());
+
+        long start = System.nanoTime();
+        assertThrows(ThrottledException.class, limit::acquire);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+
+        // 반납하면 대기 중인 요청이 허가를 받음
+        held.close();
+        held.close();
+        UpstreamConcurrencyLimit.Permit granted = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limit.inFlight());
+        granted.close();
+        assertEquals(0, limit.inFlight());
+
+        assertEquals(1.0, registry.get("upstream.concurrency.rejected").tag("reason", "deadline").counter().count());
+        assertEquals(1.0, registry.get("upstream.concurrency.rejected").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    void latencySampleStartsAtUpstreamCall() throws Exception {
+        UpstreamConcurrencyLimit limit = new UpstreamConcurrencyLimit(new SimpleMeterRegistry(),
+                4, 8, MAX_LIMIT, 0.9, 2.0, CALLS, 30_000);
+        // 기준 지연 약 20ms
+        sample(limit, 0, true);
+        assertEquals(8, limit.currentLimit());
+
+        // 허가 뒤 DB 작업(200ms)은 업스트림 지연이 아님
+        sample(limit, 200, true);
+        assertEquals(8, limit.currentLimit());
+
+        // 시작 시각을 표시하지 않으면 허가 시각부터 측정되어 느린 응답으로 봄
+        sample(limit, 200, false);
+        assertEquals(7, limit.currentLimit());
+    }
+
+    private static void sample(UpstreamConcurrencyLimit limit, long beforeUpstreamMs, boolean markStart)
+            throws InterruptedException {
+        try (UpstreamConcurrencyLimit.Permit permit = limit.acquire()) {
+            Thread.sleep(beforeUpstreamMs);
+            if (markStart) {
+                permit.markUpstreamStart();
+            }
+            Thread.sleep(20);
+            permit.onSuccess();
+        }
+    }
+
+    private Result run(UpstreamConcurrencyLimit limit) throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CALLS; i++) {
+                // 요청마다 내용이 달라 합치기(single-flight) 대상이 아님
+                String content = "질문 " + i;
+                futures.add(executor.submit(() -> {
+                    try (UpstreamConcurrencyLimit.Permit permit = limit.acquire()) {
+                        try {
+                            CompletionResult result = openAIService.complete(new ArrayList<>(), content, null);
+                            permit.onSuccess();
+                            assertEquals(FakeOpenAIServer.REPLY, result.content());
+                            succeeded.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            permit.onFailure(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        return new Result(succeeded.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void awaitQueueDepth(UpstreamConcurrencyLimit limit, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limit.queueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, limit.queueDepth());
+    }
+
+    private record Result(int succeeded, long elapsedMs) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.util.ApiKeyHashUtil;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyHashUtilTest {
+
+    private static final String PEPPER = "test-pepper";
+
+    @Test
+    void matchesReferenceHmac() throws Exception {
+        ApiKeyHashUtil util = new ApiKeyHashUtil(PEPPER);
+
+        for (String apiKey : List.of("sk-proj-abc123", "sk-" + "x".repeat(300), "sk-한글키")) {
+            assertEquals(referenceHash(PEPPER, apiKey), util.hash(apiKey));
+        }
+    }
+
+    @Test
+    void previousPepperIsVerifiable() throws Exception {
+        ApiKeyHashUtil util = new ApiKeyHashUtil("new-pepper", PEPPER);
+
+        assertTrue(util.hasPreviousPepper());
+        assertEquals(referenceHash("new-pepper", "sk-rotate"), util.hash("sk-rotate"));
+        assertEquals(referenceHash(PEPPER, "sk-rotate"), util.hashWithPreviousPepper("sk-rotate"));
+        assertNull(new ApiKeyHashUtil(PEPPER).hashWithPreviousPepper("sk-rotate"));
+    }
+
+    @Test
+    void concurrentHashingOnVirtualThreads() throws Exception {
+        ApiKeyHashUtil util = new ApiKeyHashUtil(PEPPER);
+        Set<String> mismatches = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = IntStream.range(0, 10_000)
+                    .mapToObj(i -> executor.submit(() -> {
+                        String apiKey = "sk-key-" + (i % 100);
+                        try {
+                            if (!referenceHash(PEPPER, apiKey).equals(util.hash(apiKey))) {
+                                mismatches.add(apiKey);
+                            }
+                        } catch (Exception e) {
+                            mismatches.add(apiKey);
+                        }
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertTrue(mismatches.isEmpty(), "동시 해시 결과 불일치: " + mismatches);
+    }
+
+    private static String referenceHash(String pepper, String apiKey) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(pepper.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(apiKey.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,110 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.cache.ApiKeyPrincipal;
+import com.minje.chatbot.cache.ApiKeyUserCache;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.util.ApiKeyHashUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ApiKeyUserCacheTest {
+
+    private static final String RAW_KEY = "sk-test-cache-key";
+    private static final int ITERATIONS = 100_000;
+
+    private UserRepository userRepository;
+    private ApiKeyHashUtil apiKeyHashUtil;
+    private ApiKeyUserCache apiKeyUserCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        apiKeyHashUtil = new ApiKeyHashUtil("test-pepper");
+        apiKeyUserCache = new ApiKeyUserCache(userRepository, apiKeyHashUtil, new SimpleMeterRegistry(), 100, 300);
+
+        String hashedKey = apiKeyHashUtil.hash(RAW_KEY);
+        when(userRepository.findByApiKey(hashedKey))
+                .thenReturn(Optional.of(User.builder().id(1L).apiKey(hashedKey).build()));
+    }
+
+    @Test
+    void cacheHitsSkipDatabase() {
+        System.out.println("=== API Key 캐시 마이크로벤치마크 ===");
+
+        // 워밍업 (첫 호출만 DB 조회)
+        apiKeyUserCache.resolve(RAW_KEY);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            ApiKeyPrincipal principal = apiKeyUserCache.resolve(RAW_KEY);
+            assertEquals(1L, principal.userId());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("캐시 적중 평균: " + (elapsed / ITERATIONS) + " ns/op, DB 조회: "
+                + mockingDetails(userRepository).getInvocations().size() + "회");
+
+        verify(userRepository, times(1)).findByApiKey(anyString());
+        assertEquals(ITERATIONS, apiKeyUserCache.stats().hitCount());
+        assertEquals(1, apiKeyUserCache.stats().missCount());
+    }
+
+    @Test
+    void unknownKeyIsNotCached() {
+        assertNull(apiKeyUserCache.resolve("sk-unknown"));
+        assertNull(apiKeyUserCache.resolve("sk-unknown"));
+
+        // 미등록 키는 자동 등록 직후 바로 조회될 수 있도록 부정 캐시하지 않는다
+        verify(userRepository, times(2)).findByApiKey(apiKeyHashUtil.hash("sk-unknown"));
+    }
+
+    @Test
+    void evictUserInvalidatesEntries() {
+        apiKeyUserCache.resolve(RAW_KEY);
+        apiKeyUserCache.evictUser(1L);
+        apiKeyUserCache.resolve(RAW_KEY);
+
+        verify(userRepository, times(2)).findByApiKey(anyString());
+    }
+
+    @Test
+    void previousPepperKeyIsRehashedOnceOutsideTheLoader() {
+        ApiKeyHashUtil rotated = new ApiKeyHashUtil("new-pepper", "test-pepper");
+        ApiKeyUserCache cache = new ApiKeyUserCache(userRepository, rotated, new SimpleMeterRegistry(), 100, 300);
+        User user = User.builder().id(1L).apiKey(apiKeyHashUtil.hash(RAW_KEY)).build();
+        when(userRepository.findByApiKey(rotated.hashWithPreviousPepper(RAW_KEY))).thenReturn(Optional.of(user));
+
+        ApiKeyPrincipal principal = cache.resolve(RAW_KEY);
+        cache.resolve(RAW_KEY);
+
+        assertEquals(1L, principal.userId());
+        assertEquals(rotated.hash(RAW_KEY), principal.hashedKey());
+        assertEquals(rotated.hash(RAW_KEY), user.getApiKey());
+        verify(userRepository, times(1)).save(user);
+    }
+
+    @Test
+    void failedRehashDoesNotFailAuthentication() {
+        ApiKeyHashUtil rotated = new ApiKeyHashUtil("new-pepper", "test-pepper");
+        ApiKeyUserCache cache = new ApiKeyUserCache(userRepository, rotated, new SimpleMeterRegistry(), 100, 300);
+        String previousHash = rotated.hashWithPreviousPepper(RAW_KEY);
+        when(userRepository.findByApiKey(previousHash))
+                .thenAnswer(invocation -> Optional.of(User.builder().id(1L).apiKey(previousHash).build()));
+        when(userRepository.save(any(User.class))).thenThrow(new IllegalStateException("DB down"));
+
+        assertEquals(1L, cache.resolve(RAW_KEY).userId());
+        // 저장에 실패한 항목은 남기지 않으므로 다음 요청에서 다시 조회하고 재해시를 시도
+        assertEquals(1L, cache.resolve(RAW_KEY).userId());
+        verify(userRepository, times(2)).findByApiKey(previousHash);
+        verify(userRepository, times(2)).save(any(User.class));
+    }
+}
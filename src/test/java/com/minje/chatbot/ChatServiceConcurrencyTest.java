@@ -0,0 +1,102 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.dto.ChatRequest;
+import com.minje.chatbot.dto.ChatResponse;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=" + ChatServiceConcurrencyTest.POOL_SIZE)
+class ChatServiceConcurrencyTest {
+
+    static final int POOL_SIZE = 4;
+    private static final int CONCURRENT_CHATS = 16;
+    private static final long UPSTREAM_LATENCY_MS = 1000;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoBean
+    private OpenAIService openAIService;
+
+    @Test
+    void concurrentChatsReleaseConnectionsWhileWaitingOnUpstream() throws Exception {
+        System.out.println("=== 동시 채팅 커넥션 점유 테스트 ===");
+
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        // 모든 턴이 업스트림 호출 안에 동시에 머무는 순간의 활성 커넥션 수
+        CountDownLatch allParked = new CountDownLatch(CONCURRENT_CHATS);
+        AtomicInteger activeWhileParked = new AtomicInteger(-1);
+
+        when(openAIService.getMaxTokens()).thenReturn(100);
+        when(openAIService.complete(anyList(), anyString(), any(), anyBoolean())).thenAnswer(invocation -> {
+            allParked.countDown();
+            if (allParked.await(UPSTREAM_LATENCY_MS * 10, TimeUnit.MILLISECONDS)) {
+                activeWhileParked.accumulateAndGet(pool.getActiveConnections(), Math::max);
+            }
+            Thread.sleep(UPSTREAM_LATENCY_MS);
+            return new CompletionResult("stub response", 10, 5);
+        });
+
+        User user = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build());
+
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_CHATS);
+        try {
+            long start = System.nanoTime();
+            List<Future<ChatResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CHATS; i++) {
+                ChatRequest request = ChatRequest.builder().content("동시 요청 " + i).build();
+                futures.add(clients.submit(() -> chatService.sendMessage(user.getId(), request)));
+            }
+
+            for (Future<ChatResponse> future : futures) {
+                ChatResponse response = future.get(30, TimeUnit.SECONDS);
+                assertNotNull(response.getAssistantMessage().getId());
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            System.out.println("동시 채팅: " + CONCURRENT_CHATS + ", 풀 크기: " + POOL_SIZE
+                    + ", 업스트림 대기 중 활성 커넥션: " + activeWhileParked.get() + ", 소요 시간: " + elapsedMs + "ms");
+
+            // 업스트림 대기 중 커넥션을 잡고 있었다면 풀 크기(4)보다 많은 턴이 동시에 업스트림 호출에 들어갈 수 없다
+            assertEquals(0, allParked.getCount(), "풀 크기보다 많은 턴이 동시에 업스트림을 기다리지 못했습니다");
+            assertEquals(0, activeWhileParked.get(), "업스트림 대기 중 커넥션을 잡고 있습니다");
+            assertTrue(elapsedMs < UPSTREAM_LATENCY_MS * 2,
+                    "업스트림 대기 중 커넥션이 반납되지 않았습니다: " + elapsedMs + "ms");
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
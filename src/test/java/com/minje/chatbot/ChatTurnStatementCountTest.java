@@ -0,0 +1,123 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.dto.ChatRequest;
+import com.minje.chatbot.dto.ChatResponse;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 채팅 턴당 SQL 수 — 시퀀스 ID + JDBC 배치로 INSERT를 묶음
+ * 이전(IDENTITY): 새 대화 턴 7회 (대화/SYSTEM/USER/ASSISTANT INSERT 각각 + 이력 조회 + 제목 조회/UPDATE),
+ * 이어지는 턴 6회 (제목 확인용 대화 재조회 포함)
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "token-quota.enabled=false"
+})
+class ChatTurnStatementCountTest {
+
+    private static final int TURNS = 20;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private OpenAIService openAIService;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        when(openAIService.getMaxTokens()).thenReturn(100);
+        when(openAIService.complete(anyList(), anyString(), any(), anyBoolean()))
+                .thenReturn(new CompletionResult("stub response", 10, 5));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        // 시퀀스 풀을 미리 채움
+        newConversationTurn();
+    }
+
+    @Test
+    void newConversationTurnIsThreeStatements() {
+        long total = 0;
+        for (int i = 0; i < TURNS; i++) {
+            statistics.clear();
+            ChatResponse response = newConversationTurn();
+            long statements = statistics.getPrepareStatementCount();
+            total += statements;
+
+            // 대화 + SYSTEM/USER/ASSISTANT 메시지
+            assertEquals(4, statistics.getEntityInsertCount());
+            assertEquals(0, statistics.getEntityUpdateCount());
+            assertNotNull(response.getUserMessage().getId());
+            assertTrue(response.getAssistantMessage().getId() > response.getUserMessage().getId());
+        }
+        System.out.printf("새 대화 턴 SQL: 평균 %.2f회 (이전 IDENTITY 7회)%n", (double) total / TURNS);
+
+        // 대화 INSERT + SYSTEM/USER 배치 INSERT + ASSISTANT INSERT, 시퀀스 조회는 50개당 한 번
+        assertTrue(total <= 3L * TURNS + 3, "턴당 SQL이 많습니다: 총 " + total);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM conversations WHERE user_id = ? AND (title IS NULL OR title = '')",
+                Integer.class, userId));
+    }
+
+    @Test
+    void followUpTurnSkipsTitleLookup() {
+        Long conversationId = newConversationTurn().getConversationId();
+
+        long total = 0;
+        for (int i = 0; i < TURNS; i++) {
+            statistics.clear();
+            chatService.sendMessage(userId, ChatRequest.builder()
+                    .conversationId(conversationId)
+                    .content("이어지는 질문 " + i)
+                    .build());
+            total += statistics.getPrepareStatementCount();
+            assertEquals(2, statistics.getEntityInsertCount());
+        }
+        System.out.printf("이어지는 턴 SQL: 평균 %.2f회 (이전 IDENTITY 6회)%n", (double) total / TURNS);
+
+        // 대화 조회 + USER INSERT + ASSISTANT INSERT (시스템 프롬프트와 이력은 ConversationHistoryCache)
+        assertTrue(total <= 3L * TURNS + 1, "턴당 SQL이 많습니다: 총 " + total);
+        assertEquals(1 + 2 * (TURNS + 1), jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM messages WHERE conversation_id = ?", Integer.class, conversationId));
+    }
+
+    private ChatResponse newConversationTurn() {
+        return chatService.sendMessage(userId, ChatRequest.builder()
+                .content("새 대화 질문")
+                .systemPrompt("너는 친절한 도우미야")
+                .build());
+    }
+}
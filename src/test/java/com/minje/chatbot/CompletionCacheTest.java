@@ -0,0 +1,177 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.cache.CompletionCache;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompletionCacheTest {
+
+    private static final String SYSTEM_PROMPT = "너는 사내 FAQ 봇이야. 짧게 답해.";
+
+    private final Map<String, String> redisStore = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StringRedisTemplate redis;
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(ops.get(anyString())).thenAnswer(invocation -> redisStore.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redisStore.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(ops).set(anyString(), anyString(), any(Duration.class));
+        redis = mock(StringRedisTemplate.class);
+        when(redis.opsForValue()).thenReturn(ops);
+
+        server = new FakeOpenAIServer();
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 4,
+                Duration.ofMinutes(1), Duration.ZERO, 16, 16, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), Duration.ofSeconds(10), false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void deterministicRequestsAreServedFromLocalTier() {
+        OpenAIService service = service(newCache(), 0.0);
+
+        CompletionResult first = service.complete(List.of(), "휴가 신청은 어떻게 해?", SYSTEM_PROMPT);
+        CompletionResult second = service.complete(List.of(), "  휴가 신청은   어떻게 해? ", SYSTEM_PROMPT);
+
+        assertEquals(1, server.requests());
+        assertFalse(first.cached());
+        assertTrue(second.cached());
+        assertEquals(first.content(), second.content());
+        assertEquals(1.0, lookups("local", "hit"));
+    }
+
+    @Test
+    void nonDeterministicRequestsBypassCacheUnlessFlagged() {
+        OpenAIService service = service(newCache(), 0.7);
+
+        service.complete(List.of(), "오늘 점심 추천해줘", SYSTEM_PROMPT);
+        service.complete(List.of(), "오늘 점심 추천해줘", SYSTEM_PROMPT);
+        assertEquals(2, server.requests());
+
+        service.complete(List.of(), "회의실 예약 방법", SYSTEM_PROMPT, true);
+        CompletionResult flagged = service.complete(List.of(), "회의실 예약 방법", SYSTEM_PROMPT, true);
+        assertEquals(3, server.requests());
+        assertTrue(flagged.cached());
+    }
+
+    @Test
+    void differentHistoryMissesCache() {
+        OpenAIService service = service(newCache(), 0.0);
+        List<Message> history = List.of(
+                Message.builder().role(Message.Role.USER).content("나는 신입이야").build(),
+                Message.builder().role(Message.Role.ASSISTANT).content("환영합니다!").build());
+
+        service.complete(List.of(), "휴가 신청은 어떻게 해?", SYSTEM_PROMPT);
+        service.complete(history, "휴가 신청은 어떻게 해?", SYSTEM_PROMPT);
+
+        assertEquals(2, server.requests());
+    }
+
+    @Test
+    void redisTierIsSharedAcrossNodes() {
+        service(newCache(), 0.0).complete(List.of(), "비밀번호 초기화 방법", SYSTEM_PROMPT);
+
+        // 로컬 계층이 비어 있는 다른 노드
+        CompletionResult fromOtherNode = service(newCache(), 0.0).complete(List.of(), "비밀번호 초기화 방법", SYSTEM_PROMPT);
+
+        assertEquals(1, server.requests());
+        assertTrue(fromOtherNode.cached());
+        assertEquals(FakeOpenAIServer.REPLY, fromOtherNode.content());
+        assertEquals(1.0, lookups("redis", "hit"));
+    }
+
+    @Test
+    void cachedResponseIsReplayedAsStream() throws Exception {
+        OpenAIService service = service(newCache(), 0.0);
+        service.complete(List.of(), "복지 포인트 사용처", SYSTEM_PROMPT);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> replayed = new AtomicReference<>();
+        service.createChatCompletionStream(List.of(), "복지 포인트 사용처", SYSTEM_PROMPT, new SseEmitter(),
+                new StreamListener() {
+                    @Override
+                    public void onCacheHit(String content) {
+                        replayed.set(content);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onComplete(String content, int completionTokens) {
+                        done.countDown();
+                    }
+                });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(FakeOpenAIServer.REPLY, replayed.get());
+        assertEquals(1, server.requests());
+    }
+
+    @Test
+    void streamedResponseIsCachedForLaterRequests() throws Exception {
+        OpenAIService service = service(newCache(), 0.0);
+
+        CountDownLatch done = new CountDownLatch(1);
+        service.createChatCompletionStream(List.of(), "연차 이월 규정", SYSTEM_PROMPT, new SseEmitter(),
+                new StreamListener() {
+                    @Override
+                    public void onComplete(String content, int completionTokens) {
+                        done.countDown();
+                    }
+                });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        CompletionResult cached = service.complete(List.of(), "연차 이월 규정", SYSTEM_PROMPT);
+        assertTrue(cached.cached());
+        assertEquals(FakeOpenAIServer.REPLY, cached.content());
+        assertEquals(1, server.requests());
+    }
+
+    private CompletionCache newCache() {
+        return new CompletionCache(redis, meterRegistry, true, 100, 300, 3600);
+    }
+
+    private OpenAIService service(CompletionCache cache, double temperature) {
+        return new OpenAIService(httpClient, cache, "gpt-3.5-turbo", 100, temperature);
+    }
+
+    private double lookups(String tier, String result) {
+        return meterRegistry.get("completion.cache.lookups").tag("tier", tier).tag("result", result).counter().count();
+    }
+}
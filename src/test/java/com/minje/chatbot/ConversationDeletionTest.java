@@ -0,0 +1,134 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.exception.CustomException;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 대화 삭제 — 요청은 삭제 표시만 하고, 메시지는 백그라운드에서 짧은 트랜잭션으로 나누어 삭제
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "chat.purge.chunk-size=1000"
+})
+class ConversationDeletionTest {
+
+    private static final int MESSAGES = 50_000;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void largeConversationIsDeletedInBoundedChunks() throws Exception {
+        Long userId = newUser();
+        Long conversationId = seed(userId, MESSAGES);
+        jdbcTemplate.update("INSERT INTO conversation_summaries (conversation_id, content, summarized_until_message_id, "
+                + "token_count, version, created_at, updated_at) VALUES (?, '요약', 0, 10, 0, now(), now())", conversationId);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Timer chunks = meterRegistry.timer("chat.purge.chunk");
+        long chunksBefore = chunks.count();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        chatService.deleteConversation(userId, conversationId);
+        long requestMs = (System.nanoTime() - start) / 1_000_000;
+        long statements = statistics.getPrepareStatementCount();
+
+        // 조회에서는 바로 사라짐
+        CustomException notFound = assertThrows(CustomException.class,
+                () -> chatService.getConversation(userId, conversationId));
+        assertEquals("NOT_FOUND", notFound.getErrorCode());
+        assertEquals(0, chatService.getConversations(userId, PageRequest.of(0, 20)).getTotalElements());
+
+        long purgeStart = System.nanoTime();
+        long deadline = purgeStart + TimeUnit.SECONDS.toNanos(60);
+        while (countRows("conversations", "id", conversationId) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        long purgeMs = (System.nanoTime() - purgeStart) / 1_000_000;
+        long chunkCount = chunks.count() - chunksBefore;
+        double maxChunkMs = chunks.max(TimeUnit.MILLISECONDS);
+
+        System.out.printf("메시지 %d건 대화 삭제: 요청 SQL %d회, 요청 %dms / 정리 %dms, DELETE %d회 (최장 %.1fms)%n",
+                MESSAGES, statements, requestMs, purgeMs, chunkCount, maxChunkMs);
+
+        assertEquals(0, countRows("conversations", "id", conversationId));
+        assertEquals(0, countRows("messages", "conversation_id", conversationId));
+        assertEquals(0, countRows("conversation_summaries", "conversation_id", conversationId));
+        // 대화 조회 + 삭제 표시 UPDATE
+        assertEquals(2, statements);
+        // 한 트랜잭션이 잠그는 행은 최대 chunk-size
+        assertTrue(chunkCount >= MESSAGES / 1000, "메시지를 나누어 삭제하지 않았습니다: " + chunkCount);
+    }
+
+    @Test
+    void deleteAllRemovesOnlyCallersConversations() throws Exception {
+        Long userId = newUser();
+        Long otherUserId = newUser();
+        for (int i = 0; i < 3; i++) {
+            seed(userId, 5);
+        }
+        Long othersConversation = seed(otherUserId, 5);
+
+        assertEquals(3, chatService.deleteAllConversations(userId));
+        assertEquals(0, chatService.getConversations(userId, PageRequest.of(0, 20)).getTotalElements());
+        assertEquals(0, chatService.deleteAllConversations(userId));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (countRows("conversations", "user_id", userId) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, countRows("conversations", "user_id", userId));
+        assertEquals(5, countRows("messages", "conversation_id", othersConversation));
+        assertNotNull(chatService.getConversation(otherUserId, othersConversation));
+    }
+
+    private Long newUser() {
+        return userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+    }
+
+    private Long seed(Long userId, int messages) {
+        Long conversationId = jdbcTemplate.queryForObject("INSERT INTO conversations (user_id, title, created_at, updated_at) "
+                + "VALUES (?, '삭제할 대화', now(), now()) RETURNING id", Long.class, userId);
+        jdbcTemplate.update("""
+                INSERT INTO messages (conversation_id, role, content, token_count, truncated, created_at)
+                SELECT ?, CASE WHEN g % 2 = 0 THEN 'assistant' ELSE 'user' END, 'message ' || g, 5, false,
+                       TIMESTAMP '2026-01-01 00:00:00' + g * INTERVAL '1 second'
+                FROM generate_series(1, ?) g""", conversationId, messages);
+        return conversationId;
+    }
+
+    private int countRows(String table, String column, Long value) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?",
+                Integer.class, value);
+    }
+}
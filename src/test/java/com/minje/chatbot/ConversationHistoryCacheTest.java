@@ -0,0 +1,255 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.cache.ConversationHistoryCache;
+import com.minje.chatbot.dto.ChatRequest;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.MessageWriteBehind;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamHandle;
+import com.minje.chatbot.service.StreamListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 대화 이력 캐시 — 이어지는 턴은 이력 조회 SQL 없이 조립하고, 동시 턴 뒤에도 캐시와 DB의 최근 이력이 같아야 함
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "token-quota.enabled=false",
+        "history-cache.max-messages=40"
+})
+class ConversationHistoryCacheTest {
+
+    private static final int THREADS = 8;
+    private static final int TURNS_PER_THREAD = 10;
+    private static final String SYSTEM_PROMPT = "너는 친절한 도우미야";
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private ConversationHistoryCache conversationHistoryCache;
+
+    @Autowired
+    private MessageWriteBehind messageWriteBehind;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private OpenAIService openAIService;
+
+    private final AtomicReference<List<Message>> lastHistory = new AtomicReference<>();
+    private ExecutorService upstream;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        upstream = Executors.newVirtualThreadPerTaskExecutor();
+        when(openAIService.getMaxTokens()).thenReturn(100);
+        when(openAIService.complete(anyList(), anyString(), any(), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    lastHistory.set(List.copyOf(invocation.<List<Message>>getArgument(0)));
+                    return new CompletionResult("응답: " + invocation.getArgument(1), 10, 5);
+                });
+        when(openAIService.createChatCompletionStream(anyList(), anyString(), any(), any(), any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> {
+                    String reply = "스트림 응답: " + invocation.getArgument(1);
+                    StreamListener listener = invocation.getArgument(4);
+                    upstream.submit(() -> {
+                        Thread.sleep(5);
+                        listener.onFirstChunk();
+                        listener.onComplete(reply, 5);
+                        return null;
+                    });
+                    return StreamHandle.NONE;
+                });
+        userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.shutdownNow();
+    }
+
+    @Test
+    void concurrentTurnsKeepCacheConsistentWithDatabase() throws Exception {
+        Long conversationId = newConversation();
+
+        // 같은 대화에 동기/스트리밍 턴을 섞어 동시에 보냄
+        ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < TURNS_PER_THREAD; i++) {
+                        ChatRequest request = ChatRequest.builder()
+                                .conversationId(conversationId)
+                                .content("질문 " + thread + "-" + i)
+                                .build();
+                        if (i % 2 == 0) {
+                            chatService.sendMessage(userId, request);
+                        } else {
+                            chatService.sendMessageStream(userId, request);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        int expected = 1 + 2 * (1 + THREADS * TURNS_PER_THREAD);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (countMessages(conversationId) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, countMessages(conversationId));
+        // 저장된 응답이 캐시에 추가될 때까지
+        messageWriteBehind.awaitPending(conversationId);
+
+        ConversationHistoryCache.Window window = conversationHistoryCache.get(conversationId);
+        List<Long> cached = window.messages().stream().map(ConversationHistoryCache.CachedMessage::id).toList();
+        List<Long> database = jdbcTemplate.queryForList("""
+                SELECT id FROM (SELECT id, created_at FROM messages WHERE conversation_id = ? AND role <> 'system'
+                                ORDER BY created_at DESC, id DESC LIMIT 40) recent
+                ORDER BY created_at, id""", Long.class, conversationId);
+
+        assertEquals(database, cached);
+        assertEquals(SYSTEM_PROMPT, window.systemPrompt());
+        assertFalse(window.complete());
+    }
+
+    @Test
+    void steadyStateTurnsReadHistoryWithoutSql() {
+        Long conversationId = newConversation();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        double hitsBefore = meterRegistry.counter("history.cache.lookups", "tier", "local", "result", "hit").count();
+
+        int turns = 10;
+        long statements = 0;
+        for (int i = 0; i < turns; i++) {
+            statistics.clear();
+            chatService.sendMessage(userId, ChatRequest.builder()
+                    .conversationId(conversationId)
+                    .content("이어지는 질문 " + i)
+                    .build());
+            statements += statistics.getPrepareStatementCount();
+            // 시스템 프롬프트/이력 조회 없음 (대화는 ID로 조회)
+            assertEquals(0, statistics.getQueryExecutionCount());
+        }
+
+        double hits = meterRegistry.counter("history.cache.lookups", "tier", "local", "result", "hit").count() - hitsBefore;
+        System.out.printf("이어지는 턴 SQL: 평균 %.2f회, 이력 캐시 적중 %d/%d%n",
+                (double) statements / turns, (long) hits, turns);
+        assertEquals(turns, hits);
+        // 대화 조회 + USER INSERT + ASSISTANT INSERT
+        assertTrue(statements <= 3L * turns + 1, "턴당 SQL이 많습니다: 총 " + statements);
+
+        // 마지막 턴의 이력은 DB에 저장된 순서와 같음 (현재 질문 제외)
+        List<String> database = jdbcTemplate.queryForList("""
+                SELECT content FROM messages WHERE conversation_id = ? AND role <> 'system'
+                ORDER BY created_at, id""", String.class, conversationId);
+        List<String> prompted = lastHistory.get().stream().map(Message::getContent).toList();
+        assertEquals(database.subList(0, database.size() - 2), prompted);
+    }
+
+    @Test
+    void coldConversationIsLoadedOnce() {
+        Long conversationId = jdbcTemplate.queryForObject("INSERT INTO conversations (user_id, title, created_at, updated_at) "
+                + "VALUES (?, '기존 대화', now(), now()) RETURNING id", Long.class, userId);
+        jdbcTemplate.update("INSERT INTO messages (conversation_id, role, content, token_count, truncated, created_at) "
+                + "VALUES (?, 'system', ?, 10, false, TIMESTAMP '2026-01-01 00:00:00')", conversationId, SYSTEM_PROMPT);
+        // 창(40건)보다 많지만 토큰 예산은 창 안에서 끝남
+        jdbcTemplate.update("""
+                INSERT INTO messages (conversation_id, role, content, token_count, truncated, created_at)
+                SELECT ?, CASE WHEN g % 2 = 0 THEN 'assistant' ELSE 'user' END, 'message ' || g, 200, false,
+                       TIMESTAMP '2026-01-01 00:00:00' + g * INTERVAL '1 second'
+                FROM generate_series(1, 100) g""", conversationId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        sendFollowUp(conversationId, "첫 질문");
+        // 시스템 프롬프트 + 최근 이력 한 번씩
+        assertEquals(2, statistics.getQueryExecutionCount());
+        assertEquals("message 100", lastHistory.get().getLast().getContent());
+
+        statistics.clear();
+        sendFollowUp(conversationId, "두 번째 질문");
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals("응답: 첫 질문", lastHistory.get().getLast().getContent());
+        assertEquals(SYSTEM_PROMPT, conversationHistoryCache.peek(conversationId).systemPrompt());
+    }
+
+    @Test
+    void deletedConversationIsEvicted() {
+        Long conversationId = newConversation();
+        assertNotNull(conversationHistoryCache.peek(conversationId));
+
+        chatService.deleteConversation(userId, conversationId);
+
+        assertNull(conversationHistoryCache.peek(conversationId));
+    }
+
+    private Long newConversation() {
+        return chatService.sendMessage(userId, ChatRequest.builder()
+                .content("새 대화 질문")
+                .systemPrompt(SYSTEM_PROMPT)
+                .build()).getConversationId();
+    }
+
+    private void sendFollowUp(Long conversationId, String content) {
+        chatService.sendMessage(userId, ChatRequest.builder()
+                .conversationId(conversationId)
+                .content(content)
+                .build());
+    }
+
+    private int countMessages(Long conversationId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages WHERE conversation_id = ?",
+                Integer.class, conversationId);
+    }
+}
@@ -0,0 +1,136 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.dto.ConversationDTO;
+import com.minje.chatbot.entity.Conversation;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.ConversationRepository;
+import com.minje.chatbot.repository.MessageRepository;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 대화 목록 조회의 SQL 수 — 페이지 크기/메시지 수와 무관하게 일정해야 함 (대화별 메시지 로딩 N+1 없음)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ConversationListingQueryTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void listingIssuesConstantNumberOfStatements() {
+        Long small = seed(5, 2);
+        Long large = seed(50, 40);
+
+        long smallStatements = countStatements(small, 5);
+        long largeStatements = countStatements(large, 50);
+
+        System.out.println("대화 목록 SQL 수: 5건×메시지 2 = " + smallStatements + ", 50건×메시지 40 = " + largeStatements);
+        // 페이지 조회 + COUNT + 메시지 집계
+        assertEquals(3, smallStatements);
+        assertEquals(smallStatements, largeStatements);
+    }
+
+    @Test
+    void listingIncludesMessageCountAndLastMessagePreview() {
+        Long userId = seed(3, 4);
+
+        Page<ConversationDTO> page = chatService.getConversations(userId, PageRequest.of(0, 10, Sort.by("createdAt")));
+
+        assertEquals(3, page.getContent().size());
+        for (ConversationDTO conversation : page.getContent()) {
+            assertEquals(4, conversation.getMessageCount());
+            assertEquals(Message.Role.ASSISTANT.getValue(), conversation.getLastMessageRole());
+            assertEquals(100, conversation.getLastMessagePreview().length());
+            assertTrue(conversation.getLastMessagePreview().startsWith("메시지 3 "));
+            assertNotNull(conversation.getLastMessageAt());
+            assertNull(conversation.getMessages());
+        }
+    }
+
+    @Test
+    void lastMessageFollowsTimeOrderAcrossIdBlocks() {
+        User user = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build());
+        Conversation conversation = conversationRepository.save(Conversation.builder()
+                .userId(user.getId())
+                .title("여러 노드의 대화")
+                .build());
+        // 두 노드의 ID 블록(+50 간격)을 번갈아 사용 — 마지막 메시지의 ID가 가장 크지 않음
+        long base = jdbcTemplate.queryForObject("SELECT nextval('messages_id_seq')", Long.class) + 1_000_000;
+        long[] ids = {base + 50, base + 1, base + 51, base + 2};
+        for (int m = 0; m < ids.length; m++) {
+            jdbcTemplate.update("INSERT INTO messages (id, conversation_id, role, content, token_count, truncated, created_at) "
+                            + "VALUES (?, ?, ?, ?, 10, false, TIMESTAMP '2026-01-01 00:00:00' + ? * INTERVAL '1 second')",
+                    ids[m], conversation.getId(), m % 2 == 0 ? "user" : "assistant", "메시지 " + m, m);
+        }
+
+        ConversationDTO listed = chatService.getConversations(user.getId(), PageRequest.of(0, 10)).getContent().get(0);
+
+        assertEquals(4, listed.getMessageCount());
+        assertEquals("메시지 3", listed.getLastMessagePreview());
+        assertEquals(Message.Role.ASSISTANT.getValue(), listed.getLastMessageRole());
+    }
+
+    private long countStatements(Long userId, int pageSize) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Page<ConversationDTO> page = chatService.getConversations(userId,
+                PageRequest.of(0, pageSize, Sort.by("createdAt")));
+        assertEquals(pageSize, page.getContent().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    // 대화 conversations개, 대화마다 USER/ASSISTANT 번갈아 messages개
+    private Long seed(int conversations, int messages) {
+        User user = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build());
+        for (int c = 0; c < conversations; c++) {
+            Conversation conversation = conversationRepository.save(Conversation.builder()
+                    .userId(user.getId())
+                    .title("대화 " + c)
+                    .build());
+            List<Message> batch = new ArrayList<>();
+            for (int m = 0; m < messages; m++) {
+                batch.add(Message.builder()
+                        .conversationId(conversation.getId())
+                        .role(m % 2 == 0 ? Message.Role.USER : Message.Role.ASSISTANT)
+                        .content("메시지 " + m + " " + "가".repeat(200))
+                        .tokenCount(10)
+                        .build());
+            }
+            messageRepository.saveAll(batch);
+        }
+        return user.getId();
+    }
+}
@@ -0,0 +1,236 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.entity.ConversationSummary;
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.repository.ConversationSummaryRepository;
+import com.minje.chatbot.repository.MessageRepository;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.ConversationSummarizer;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.PromptAssembler;
+import com.minje.chatbot.service.TokenCounter;
+import com.minje.chatbot.upstream.UpstreamConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversationSummarizerTest {
+
+    private static final int TRIGGER_TOKENS = 1000;
+    private static final int KEEP_RECENT = 4;
+    private static final int MAX_SLICE_TOKENS = 2000;
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final TokenCounter tokenCounter = new TokenCounter("gpt-3.5-turbo");
+    private final List<Message> conversation = new ArrayList<>();
+    private final AtomicReference<ConversationSummary> stored = new AtomicReference<>();
+    private final List<String> upstreamPrompts = new ArrayList<>();
+    private long nextId = 1;
+    private LongUnaryOperator idOfPosition = position -> nextId++;
+
+    private PromptAssembler promptAssembler;
+    private UpstreamConcurrencyLimit upstreamConcurrencyLimit;
+    private ConversationSummarizer summarizer;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() {
+        MessageRepository messageRepository = mock(MessageRepository.class);
+        when(messageRepository.findByConversationIdAndRoleNotOrderByCreatedAtAscIdAsc(anyLong(), eq(Message.Role.SYSTEM)))
+                .thenAnswer(invocation -> List.copyOf(conversation));
+        when(messageRepository.findUnsummarized(anyLong(), eq(Message.Role.SYSTEM), any(LocalDateTime.class), anyLong()))
+                .thenAnswer(invocation -> {
+                    LocalDateTime createdAt = invocation.getArgument(2);
+                    long id = invocation.getArgument(3);
+                    // conversation은 시간 순
+                    return conversation.stream()
+                            .filter(m -> m.getCreatedAt().isAfter(createdAt)
+                                    || (m.getCreatedAt().isEqual(createdAt) && m.getId() > id))
+                            .toList();
+                });
+        when(messageRepository.findByConversationIdAndRoleNotOrderByCreatedAtDescIdDesc(
+                anyLong(), eq(Message.Role.SYSTEM), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    Pageable pageable = invocation.getArgument(2);
+                    List<Message> newestFirst = conversation.reversed();
+                    int from = (int) Math.min(pageable.getOffset(), newestFirst.size());
+                    int to = Math.min(from + pageable.getPageSize(), newestFirst.size());
+                    return newestFirst.subList(from, to);
+                });
+
+        ConversationSummaryRepository summaryRepository = mock(ConversationSummaryRepository.class);
+        when(summaryRepository.findByConversationId(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(stored.get()));
+        when(summaryRepository.save(any(ConversationSummary.class)))
+                .thenAnswer(invocation -> {
+                    stored.set(invocation.getArgument(0));
+                    return stored.get();
+                });
+
+        // 업스트림 스텁: 받은 프롬프트를 기록하고 짧은 요약을 돌려줌
+        openAIService = mock(OpenAIService.class);
+        when(openAIService.complete(anyList(), anyString(), anyString())).thenAnswer(invocation -> {
+            String transcript = invocation.getArgument(1);
+            upstreamPrompts.add(transcript);
+            return new CompletionResult("요약 #" + upstreamPrompts.size(), tokenCounter.count(transcript), 20);
+        });
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        upstreamConcurrencyLimit = new UpstreamConcurrencyLimit(new SimpleMeterRegistry(), 1, 4, 4, 0.9, 2.0, 10, 1_000);
+        promptAssembler = new PromptAssembler(messageRepository, summaryRepository, tokenCounter,
+                "gpt-3.5-turbo", 500, 3000, 0, true);
+        summarizer = new ConversationSummarizer(messageRepository, summaryRepository, openAIService,
+                promptAssembler, tokenCounter, transactionTemplate, upstreamConcurrencyLimit, true, TRIGGER_TOKENS, KEEP_RECENT, MAX_SLICE_TOKENS);
+    }
+
+    @Test
+    void skipsShortConversations() {
+        addTurns(2);
+
+        assertFalse(summarizer.summarizeNextSlice(1L));
+        assertNull(stored.get());
+        assertTrue(upstreamPrompts.isEmpty());
+    }
+
+    @Test
+    void summarizesOnlyNewSliceIncrementally() {
+        addTurns(20);
+
+        while (summarizer.summarizeNextSlice(1L)) {
+            // 밀린 구간을 모두 요약
+        }
+        ConversationSummary first = stored.get();
+        assertNotNull(first);
+        // 최근 KEEP_RECENT건은 요약하지 않고, 남은 이력은 기준 토큰 미만
+        assertTrue(first.getSummarizedUntilMessageId() <= conversation.get(conversation.size() - KEEP_RECENT - 1).getId());
+        assertTrue(tokensAfter(first.getSummarizedUntilMessageId()) < TRIGGER_TOKENS);
+        int firstRoundCalls = upstreamPrompts.size();
+        Message firstUnsummarized = conversation.stream()
+                .filter(m -> m.getId() > first.getSummarizedUntilMessageId())
+                .findFirst().orElseThrow();
+
+        addTurns(20);
+        assertTrue(summarizer.summarizeNextSlice(1L));
+
+        // 두 번째 요약은 기존 요약 + 이전 경계 이후 메시지만 포함
+        String incremental = upstreamPrompts.get(firstRoundCalls);
+        assertTrue(incremental.contains("[기존 요약]\n" + first.getContent()));
+        assertFalse(incremental.contains("질문 0:"), "이미 요약된 메시지를 다시 보내면 안 됩니다");
+        assertTrue(incremental.contains(firstUnsummarized.getContent()));
+        assertTrue(tokenCounter.count(incremental) <= MAX_SLICE_TOKENS + tokenCounter.count(first.getContent()) + 50);
+    }
+
+    @Test
+    void summarizationHoldsUpstreamPermit() {
+        addTurns(20);
+        AtomicInteger inFlightDuringCall = new AtomicInteger(-1);
+        when(openAIService.complete(anyList(), anyString(), anyString())).thenAnswer(invocation -> {
+            inFlightDuringCall.set(upstreamConcurrencyLimit.inFlight());
+            return new CompletionResult("요약", 10, 5);
+        });
+
+        assertTrue(summarizer.summarizeNextSlice(1L));
+
+        // 채팅과 같은 한도에 포함되고, 끝나면 반납
+        assertEquals(1, inFlightDuringCall.get());
+        assertEquals(0, upstreamConcurrencyLimit.inFlight());
+    }
+
+    @Test
+    void promptUsesSummaryAndTailOnly() {
+        addTurns(20);
+        while (summarizer.summarizeNextSlice(1L)) {
+            // 밀린 구간을 모두 요약
+        }
+        Message current = message(Message.Role.USER, "마지막 질문");
+        conversation.add(current);
+
+        PromptAssembler.AssembledPrompt prompt = promptAssembler.assemble(1L, current, "시스템");
+
+        ConversationSummary summary = stored.get();
+        assertTrue(prompt.systemPrompt().startsWith("시스템"));
+        assertTrue(prompt.systemPrompt().contains(summary.getContent()));
+        // 요약 이후 메시지만, 빠짐없이 포함
+        List<Message> tail = conversation.stream()
+                .filter(m -> !summary.covers(m) && m != current)
+                .toList();
+        assertTrue(tail.size() >= KEEP_RECENT);
+        assertEquals(tail, prompt.history());
+    }
+
+    @Test
+    void interleavedIdBlocksFollowTimeOrder() {
+        // 두 노드가 50개씩 할당받은 ID 블록을 번갈아 사용 — 나중 메시지의 ID가 더 작을 수 있음
+        idOfPosition = position -> position % 2 == 0 ? 51 + position / 2 : 1 + position / 2;
+        addTurns(20);
+        while (summarizer.summarizeNextSlice(1L)) {
+            // 밀린 구간을 모두 요약
+        }
+        Message current = message(Message.Role.USER, "마지막 질문");
+        conversation.add(current);
+
+        PromptAssembler.AssembledPrompt prompt = promptAssembler.assemble(1L, current, "시스템");
+
+        ConversationSummary summary = stored.get();
+        assertNotNull(summary);
+        List<Message> tail = conversation.stream()
+                .filter(m -> !summary.covers(m) && m != current)
+                .toList();
+        // 경계 이후는 시간 순으로 이어진 구간이며 모두 프롬프트에 포함
+        assertEquals(conversation.subList(conversation.size() - 1 - tail.size(), conversation.size() - 1), tail);
+        assertEquals(tail, prompt.history());
+        // 경계 이전 메시지는 모두 요약에 보내짐
+        String summarized = String.join("\n", upstreamPrompts);
+        conversation.stream()
+                .filter(summary::covers)
+                .forEach(m -> assertTrue(summarized.contains(m.getContent()), "요약에서 빠진 메시지: " + m.getId()));
+    }
+
+    private int tokensAfter(long messageId) {
+        return conversation.stream()
+                .filter(m -> m.getId() > messageId)
+                .mapToInt(promptAssembler::tokensOf)
+                .sum();
+    }
+
+    private void addTurns(int turns) {
+        int base = conversation.size() / 2;
+        for (int i = base; i < base + turns; i++) {
+            conversation.add(message(Message.Role.USER, "질문 " + i + ": 트랜잭션 격리 수준의 차이를 알려줘."));
+            conversation.add(message(Message.Role.ASSISTANT,
+                    ("답변 " + i + ": READ COMMITTED는 커밋된 데이터만 읽고, REPEATABLE READ는 같은 행을 다시 읽어도 값이 같습니다. ").repeat(3)));
+        }
+    }
+
+    private Message message(Message.Role role, String content) {
+        int position = conversation.size();
+        return Message.builder()
+                .id(idOfPosition.applyAsLong(position))
+                .conversationId(1L)
+                .role(role)
+                .content(content)
+                .tokenCount(tokenCounter.countMessage(content))
+                .createdAt(START.plusSeconds(position))
+                .build();
+    }
+}
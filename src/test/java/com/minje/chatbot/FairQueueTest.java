@@ -0,0 +1,177 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.ThrottledException;
+import com.minje.chatbot.upstream.TenantPolicy;
+import com.minje.chatbot.upstream.UpstreamConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 테넌트별 공정 대기열 시뮬레이션 (HTTP 없이 허가를 일정 시간 잡는 것으로 업스트림 호출을 대신함)
+ * - 요청을 몰아 보낸 테넌트 하나와 가벼운 테넌트 여럿: 같은 키(FIFO)일 때와 가벼운 테넌트의 대기 시간 비교
+ * - 등급 가중치에 따른 허가 비율, 테넌트별 동시 호출 상한
+ * - 대기 기한 만료와 밀어내기가 겹쳐도 교착 없이 503
+ */
+class FairQueueTest {
+
+    private static final int LIMIT = 4;
+    private static final long HOLD_MS = 50;
+    private static final int HEAVY_CALLS = 200;
+    private static final int LIGHT_TENANTS = 20;
+
+    @Test
+    void lightTenantsAreNotStarvedByHeavyTenant() throws Exception {
+        long fifoWaitMs = maxLightWaitMs(false);
+        long fairWaitMs = maxLightWaitMs(true);
+
+        System.out.println("가벼운 테넌트 최대 대기: 같은 키(FIFO) " + fifoWaitMs + "ms, 테넌트별 공정 대기열 " + fairWaitMs + "ms");
+        // 가벼운 요청 20건이 한도 4로 다섯 차례 안에 처리되어야 함 (FIFO면 무거운 테넌트의 대기열 전체를 기다림)
+        assertTrue(fairWaitMs < 6 * HOLD_MS + 200, "가벼운 테넌트가 오래 기다렸습니다: " + fairWaitMs + "ms");
+        assertTrue(fifoWaitMs > fairWaitMs * 3, "FIFO " + fifoWaitMs + "ms vs 공정 " + fairWaitMs + "ms");
+    }
+
+    @Test
+    void weightsAndPerTenantCapsAreApplied() throws Exception {
+        TenantPolicy policy = new TenantPolicy(new TenantPolicy.Tier(1, 2),
+                Map.of("premium", new TenantPolicy.Tier(3, 2)), Map.of("premium-key", "premium"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamConcurrencyLimit limit = new UpstreamConcurrencyLimit(registry, policy, 1, 1, 1, 0.9, 2.0, 512, 30_000);
+
+        // 허가 하나를 잡아 둔 채로 두 테넌트가 40건씩 대기
+        UpstreamConcurrencyLimit.Permit held = limit.acquire("premium-key");
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 40; i++) {
+                for (String tenant : List.of("premium-key", "basic-key")) {
+                    futures.add(executor.submit(() -> {
+                        try (UpstreamConcurrencyLimit.Permit permit = limit.acquire(tenant)) {
+                            order.add(tenant);
+                        }
+                        return null;
+                    }));
+                }
+            }
+            awaitQueueDepth(limit, 80);
+            held.close();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        // 가중치 3:1 — 앞쪽 20건 중 premium이 약 15건
+        long premium = order.subList(0, 20).stream().filter("premium-key"::equals).count();
+        assertTrue(premium >= 14 && premium <= 16, "premium 허가 수: " + premium);
+        assertEquals(0, limit.inFlight());
+        assertEquals(0, limit.queueDepth());
+        assertEquals(41, registry.get("upstream.concurrency.queue_wait")
+                .tag("tier", "premium").tag("tenant", "premium-key").timer().count());
+        assertEquals(40, registry.get("upstream.concurrency.queue_wait")
+                .tag("tier", TenantPolicy.DEFAULT_TIER).tag("tenant", "other").timer().count());
+
+        // 테넌트 상한(2)을 넘는 요청은 전체 한도에 여유가 있어도 다른 테넌트에게 양보
+        UpstreamConcurrencyLimit wide = new UpstreamConcurrencyLimit(new SimpleMeterRegistry(), policy,
+                8, 8, 8, 0.9, 2.0, 512, 30_000);
+        UpstreamConcurrencyLimit.Permit first = wide.acquire("basic-key");
+        UpstreamConcurrencyLimit.Permit second = wide.acquire("basic-key");
+        assertThrows(ThrottledException.class, () -> wide.acquire("basic-key", Duration.ofMillis(50)));
+        try (UpstreamConcurrencyLimit.Permit other = wide.acquire("premium-key", Duration.ofMillis(50))) {
+            assertEquals(3, wide.inFlight());
+        }
+        first.close();
+        second.close();
+        assertEquals(0, wide.inFlight());
+    }
+
+    @Test
+    void evictionRacingDeadlineDoesNotDeadlock() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UpstreamConcurrencyLimit limit = new UpstreamConcurrencyLimit(registry,
+                TenantPolicy.uniform(Integer.MAX_VALUE), 1, 1, 1, 0.9, 2.0, 2, 30_000);
+        UpstreamConcurrencyLimit.Permit held = limit.acquire("holder");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int round = 0; round < 200; round++) {
+                // 대기열(2)을 채운 무거운 테넌트의 요청이 기한(2ms)에 닿는 순간 다른 테넌트가 도착해 밀어냄
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    futures.add(executor.submit(() -> limit.acquire("heavy", Duration.ofMillis(2))));
+                }
+                awaitQueueDepth(limit, 2);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(1_500 + (round % 10) * 100));
+                futures.add(executor.submit(() -> limit.acquire("light", Duration.ofMillis(1))));
+
+                for (Future<?> future : futures) {
+                    ExecutionException failure = assertThrows(ExecutionException.class,
+                            () -> future.get(5, TimeUnit.SECONDS));
+                    assertInstanceOf(ThrottledException.class, failure.getCause());
+                }
+                assertEquals(0, limit.queueDepth());
+                assertEquals(1, limit.inFlight());
+            }
+        }
+        held.close();
+        assertEquals(0, limit.inFlight());
+        System.out.println("기한 만료와 겹친 밀어내기: "
+                + registry.get("upstream.concurrency.rejected").tag("reason", "evicted").counter().count() + "회");
+    }
+
+    private long maxLightWaitMs(boolean fair) throws Exception {
+        UpstreamConcurrencyLimit limit = new UpstreamConcurrencyLimit(new SimpleMeterRegistry(),
+                TenantPolicy.uniform(Integer.MAX_VALUE), LIMIT, LIMIT, LIMIT, 0.9, 2.0, 512, 30_000);
+        AtomicInteger maxLightWaitMs = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < HEAVY_CALLS; i++) {
+                futures.add(executor.submit(() -> hold(limit, "heavy")));
+            }
+            Thread.sleep(100);
+            for (int i = 0; i < LIGHT_TENANTS; i++) {
+                String tenant = fair ? "light-" + i : "heavy";
+                futures.add(executor.submit(() -> {
+                    long start = System.nanoTime();
+                    hold(limit, tenant);
+                    long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - HOLD_MS;
+                    maxLightWaitMs.accumulateAndGet((int) waitedMs, Math::max);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        assertEquals(0, limit.inFlight());
+        return maxLightWaitMs.get();
+    }
+
+    private static Void hold(UpstreamConcurrencyLimit limit, String tenant) throws InterruptedException {
+        try (UpstreamConcurrencyLimit.Permit permit = limit.acquire(tenant)) {
+            Thread.sleep(HOLD_MS);
+            permit.onSuccess();
+        }
+        return null;
+    }
+
+    private static void awaitQueueDepth(UpstreamConcurrencyLimit limit, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limit.queueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, limit.queueDepth());
+    }
+}
@@ -0,0 +1,244 @@
+package com.minje.chatbot;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 테스트용 인프로세스 OpenAI Chat Completions 대체 서버 (JDK HttpServer)
+ * - POST /v1/chat/completions: 일반 JSON 응답 또는 "stream":true면 SSE 청크 + [DONE]
+ * - 응답 지연, 스트림 청크 간 지연, 오류 상태 코드를 주입할 수 있음
+ * - 다음 N개 요청만 실패(Retry-After 헤더 포함 가능)하거나 지연시켜 재시도/헤징 흉내
+ * - 부하에 따라 나빠지는 업스트림 흉내: 동시 요청 수에 비례한 추가 지연, 동시 요청 수 초과 시 429
+ */
+class FakeOpenAIServer implements AutoCloseable {
+
+    static final List<String> REPLY_CHUNKS = List.of("안녕하세요", "! ", "테스트", " 응답입니다.");
+    static final String REPLY = String.join("", REPLY_CHUNKS);
+    static final int PROMPT_TOKENS = 12;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private volatile long latencyMs;
+    private volatile long chunkDelayMs;
+    private volatile int failStatus;
+    private volatile long latencyPerInFlightMs;
+    private volatile int overloadAbove = Integer.MAX_VALUE;
+    private final AtomicInteger overloaded = new AtomicInteger();
+    private final AtomicInteger failNextCount = new AtomicInteger();
+    private final AtomicInteger stallNextCount = new AtomicInteger();
+    private volatile int failNextStatus;
+    private volatile String retryAfter;
+    private volatile long stallMs;
+    private volatile int streamRepeat = 1;
+    private final AtomicInteger chunksSent = new AtomicInteger();
+    private final AtomicInteger abortedStreams = new AtomicInteger();
+
+    FakeOpenAIServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/";
+    }
+
+    void latencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    void chunkDelayMs(long chunkDelayMs) {
+        this.chunkDelayMs = chunkDelayMs;
+    }
+
+    void failWith(int status) {
+        this.failStatus = status;
+    }
+
+    /**
+     * 다음 count개 요청만 status로 실패
+     */
+    void failNext(int count, int status) {
+        this.failNextStatus = status;
+        this.failNextCount.set(count);
+    }
+
+    /**
+     * 실패 응답에 붙일 Retry-After 헤더 값 (null이면 없음)
+     */
+    void retryAfter(String retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 다음 count개 요청만 stallMs만큼 추가 지연
+     */
+    void stallNext(int count, long stallMs) {
+        this.stallMs = stallMs;
+        this.stallNextCount.set(count);
+    }
+
+    /**
+     * 스트림 응답에서 REPLY_CHUNKS를 times번 반복 (긴 응답 흉내)
+     */
+    void streamRepeat(int times) {
+        this.streamRepeat = times;
+    }
+
+    /**
+     * 요청마다 (동시 요청 수 × latencyPerInFlightMs)만큼 추가 지연
+     */
+    void latencyPerInFlightMs(long latencyPerInFlightMs) {
+        this.latencyPerInFlightMs = latencyPerInFlightMs;
+    }
+
+    /**
+     * 동시 요청 수가 maxInFlight를 넘으면 429
+     */
+    void overloadAbove(int maxInFlight) {
+        this.overloadAbove = maxInFlight;
+    }
+
+    int overloadedResponses() {
+        return overloaded.get();
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    /**
+     * 스트림으로 보낸 청크 수 (모든 요청 합계)
+     */
+    int chunksSent() {
+        return chunksSent.get();
+    }
+
+    /**
+     * 클라이언트가 연결을 끊어 끝까지 보내지 못한 스트림 수
+     */
+    int abortedStreams() {
+        return abortedStreams.get();
+    }
+
+    List<String> authorizations() {
+        return authorizations;
+    }
+
+    List<String> bodies() {
+        return bodies;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        int concurrent = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(concurrent, Math::max);
+        try {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(body);
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+
+            if (concurrent > overloadAbove) {
+                overloaded.incrementAndGet();
+                send(exchange, 429, "application/json",
+                        "{\"error\":{\"message\":\"rate limited\",\"type\":\"rate_limit_error\"}}");
+                return;
+            }
+
+            long delayMs = latencyMs + concurrent * latencyPerInFlightMs;
+            if (stallNextCount.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                delayMs += stallMs;
+            }
+            if (delayMs > 0) {
+                Thread.sleep(delayMs);
+            }
+
+            int status = failNextCount.getAndUpdate(n -> Math.max(0, n - 1)) > 0 ? failNextStatus : failStatus;
+            if (status > 0) {
+                if (retryAfter != null) {
+                    exchange.getResponseHeaders().set("Retry-After", retryAfter);
+                }
+                send(exchange, status, "application/json",
+                        "{\"error\":{\"message\":\"injected failure\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            if (body.contains("\"stream\":true")) {
+                stream(exchange);
+            } else {
+                send(exchange, 200, "application/json", completionJson());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void stream(HttpExchange exchange) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            for (int i = 0; i < streamRepeat; i++) {
+                for (String chunk : REPLY_CHUNKS) {
+                    if (chunkDelayMs > 0) {
+                        Thread.sleep(chunkDelayMs);
+                    }
+                    out.write(("data: {\"id\":\"chatcmpl-fake\",\"object\":\"chat.completion.chunk\",\"created\":0,"
+                            + "\"model\":\"gpt-3.5-turbo\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\""
+                            + chunk + "\"},\"finish_reason\":null}]}\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    chunksSent.incrementAndGet();
+                }
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            // 클라이언트가 스트림 도중 연결을 끊음
+            abortedStreams.incrementAndGet();
+        }
+    }
+
+    private static String completionJson() {
+        return "{\"id\":\"chatcmpl-fake\",\"object\":\"chat.completion\",\"created\":0,\"model\":\"gpt-3.5-turbo\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + REPLY + "\"},"
+                + "\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":" + PROMPT_TOKENS + ",\"completion_tokens\":" + REPLY_CHUNKS.size()
+                + ",\"total_tokens\":" + (PROMPT_TOKENS + REPLY_CHUNKS.size()) + "}}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
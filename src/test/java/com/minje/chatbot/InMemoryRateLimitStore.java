@@ -0,0 +1,60 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.ratelimit.RateLimitStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 여러 노드가 공유하는 Redis 대용 인메모리 카운터 (네트워크 왕복 지연 모사 가능)
+ */
+class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final Map<String, long[]> counters = new HashMap<>();
+    private final long roundTripMicros;
+    private final AtomicLong calls = new AtomicLong();
+
+    InMemoryRateLimitStore(long roundTripMicros) {
+        this.roundTripMicros = roundTripMicros;
+    }
+
+    @Override
+    public List<WindowCount> incrementAll(List<String> keys, List<Long> deltas, long windowSeconds) {
+        calls.incrementAndGet();
+        simulateRoundTrip();
+
+        List<WindowCount> result = new ArrayList<>(keys.size());
+        synchronized (counters) {
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < keys.size(); i++) {
+                // [0] = count, [1] = expireAt
+                long[] counter = counters.get(keys.get(i));
+                if (counter == null || counter[1] <= now) {
+                    counter = new long[]{0, now + TimeUnit.SECONDS.toMillis(windowSeconds)};
+                    counters.put(keys.get(i), counter);
+                }
+                counter[0] += deltas.get(i);
+                result.add(new WindowCount(counter[0], counter[1] - now));
+            }
+        }
+        return result;
+    }
+
+    long calls() {
+        return calls.get();
+    }
+
+    private void simulateRoundTrip() {
+        if (roundTripMicros <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.dto.ConversationDTO;
+import com.minje.chatbot.dto.CursorPage;
+import com.minje.chatbot.dto.MessageDTO;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.exception.CustomException;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 키셋(커서) 페이지네이션 — 누락/중복 없이 양방향으로 이동
+ */
+@SpringBootTest
+class KeysetPaginationTest {
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void conversationPagesWalkForwardAndBackwardWithoutGaps() {
+        Long userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            // 같은 updated_at이 섞여도 id로 순서가 정해져야 함
+            Timestamp updatedAt = Timestamp.valueOf(base.plusMinutes(i / 3));
+            rows.add(new Object[]{userId, "대화 " + i, updatedAt, updatedAt});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO conversations (user_id, title, created_at, updated_at) VALUES (?, ?, ?, ?)", rows);
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM conversations WHERE user_id = ? ORDER BY updated_at DESC, id DESC", Long.class, userId);
+
+        List<Long> forward = new ArrayList<>();
+        List<CursorPage<ConversationDTO>> pages = new ArrayList<>();
+        CursorPage<ConversationDTO> page = chatService.getConversations(userId, null, null, 20);
+        while (true) {
+            pages.add(page);
+            page.getContent().forEach(conversation -> forward.add(conversation.getId()));
+            if (!page.isHasNext()) {
+                break;
+            }
+            page = chatService.getConversations(userId, page.getNextCursor(), null, 20);
+        }
+        assertEquals(expected, forward);
+        assertEquals(List.of(20, 20, 5), pages.stream().map(p -> p.getContent().size()).toList());
+        assertFalse(pages.get(0).isHasPrevious());
+
+        // 마지막 페이지에서 이전 페이지로 돌아가면 두 번째 페이지와 같음
+        CursorPage<ConversationDTO> back = chatService.getConversations(userId, null,
+                pages.get(2).getPreviousCursor(), 20);
+        assertEquals(ids(pages.get(1).getContent()), ids(back.getContent()));
+        assertTrue(back.isHasPrevious());
+        assertTrue(back.isHasNext());
+    }
+
+    @Test
+    void messagePagesFollowCreationOrder() {
+        Long userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        Long conversationId = insertConversation(userId);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            rows.add(new Object[]{conversationId, i % 2 == 0 ? "user" : "assistant", "메시지 " + i,
+                    Timestamp.valueOf(base.plusSeconds(i / 2))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO messages (conversation_id, role, content, token_count, truncated, created_at) "
+                + "VALUES (?, ?, ?, 5, false, ?)", rows);
+
+        List<String> contents = new ArrayList<>();
+        CursorPage<MessageDTO> page = chatService.getMessages(userId, conversationId, null, null, 50);
+        contents.addAll(page.getContent().stream().map(MessageDTO::getContent).toList());
+        while (page.isHasNext()) {
+            page = chatService.getMessages(userId, conversationId, page.getNextCursor(), null, 50);
+            contents.addAll(page.getContent().stream().map(MessageDTO::getContent).toList());
+        }
+        assertEquals(130, contents.size());
+        for (int i = 0; i < 130; i++) {
+            assertEquals("메시지 " + i, contents.get(i));
+        }
+
+        // 마지막 페이지 앞의 50건
+        CursorPage<MessageDTO> earlier = chatService.getMessages(userId, conversationId, null, page.getPreviousCursor(), 50);
+        assertEquals("메시지 50", earlier.getContent().get(0).getContent());
+        assertEquals("메시지 99", earlier.getContent().get(49).getContent());
+    }
+
+    @Test
+    void pageSizeIsCappedAndBadCursorsAreRejected() {
+        Long userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        Long conversationId = insertConversation(userId);
+
+        assertEquals(100, chatService.getMessages(userId, conversationId, null, null, 10_000).getSize());
+        CustomException invalid = assertThrows(CustomException.class,
+                () -> chatService.getConversations(userId, "not-a-cursor", null, 20));
+        assertEquals("BAD_REQUEST", invalid.getErrorCode());
+        assertThrows(CustomException.class, () -> chatService.getConversations(userId, "a", "b", 20));
+        assertThrows(CustomException.class, () -> chatService.getMessages(userId + 1, conversationId, null, null, 20));
+    }
+
+    private Long insertConversation(Long userId) {
+        return jdbcTemplate.queryForObject("INSERT INTO conversations (user_id, title, created_at, updated_at) "
+                + "VALUES (?, '대화', now(), now()) RETURNING id", Long.class, userId);
+    }
+
+    private static List<Long> ids(List<ConversationDTO> conversations) {
+        return conversations.stream().map(ConversationDTO::getId).toList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.minje.chatbot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minje.chatbot.dto.ConversationDTO;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import com.minje.chatbot.service.ConversationExporter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 큰 대화 내보내기 — 힙보다 큰 응답도 일정한 메모리로 스트리밍
+ * 작은 힙(-Xmx256m)에서 실행: ./gradlew smallHeapTest
+ */
+@Tag("small-heap")
+@SpringBootTest
+class LargeConversationExportTest {
+
+    private static final int MESSAGES = 30_000;
+    private static final int CONTENT_LENGTH = 5_000;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void exportsConversationLargerThanHeap() throws Exception {
+        Long userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        Long conversationId = seed(userId, MESSAGES);
+
+        CountingOutputStream out = new CountingOutputStream();
+        long start = System.nanoTime();
+        chatService.exportConversation(userId, conversationId, ConversationExporter.Format.NDJSON).writeTo(out);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        System.out.printf("메시지 %d건 내보내기: %dMB, %dms (최대 힙 %dMB)%n",
+                out.lines, out.bytes >> 20, elapsedMs, maxHeap >> 20);
+        assertEquals(MESSAGES, out.lines);
+        // 전체 목록을 메모리에 올렸다면 OutOfMemoryError
+        assertTrue(out.bytes > maxHeap, "응답이 힙보다 작아 메모리 사용량을 확인할 수 없습니다");
+    }
+
+    @Test
+    void jsonExportMatchesConversationDetail() throws Exception {
+        Long userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        Long conversationId = seed(userId, 7);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chatService.exportConversation(userId, conversationId, ConversationExporter.Format.JSON).writeTo(out);
+        JsonNode exported = objectMapper.readTree(out.toByteArray());
+        ConversationDTO detail = chatService.getConversation(userId, conversationId);
+
+        assertTrue(exported.get("success").asBoolean());
+        JsonNode data = exported.get("data");
+        assertEquals(7, data.get("messageCount").asInt());
+        assertEquals(detail.getTitle(), data.get("title").asText());
+        JsonNode messages = data.get("messages");
+        assertEquals(detail.getMessages().size(), messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(detail.getMessages().get(i))), messages.get(i));
+        }
+    }
+
+    // 서버에서 생성 — 시드 데이터를 테스트 JVM 힙에 올리지 않음
+    private Long seed(Long userId, int messages) {
+        Long conversationId = jdbcTemplate.queryForObject("INSERT INTO conversations (user_id, title, created_at, updated_at) "
+                + "VALUES (?, '긴 대화', now(), now()) RETURNING id", Long.class, userId);
+        jdbcTemplate.update("""
+                INSERT INTO messages (conversation_id, role, content, token_count, truncated, created_at)
+                SELECT ?, CASE WHEN g % 2 = 0 THEN 'assistant' ELSE 'user' END,
+                       'message ' || g || ' ' || repeat('가', ?), 5000, false,
+                       TIMESTAMP '2026-01-01 00:00:00' + g * INTERVAL '1 second'
+                FROM generate_series(1, ?) g""", conversationId, CONTENT_LENGTH, messages);
+        return conversationId;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long bytes;
+        long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
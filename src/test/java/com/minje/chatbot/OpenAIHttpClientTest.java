@@ -0,0 +1,139 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.UpstreamException;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIHttpClientTest {
+
+    private static final int CONCURRENT_CALLS = 64;
+    private static final long UPSTREAM_LATENCY_MS = 300;
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        httpClient = new OpenAIHttpClient("sk-test", settings(Duration.ofSeconds(5)));
+        openAIService = new OpenAIService(httpClient, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void completeReturnsContentAndUsage() {
+        CompletionResult result = openAIService.complete(new ArrayList<>(), "안녕", "시스템");
+
+        assertEquals(FakeOpenAIServer.REPLY, result.content());
+        assertEquals(FakeOpenAIServer.PROMPT_TOKENS, result.promptTokens());
+        assertEquals(FakeOpenAIServer.REPLY_CHUNKS.size(), result.completionTokens());
+        assertEquals("Bearer sk-test", server.authorizations().getFirst());
+        assertTrue(server.bodies().getFirst().contains("\"model\":\"gpt-3.5-turbo\""));
+        assertFalse(server.bodies().getFirst().contains("\"stream\""));
+    }
+
+    @Test
+    void streamDeliversChunksToListener() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> content = new AtomicReference<>();
+        AtomicInteger chunks = new AtomicInteger();
+
+        openAIService.createChatCompletionStream(new ArrayList<>(), "안녕", null, new SseEmitter(), new StreamListener() {
+            @Override
+            public void onComplete(String fullContent, int completionTokens) {
+                content.set(fullContent);
+                chunks.set(completionTokens);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error, String partialContent, int completionTokens) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(FakeOpenAIServer.REPLY, content.get());
+        assertEquals(FakeOpenAIServer.REPLY_CHUNKS.size(), chunks.get());
+    }
+
+    @Test
+    void upstreamErrorSurfacesAsUpstreamException() {
+        server.failWith(503);
+
+        UpstreamException e = assertThrows(UpstreamException.class,
+                () -> openAIService.complete(new ArrayList<>(), "안녕", null));
+
+        assertEquals(503, e.getUpstreamStatus());
+        assertEquals(HttpStatus.BAD_GATEWAY, e.getHttpStatus());
+        assertTrue(e.isRetryable());
+    }
+
+    @Test
+    void readTimeoutSurfacesAsGatewayTimeout() {
+        httpClient.close();
+        httpClient = new OpenAIHttpClient("sk-test", settings(Duration.ofMillis(200)));
+        openAIService = new OpenAIService(httpClient, "gpt-3.5-turbo", 100, 0.7);
+        server.latencyMs(1000);
+
+        UpstreamException e = assertThrows(UpstreamException.class,
+                () -> openAIService.complete(new ArrayList<>(), "안녕", null));
+
+        assertEquals("UPSTREAM_TIMEOUT", e.getErrorCode());
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, e.getHttpStatus());
+    }
+
+    @Test
+    void concurrentCallsDoNotPinCallerThreads() {
+        System.out.println("=== 비동기 업스트림 동시 호출 테스트 ===");
+        server.latencyMs(UPSTREAM_LATENCY_MS);
+
+        // 호출 스레드 하나에서 모두 시작 — 블로킹 클라이언트라면 호출 수만큼 순차 대기
+        long start = System.nanoTime();
+        List<CompletableFuture<CompletionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            futures.add(openAIService.completeAsync(new ArrayList<>(), "동시 요청 " + i, null));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println("동시 호출: " + CONCURRENT_CALLS + ", 업스트림 최대 동시 처리: " + server.peakInFlight()
+                + ", 소요 시간: " + elapsedMs + "ms (업스트림 지연 " + UPSTREAM_LATENCY_MS + "ms)");
+
+        futures.forEach(future -> assertEquals(FakeOpenAIServer.REPLY, future.join().content()));
+        assertEquals(CONCURRENT_CALLS, server.requests());
+        // OkHttp 기본값(호스트당 5개)이었다면 최소 13번에 나누어 처리됨
+        assertTrue(server.peakInFlight() > 5);
+        assertTrue(elapsedMs < UPSTREAM_LATENCY_MS * 5, "동시 호출이 직렬화되었습니다: " + elapsedMs + "ms");
+    }
+
+    private OpenAIClientSettings settings(Duration readTimeout) {
+        return new OpenAIClientSettings(server.baseUrl(), 16, Duration.ofMinutes(1), Duration.ZERO,
+                CONCURRENT_CALLS, CONCURRENT_CALLS, Duration.ofSeconds(1), readTimeout, Duration.ofSeconds(10), false);
+    }
+}
@@ -0,0 +1,148 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.dto.CursorPage;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.MessageRepository;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 페이지 깊이별 응답 시간: OFFSET 페이지 vs 키셋(커서) 페이지
+ * - 대화 20,000개인 사용자, 메시지 50,000개인 대화를 시드한 뒤 같은 깊이의 페이지를 반복 조회해 중앙값 비교
+ * - OFFSET은 앞의 행을 모두 건너뛰어야 하므로 깊이에 비례해 느려지고, 키셋은 인덱스 위치에서 바로 시작
+ */
+@SpringBootTest
+class PaginationDepthLoadTest {
+
+    private static final int CONVERSATIONS = 20_000;
+    private static final int MESSAGES = 50_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int[] DEPTHS = {0, 100, 500, 999};
+    private static final int REPEAT = 15;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysetPageLatencyIsFlatAcrossDepth() {
+        Long userId = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build()).getId();
+        seedConversations(userId);
+        Long conversationId = seedMessages(userId);
+        jdbcTemplate.execute("ANALYZE conversations");
+        jdbcTemplate.execute("ANALYZE messages");
+
+        System.out.println("=== 대화 목록 페이지 (" + CONVERSATIONS + "개, 페이지 " + PAGE_SIZE + "건) ===");
+        List<String> conversationCursors = cursorsAtDepths(
+                after -> chatService.getConversations(userId, after, null, PAGE_SIZE));
+        double[] offsetConversations = new double[DEPTHS.length];
+        double[] keysetConversations = new double[DEPTHS.length];
+        for (int i = 0; i < DEPTHS.length; i++) {
+            int depth = DEPTHS[i];
+            String cursor = conversationCursors.get(i);
+            offsetConversations[i] = medianMillis(() -> chatService.getConversations(userId,
+                    PageRequest.of(depth, PAGE_SIZE, Sort.by(Sort.Order.desc("updatedAt"), Sort.Order.desc("id")))));
+            keysetConversations[i] = medianMillis(() -> chatService.getConversations(userId, cursor, null, PAGE_SIZE));
+            System.out.printf("페이지 %4d: OFFSET %.2fms, 키셋 %.2fms%n", depth, offsetConversations[i], keysetConversations[i]);
+        }
+
+        System.out.println("=== 대화 메시지 페이지 (" + MESSAGES + "개, 페이지 " + PAGE_SIZE + "건) ===");
+        List<String> messageCursors = cursorsAtDepths(
+                after -> chatService.getMessages(userId, conversationId, after, null, PAGE_SIZE));
+        double[] offsetMessages = new double[DEPTHS.length];
+        double[] keysetMessages = new double[DEPTHS.length];
+        for (int i = 0; i < DEPTHS.length; i++) {
+            int depth = DEPTHS[i];
+            String cursor = messageCursors.get(i);
+            offsetMessages[i] = medianMillis(() -> messageRepository.findByConversationIdOrderByCreatedAtAscIdAsc(
+                    conversationId, PageRequest.of(depth * 5, PAGE_SIZE)));
+            keysetMessages[i] = medianMillis(() -> chatService.getMessages(userId, conversationId, cursor, null, PAGE_SIZE));
+            System.out.printf("페이지 %4d: OFFSET %.2fms, 키셋 %.2fms%n", depth * 5, offsetMessages[i], keysetMessages[i]);
+        }
+
+        int last = DEPTHS.length - 1;
+        // 깊은 페이지도 첫 페이지와 비슷한 시간 (측정 잡음 여유 2ms)
+        assertTrue(keysetConversations[last] <= keysetConversations[0] * 3 + 2,
+                "키셋 대화 페이지가 깊이에 따라 느려졌습니다: " + Arrays.toString(keysetConversations));
+        assertTrue(keysetMessages[last] <= keysetMessages[0] * 3 + 2,
+                "키셋 메시지 페이지가 깊이에 따라 느려졌습니다: " + Arrays.toString(keysetMessages));
+        assertTrue(keysetConversations[last] < offsetConversations[last],
+                "깊은 페이지에서 키셋이 OFFSET보다 빠르지 않습니다");
+    }
+
+    // DEPTHS의 각 페이지를 가리키는 after 커서 (0페이지는 null)
+    private List<String> cursorsAtDepths(Function<String, CursorPage<?>> fetch) {
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        int depth = 0;
+        for (int target : DEPTHS) {
+            while (depth < target) {
+                cursor = fetch.apply(cursor).getNextCursor();
+                depth++;
+            }
+            cursors.add(cursor);
+        }
+        return cursors;
+    }
+
+    private static double medianMillis(Supplier<?> query) {
+        query.get();
+        double[] samples = new double[REPEAT];
+        for (int i = 0; i < REPEAT; i++) {
+            long start = System.nanoTime();
+            assertNotNull(query.get());
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[REPEAT / 2];
+    }
+
+    private void seedConversations(Long userId) {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(CONVERSATIONS);
+        for (int i = 0; i < CONVERSATIONS; i++) {
+            Timestamp at = Timestamp.valueOf(base.plusSeconds(i));
+            rows.add(new Object[]{userId, "대화 " + i, at, at});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO conversations (user_id, title, created_at, updated_at) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private Long seedMessages(Long userId) {
+        Long conversationId = jdbcTemplate.queryForObject("INSERT INTO conversations (user_id, title, created_at, updated_at) "
+                + "VALUES (?, '긴 대화', now(), now()) RETURNING id", Long.class, userId);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            rows.add(new Object[]{conversationId, i % 2 == 0 ? "user" : "assistant", "메시지 " + i,
+                    Timestamp.valueOf(base.plusSeconds(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO messages (conversation_id, role, content, token_count, truncated, created_at) "
+                + "VALUES (?, ?, ?, 5, false, ?)", rows);
+        return conversationId;
+    }
+}
@@ -0,0 +1,106 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.entity.Message;
+import com.minje.chatbot.repository.ConversationSummaryRepository;
+import com.minje.chatbot.repository.MessageRepository;
+import com.minje.chatbot.service.PromptAssembler;
+import com.minje.chatbot.service.TokenCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PromptAssemblerTest {
+
+    private static final String SYSTEM_PROMPT = "너는 친절한 Spring Boot 튜터야. 예제 코드와 함께 설명해줘.";
+    private static final int MAX_TOKENS = 500;
+    private static final int HISTORY_BUDGET = 2000;
+    private static final int TURNS = 200;
+
+    private final TokenCounter tokenCounter = new TokenCounter("gpt-3.5-turbo");
+    private final List<Message> conversation = new ArrayList<>();
+    private MessageRepository messageRepository;
+    private PromptAssembler promptAssembler;
+
+    @BeforeEach
+    void setUp() {
+        // 합성 장기 대화: 질문/답변 200턴, 답변은 길게
+        long id = 1;
+        for (int i = 0; i < TURNS; i++) {
+            conversation.add(message(id++, Message.Role.USER, "질문 " + i + ": Spring Boot에서 트랜잭션 전파 옵션의 차이를 알려줘."));
+            conversation.add(message(id++, Message.Role.ASSISTANT,
+                    ("답변 " + i + ": REQUIRED는 기존 트랜잭션에 참여하고, REQUIRES_NEW는 항상 새 트랜잭션을 시작합니다. ").repeat(8)));
+        }
+        conversation.add(message(id, Message.Role.USER, "마지막 질문: 지금까지 내용을 요약해줘."));
+
+        messageRepository = mock(MessageRepository.class);
+        when(messageRepository.findByConversationIdAndRoleNotOrderByCreatedAtDescIdDesc(
+                anyLong(), eq(Message.Role.SYSTEM), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    Pageable pageable = invocation.getArgument(2);
+                    List<Message> newestFirst = conversation.reversed();
+                    int from = (int) Math.min(pageable.getOffset(), newestFirst.size());
+                    int to = Math.min(from + pageable.getPageSize(), newestFirst.size());
+                    return newestFirst.subList(from, to);
+                });
+
+        promptAssembler = new PromptAssembler(messageRepository, mock(ConversationSummaryRepository.class),
+                tokenCounter, "gpt-3.5-turbo", MAX_TOKENS, HISTORY_BUDGET, 0, false);
+    }
+
+    @Test
+    void fillsBudgetWithoutDuplicatingCurrentTurn() {
+        Message current = conversation.getLast();
+
+        PromptAssembler.AssembledPrompt prompt = promptAssembler.assemble(1L, current, SYSTEM_PROMPT);
+
+        assertFalse(prompt.history().contains(current), "현재 메시지가 이력에 중복 포함되면 안 됩니다");
+        int historyTokens = prompt.history().stream().mapToInt(promptAssembler::tokensOf).sum();
+        assertTrue(historyTokens <= HISTORY_BUDGET);
+
+        // 최신 메시지부터 연속으로 채워져야 함
+        List<Message> expectedTail = conversation.subList(conversation.size() - 1 - prompt.history().size(),
+                conversation.size() - 1);
+        assertEquals(expectedTail, prompt.history());
+    }
+
+    @Test
+    void promptTokensPerTurnBeforeAndAfter() {
+        System.out.println("=== 턴당 프롬프트 토큰 (합성 장기 대화 " + conversation.size() + "건) ===");
+        Message current = conversation.getLast();
+
+        // 기존: 최근 10개(현재 메시지 포함) + 현재 메시지 재추가
+        List<Message> legacyHistory = conversation.subList(conversation.size() - 10, conversation.size());
+        int legacyTokens = tokenCounter.countMessage(SYSTEM_PROMPT)
+                + legacyHistory.stream().mapToInt(m -> tokenCounter.countMessage(m.getContent())).sum()
+                + tokenCounter.countMessage(current.getContent());
+
+        PromptAssembler.AssembledPrompt prompt = promptAssembler.assemble(1L, current, SYSTEM_PROMPT);
+
+        System.out.println("기존: " + legacyTokens + " tokens (이력 10건, 현재 메시지 중복)");
+        System.out.println("개선: " + prompt.promptTokens() + " tokens (이력 " + prompt.history().size()
+                + "건, 예산 " + HISTORY_BUDGET + ")");
+
+        assertTrue(prompt.promptTokens() <= HISTORY_BUDGET
+                + tokenCounter.countMessage(SYSTEM_PROMPT) + tokenCounter.countMessage(current.getContent()));
+    }
+
+    private Message message(long id, Message.Role role, String content) {
+        return Message.builder()
+                .id(id)
+                .conversationId(1L)
+                .role(role)
+                .content(content)
+                .tokenCount(tokenCounter.countMessage(content))
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.ratelimit.ExactRateLimiter;
+import com.minje.chatbot.ratelimit.HybridRateLimiter;
+import com.minje.chatbot.ratelimit.RateLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final String KEY = "hashed-key";
+    private static final long WINDOW_SECONDS = 60;
+    private static final long SYNC_INTERVAL_MS = 20;
+    private static final long ROUND_TRIP_MICROS = 500;
+
+    @Test
+    void exactModeNeverExceedsLimit() throws Exception {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(0);
+        int limit = 200;
+
+        List<RateLimiter> nodes = List.of(
+                new ExactRateLimiter(store, limit, WINDOW_SECONDS),
+                new ExactRateLimiter(store, limit, WINDOW_SECONDS),
+                new ExactRateLimiter(store, limit, WINDOW_SECONDS));
+
+        assertEquals(limit, driveLoad(nodes, 1000, 0));
+    }
+
+    @Test
+    void hybridModeIsApproximatelyGlobal() throws Exception {
+        System.out.println("=== 하이브리드 Rate Limit 다중 노드 정확도 테스트 ===");
+
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(ROUND_TRIP_MICROS);
+        int limit = 200;
+        int nodeCount = 3;
+        long requestIntervalMicros = 1000;
+
+        List<RateLimiter> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new HybridRateLimiter(store, limit, WINDOW_SECONDS, SYNC_INTERVAL_MS));
+        }
+
+        try {
+            long allowed = driveLoad(nodes, 1000, requestIntervalMicros);
+
+            // 동기화 주기 동안 각 노드가 받을 수 있는 요청 수만큼만 초과 허용
+            long perNodeRequestsPerSync = TimeUnit.MILLISECONDS.toMicros(SYNC_INTERVAL_MS) / requestIntervalMicros;
+            long tolerance = nodeCount * perNodeRequestsPerSync;
+            System.out.println("허용: " + allowed + " / 한도: " + limit + " (허용 오차 " + tolerance + "), 저장소 호출: " + store.calls());
+
+            assertTrue(allowed >= limit, "한도까지는 허용되어야 합니다: " + allowed);
+            assertTrue(allowed <= limit + tolerance, "초과 허용량이 오차 범위를 넘었습니다: " + allowed);
+            assertTrue(store.calls() < allowed, "요청마다 저장소를 호출하면 안 됩니다");
+        } finally {
+            nodes.forEach(RateLimiter::close);
+        }
+    }
+
+    @Test
+    void hybridModeRemovesStoreFromRequestPath() {
+        System.out.println("=== Rate Limit 모드별 요청 지연 ===");
+
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore(ROUND_TRIP_MICROS);
+        int iterations = 2000;
+
+        RateLimiter exact = new ExactRateLimiter(store, Long.MAX_VALUE, WINDOW_SECONDS);
+        RateLimiter hybrid = new HybridRateLimiter(store, Long.MAX_VALUE, WINDOW_SECONDS, SYNC_INTERVAL_MS);
+        try {
+            long exactNanos = measure(exact, iterations);
+            long hybridNanos = measure(hybrid, iterations);
+
+            System.out.println("exact: " + exactNanos / iterations + " ns/req, hybrid: " + hybridNanos / iterations
+                    + " ns/req (모사 RTT " + ROUND_TRIP_MICROS + "us)");
+
+            assertTrue(hybridNanos < exactNanos);
+        } finally {
+            hybrid.close();
+        }
+    }
+
+    private long driveLoad(List<RateLimiter> nodes, int requestsPerNode, long intervalMicros) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size());
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (RateLimiter node : nodes) {
+                futures.add(executor.submit(() -> {
+                    long allowed = 0;
+                    for (int i = 0; i < requestsPerNode; i++) {
+                        if (node.tryAcquire(KEY).allowed()) {
+                            allowed++;
+                        }
+                        if (intervalMicros > 0) {
+                            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(intervalMicros));
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long measure(RateLimiter limiter, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            limiter.tryAcquire(KEY + "-" + (i % 10));
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,130 @@
+package com.minje.chatbot;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 테스트용 SseEmitter — 응답에 쓰는 대신 직렬화한 이벤트를 기록
+ * - send 한 번 = 실제 응답의 write + flush 한 번
+ * - sendDelayMs로 느리게 읽는 클라이언트, failAfterSends로 도중에 연결을 끊은 클라이언트 흉내
+ * - 마지막으로 받은 이벤트 ID를 기록 (이어받기의 Last-Event-ID)
+ */
+class RecordingSseEmitter extends SseEmitter {
+
+    private final long sendDelayMs;
+    private final List<String> contents = new ArrayList<>();
+    private final AtomicInteger sends = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean done;
+    private volatile long lastEventId;
+    private volatile int failAfterSends = Integer.MAX_VALUE;
+
+    RecordingSseEmitter() {
+        this(0);
+    }
+
+    RecordingSseEmitter(long sendDelayMs) {
+        super(0L);
+        this.sendDelayMs = sendDelayMs;
+    }
+
+    /**
+     * sends번 전송한 뒤부터는 연결이 끊긴 것처럼 IOException
+     */
+    void failAfterSends(int sends) {
+        this.failAfterSends = sends;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+        if (sends.get() >= failAfterSends) {
+            throw new IOException("Broken pipe");
+        }
+        StringBuilder frame = new StringBuilder();
+        builder.build().forEach(part -> frame.append(part.getData()));
+        if (sendDelayMs > 0) {
+            try {
+                Thread.sleep(sendDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        sends.incrementAndGet();
+        bytes.addAndGet(frame.length());
+
+        String text = frame.toString();
+        if (text.startsWith("id:")) {
+            lastEventId = Long.parseLong(text.substring("id:".length(), text.indexOf('\n')));
+        }
+        if (text.contains("event:done")) {
+            done = true;
+        } else if (!text.contains("event:stream")) {
+            String data = text.substring(text.indexOf("data:") + "data:".length(), text.length() - 2);
+            synchronized (contents) {
+                contents.add(data);
+            }
+        }
+    }
+
+    @Override
+    public void complete() {
+        super.complete();
+        finished.countDown();
+    }
+
+    @Override
+    public void completeWithError(Throwable ex) {
+        super.completeWithError(ex);
+        error.compareAndSet(null, ex);
+        finished.countDown();
+    }
+
+    CountDownLatch finished() {
+        return finished;
+    }
+
+    /**
+     * 받은 content 이벤트를 이어 붙인 응답
+     */
+    String content() {
+        synchronized (contents) {
+            return String.join("", contents);
+        }
+    }
+
+    int contentFrames() {
+        synchronized (contents) {
+            return contents.size();
+        }
+    }
+
+    int sends() {
+        return sends.get();
+    }
+
+    long bytes() {
+        return bytes.get();
+    }
+
+    boolean done() {
+        return done;
+    }
+
+    long lastEventId() {
+        return lastEventId;
+    }
+
+    Throwable error() {
+        return error.get();
+    }
+}
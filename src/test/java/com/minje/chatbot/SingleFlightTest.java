@@ -0,0 +1,171 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.UpstreamException;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CONCURRENT_CALLS = 32;
+    private static final long UPSTREAM_LATENCY_MS = 500;
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 16,
+                Duration.ofMinutes(1), Duration.ZERO, CONCURRENT_CALLS, CONCURRENT_CALLS,
+                Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(10), false));
+        openAIService = new OpenAIService(httpClient, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void identicalConcurrentCompletionsShareOneUpstreamCall() throws Exception {
+        server.latencyMs(UPSTREAM_LATENCY_MS);
+
+        List<CompletableFuture<CompletionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_CALLS; i++) {
+            futures.add(openAIService.completeAsync(new ArrayList<>(), "같은 질문", "시스템"));
+        }
+
+        int charged = 0;
+        for (CompletableFuture<CompletionResult> future : futures) {
+            CompletionResult result = future.get(5, TimeUnit.SECONDS);
+            assertEquals(FakeOpenAIServer.REPLY, result.content());
+            if (!result.cached()) {
+                charged++;
+            }
+        }
+
+        System.out.println("동시 동일 요청: " + CONCURRENT_CALLS + ", 업스트림 호출: " + server.requests());
+        assertEquals(1, server.requests());
+        // 토큰은 업스트림을 호출한 첫 요청에만 과금
+        assertEquals(1, charged);
+    }
+
+    @Test
+    void differentPromptsAreNotCoalesced() throws Exception {
+        server.latencyMs(UPSTREAM_LATENCY_MS);
+
+        CompletableFuture<CompletionResult> first = openAIService.completeAsync(new ArrayList<>(), "질문 A", null);
+        CompletableFuture<CompletionResult> second = openAIService.completeAsync(new ArrayList<>(), "질문 B", null);
+
+        assertFalse(first.get(5, TimeUnit.SECONDS).cached());
+        assertFalse(second.get(5, TimeUnit.SECONDS).cached());
+        assertEquals(2, server.requests());
+    }
+
+    @Test
+    void upstreamFailureIsDeliveredToEveryCaller() {
+        server.latencyMs(UPSTREAM_LATENCY_MS);
+        server.failWith(500);
+
+        List<CompletableFuture<CompletionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(openAIService.completeAsync(new ArrayList<>(), "같은 질문", null));
+        }
+
+        for (CompletableFuture<CompletionResult> future : futures) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(UpstreamException.class, error.getCause());
+        }
+        assertEquals(1, server.requests());
+    }
+
+    @Test
+    void cancellingOneCallerDoesNotCancelTheSharedCall() throws Exception {
+        server.latencyMs(UPSTREAM_LATENCY_MS);
+
+        CompletableFuture<CompletionResult> leaving = openAIService.completeAsync(new ArrayList<>(), "같은 질문", null);
+        CompletableFuture<CompletionResult> staying = openAIService.completeAsync(new ArrayList<>(), "같은 질문", null);
+        leaving.cancel(true);
+
+        assertEquals(FakeOpenAIServer.REPLY, staying.get(5, TimeUnit.SECONDS).content());
+        assertEquals(1, server.requests());
+    }
+
+    @Test
+    void requestAfterEveryCallerLeftStartsANewCall() throws Exception {
+        server.latencyMs(UPSTREAM_LATENCY_MS);
+
+        CompletableFuture<CompletionResult> first = openAIService.completeAsync(new ArrayList<>(), "같은 질문", null);
+        CompletableFuture<CompletionResult> second = openAIService.completeAsync(new ArrayList<>(), "같은 질문", null);
+        first.cancel(true);
+        second.cancel(true);
+
+        CompletionResult result = openAIService.completeAsync(new ArrayList<>(), "같은 질문", null)
+                .get(5, TimeUnit.SECONDS);
+
+        assertFalse(result.cached());
+        assertEquals(2, server.requests());
+    }
+
+    @Test
+    void identicalConcurrentStreamsShareOneUpstreamStream() throws Exception {
+        server.chunkDelayMs(100);
+
+        int streams = 8;
+        CountDownLatch done = new CountDownLatch(streams);
+        List<String> contents = new CopyOnWriteArrayList<>();
+        AtomicInteger leaders = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        for (int i = 0; i < streams; i++) {
+            openAIService.createChatCompletionStream(new ArrayList<>(), "같은 질문", null, new SseEmitter(), new StreamListener() {
+                @Override
+                public void onComplete(String fullContent, int completionTokens) {
+                    leaders.incrementAndGet();
+                    contents.add(fullContent);
+                    done.countDown();
+                }
+
+                @Override
+                public void onCacheHit(String content) {
+                    contents.add(content);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error, String partialContent, int completionTokens) {
+                    errors.incrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, errors.get());
+        assertEquals(1, leaders.get());
+        assertEquals(streams, contents.size());
+        contents.forEach(content -> assertEquals(FakeOpenAIServer.REPLY, content));
+        assertEquals(1, server.requests());
+    }
+}
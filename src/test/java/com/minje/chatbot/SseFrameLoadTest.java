@@ -0,0 +1,114 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.SseFrameWriter;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.UpstreamRetrier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 동시 스트림 1,000개의 SSE 전송 비용: 청크마다 전송 vs 프레임으로 모아 전송
+ * - 전송 횟수(send = 실제 응답의 write + flush 시스템 호출)와 토큰당 프로세스 CPU 시간을 비교
+ * - CPU 시간에는 같은 프로세스의 대체 업스트림 서버도 포함되므로 두 방식의 차이만 의미가 있음
+ */
+class SseFrameLoadTest {
+
+    private static final int STREAMS = 1_000;
+    private static final int REPEAT = 25;
+    private static final int TOKENS_PER_STREAM = REPEAT * FakeOpenAIServer.REPLY_CHUNKS.size();
+    private static final long CHUNK_DELAY_MS = 2;
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        server.streamRepeat(REPEAT);
+        server.chunkDelayMs(CHUNK_DELAY_MS);
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), STREAMS,
+                Duration.ofMinutes(1), Duration.ZERO, STREAMS, STREAMS, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), Duration.ofSeconds(60), false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void coalescedFramesCutSendsAndCpuPerToken() throws Exception {
+        System.out.println("=== SSE 전송 비용 (동시 스트림 " + STREAMS + "개 × 토큰 " + TOKENS_PER_STREAM + "개) ===");
+
+        // 연결/JIT 워밍업
+        run(SseFrameWriter.passthrough(), 50);
+
+        Result before = run(SseFrameWriter.passthrough(), STREAMS);
+        SseFrameWriter coalescing = new SseFrameWriter(new SimpleMeterRegistry(), 20, 256, 64 * 1024);
+        Result after = run(coalescing, STREAMS);
+        coalescing.close();
+
+        print("청크마다 전송", before);
+        print("프레임 전송 (20ms / 256B)", after);
+
+        assertEquals(STREAMS, before.completed());
+        assertEquals(STREAMS, after.completed());
+        assertEquals((long) STREAMS * TOKENS_PER_STREAM, before.sends() - STREAMS);
+        assertTrue(after.sends() * 3 < before.sends(),
+                "프레임 전송 횟수가 충분히 줄지 않았습니다: " + after.sends() + " vs " + before.sends());
+    }
+
+    private Result run(SseFrameWriter writer, int streams) throws Exception {
+        OpenAIService openAIService = new OpenAIService(httpClient, null, UpstreamRetrier.disabled(), writer,
+                "gpt-3.5-turbo", 100, 0.7);
+        String expected = FakeOpenAIServer.REPLY.repeat(REPEAT);
+        List<RecordingSseEmitter> emitters = new ArrayList<>();
+
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long cpuStart = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        for (int i = 0; i < streams; i++) {
+            RecordingSseEmitter emitter = new RecordingSseEmitter();
+            emitters.add(emitter);
+            openAIService.createChatCompletionStream(new ArrayList<>(), "스트림 " + i, null, emitter);
+        }
+
+        int completed = 0;
+        long sends = 0;
+        for (RecordingSseEmitter emitter : emitters) {
+            assertTrue(emitter.finished().await(60, TimeUnit.SECONDS));
+            if (emitter.error() == null && expected.equals(emitter.content())) {
+                completed++;
+            }
+            sends += emitter.sends();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long cpuNanos = os.getProcessCpuTime() - cpuStart;
+        return new Result(completed, sends, cpuNanos, elapsedMs);
+    }
+
+    private static void print(String label, Result result) {
+        long tokens = (long) STREAMS * TOKENS_PER_STREAM;
+        System.out.printf("%s: 전송 %,d회 (토큰당 %.2f), CPU %,dms (토큰당 %.1fµs), 소요 시간 %,dms%n",
+                label, result.sends(), (double) result.sends() / tokens,
+                TimeUnit.NANOSECONDS.toMillis(result.cpuNanos()), result.cpuNanos() / 1000.0 / tokens,
+                result.elapsedMs());
+    }
+
+    private record Result(int completed, long sends, long cpuNanos, long elapsedMs) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.service.SseFrameWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseFrameWriterTest {
+
+    private SimpleMeterRegistry registry;
+    private SseFrameWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        writer = new SseFrameWriter(registry, 20, 256, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    void tokensAreCoalescedIntoFrames() throws Exception {
+        RecordingSseEmitter emitter = new RecordingSseEmitter();
+        SseFrameWriter.Stream out = writer.open(emitter);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            String token = "tok" + i + " ";
+            out.write(token);
+            expected.append(token);
+        }
+        out.complete();
+
+        assertTrue(emitter.finished().await(5, TimeUnit.SECONDS));
+        assertEquals(expected.toString(), emitter.content());
+        assertTrue(emitter.done());
+        // 약 1,300바이트 / 256바이트 임계값
+        assertTrue(emitter.contentFrames() <= 10, "프레임이 합쳐지지 않았습니다: " + emitter.contentFrames());
+        assertEquals(emitter.contentFrames(), registry.get("sse.frames").counter().count());
+    }
+
+    @Test
+    void smallWritesAreFlushedAfterInterval() throws Exception {
+        RecordingSseEmitter emitter = new RecordingSseEmitter();
+        SseFrameWriter.Stream out = writer.open(emitter);
+
+        out.write("안녕");
+        out.write("하세요");
+        assertEquals(0, emitter.sends());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (emitter.sends() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, emitter.contentFrames());
+        assertEquals("안녕하세요", emitter.content());
+        assertFalse(emitter.done());
+        out.complete();
+        assertTrue(emitter.finished().await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowConsumerIsTerminatedInsteadOfBufferingWithoutLimit() throws Exception {
+        RecordingSseEmitter emitter = new RecordingSseEmitter(200);
+        SseFrameWriter.Stream out = writer.open(emitter);
+
+        // 첫 프레임 전송이 막힌 동안 버퍼 상한(1KB)을 넘기면 종료
+        String token = "x".repeat(64);
+        int written = 0;
+        IOException failure = null;
+        try {
+            for (; written < 1000; written++) {
+                out.write(token);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        assertInstanceOf(SseFrameWriter.SlowConsumerException.class, failure);
+        assertTrue(written < 30, "버퍼 상한을 넘겨 계속 쌓았습니다: " + written);
+        assertThrows(IOException.class, () -> out.write(token));
+        assertTrue(emitter.finished().await(5, TimeUnit.SECONDS));
+        assertInstanceOf(SseFrameWriter.SlowConsumerException.class, emitter.error());
+        assertEquals(1.0, registry.get("sse.slow_consumers.terminated").counter().count());
+    }
+
+    @Test
+    void passthroughSendsEveryChunk() throws Exception {
+        SseFrameWriter passthrough = SseFrameWriter.passthrough();
+        RecordingSseEmitter emitter = new RecordingSseEmitter();
+        SseFrameWriter.Stream out = passthrough.open(emitter);
+
+        for (int i = 0; i < 10; i++) {
+            out.write("t" + i);
+        }
+        out.complete();
+
+        assertEquals(10, emitter.contentFrames());
+        assertTrue(emitter.done());
+        passthrough.close();
+    }
+}
@@ -0,0 +1,161 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamHandle;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 클라이언트가 스트림 도중 떠났을 때 업스트림 스트림 중단
+ */
+class StreamCancellationTest {
+
+    private static final int REPEAT = 50;
+    private static final int TOTAL_CHUNKS = REPEAT * FakeOpenAIServer.REPLY_CHUNKS.size();
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        server.streamRepeat(REPEAT);
+        server.chunkDelayMs(10);
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 16,
+                Duration.ofMinutes(1), Duration.ZERO, 64, 64, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), Duration.ofSeconds(30), false));
+        openAIService = new OpenAIService(httpClient, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void disconnectMidStreamAbortsUpstreamAndKeepsPartialContent() throws Exception {
+        CountDownLatch firstChunk = new CountDownLatch(1);
+        CancelRecorder listener = new CancelRecorder(firstChunk);
+        StreamHandle handle = openAIService.createChatCompletionStream(new ArrayList<>(), "긴 답변", null,
+                new RecordingSseEmitter(), listener);
+
+        assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        handle.cancel();
+        handle.cancel();
+
+        Cancelled cancelled = listener.cancelled.get(5, TimeUnit.SECONDS);
+        assertTrue(cancelled.upstreamCancelled());
+        assertFalse(cancelled.partialContent().isEmpty());
+        assertTrue(FakeOpenAIServer.REPLY.repeat(REPEAT).startsWith(cancelled.partialContent()));
+        assertTrue(cancelled.completionTokens() > 0 && cancelled.completionTokens() < TOTAL_CHUNKS);
+
+        // 업스트림 HTTP 호출이 끊겨 대체 서버가 나머지 청크를 보내지 못함
+        await(() -> server.abortedStreams() == 1);
+        assertTrue(server.chunksSent() < TOTAL_CHUNKS / 2, "업스트림이 계속 생성했습니다: " + server.chunksSent());
+        assertEquals(1, listener.callbacks.get());
+    }
+
+    @Test
+    void failedWriteIsTreatedAsDisconnect() throws Exception {
+        RecordingSseEmitter emitter = new RecordingSseEmitter();
+        emitter.failAfterSends(3);
+        CancelRecorder listener = new CancelRecorder(new CountDownLatch(1));
+        openAIService.createChatCompletionStream(new ArrayList<>(), "긴 답변", null, emitter, listener);
+
+        Cancelled cancelled = listener.cancelled.get(5, TimeUnit.SECONDS);
+        assertTrue(cancelled.upstreamCancelled());
+        assertEquals(4, cancelled.completionTokens());
+        await(() -> server.abortedStreams() == 1);
+        assertEquals(1, listener.callbacks.get());
+    }
+
+    @Test
+    void joinedStreamContinuesWhenOneSubscriberLeaves() throws Exception {
+        CancelRecorder leaving = new CancelRecorder(new CountDownLatch(1));
+        StreamHandle handle = openAIService.createChatCompletionStream(new ArrayList<>(), "같은 질문", null,
+                new RecordingSseEmitter(), leaving);
+        CompletableFuture<String> staying = new CompletableFuture<>();
+        openAIService.createChatCompletionStream(new ArrayList<>(), "같은 질문", null, new RecordingSseEmitter(),
+                new StreamListener() {
+                    @Override
+                    public void onCacheHit(String content) {
+                        staying.complete(content);
+                    }
+
+                    @Override
+                    public void onError(Throwable error, String partialContent, int completionTokens) {
+                        staying.completeExceptionally(error);
+                    }
+                });
+
+        Thread.sleep(100);
+        handle.cancel();
+
+        assertFalse(leaving.cancelled.get(5, TimeUnit.SECONDS).upstreamCancelled());
+        assertEquals(FakeOpenAIServer.REPLY.repeat(REPEAT), staying.get(10, TimeUnit.SECONDS));
+        assertEquals(0, server.abortedStreams());
+        assertEquals(1, server.requests());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private record Cancelled(String partialContent, int completionTokens, boolean upstreamCancelled) {
+    }
+
+    private static final class CancelRecorder implements StreamListener {
+
+        private final CountDownLatch firstChunk;
+        private final CompletableFuture<Cancelled> cancelled = new CompletableFuture<>();
+        private final AtomicInteger callbacks = new AtomicInteger();
+
+        CancelRecorder(CountDownLatch firstChunk) {
+            this.firstChunk = firstChunk;
+        }
+
+        @Override
+        public void onFirstChunk() {
+            firstChunk.countDown();
+        }
+
+        @Override
+        public void onCancelled(String partialContent, int completionTokens, boolean upstreamCancelled) {
+            callbacks.incrementAndGet();
+            cancelled.complete(new Cancelled(partialContent, completionTokens, upstreamCancelled));
+        }
+
+        @Override
+        public void onComplete(String content, int completionTokens) {
+            callbacks.incrementAndGet();
+            cancelled.completeExceptionally(new AssertionError("completed"));
+        }
+
+        @Override
+        public void onError(Throwable error, String partialContent, int completionTokens) {
+            callbacks.incrementAndGet();
+            cancelled.completeExceptionally(error);
+        }
+    }
+}
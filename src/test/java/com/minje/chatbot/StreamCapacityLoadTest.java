@@ -0,0 +1,110 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.UpstreamConcurrencyLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 동시 스트림 수: 스트림은 호출 스레드에서 비동기로 시작하고 바로 반환하므로 스레드 수와 무관하게
+ * 업스트림 한도까지 동시에 진행된다 (호출 스레드 2개로 스트림 200개 시작)
+ */
+class StreamCapacityLoadTest {
+
+    private static final int STREAMS = 200;
+    private static final int CALLER_THREADS = 2;
+    private static final int UPSTREAM_LIMIT = 128;
+    private static final long CHUNK_DELAY_MS = 50;
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        server.chunkDelayMs(CHUNK_DELAY_MS);
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 32,
+                Duration.ofMinutes(1), Duration.ZERO, STREAMS, STREAMS, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), Duration.ofSeconds(30), false));
+        openAIService = new OpenAIService(httpClient, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void streamsAreBoundedByUpstreamLimitNotThreads() throws Exception {
+        long streamMs = CHUNK_DELAY_MS * FakeOpenAIServer.REPLY_CHUNKS.size();
+        System.out.println("=== 동시 스트림 (" + STREAMS + "개, 스트림당 약 " + streamMs + "ms, 호출 스레드 "
+                + CALLER_THREADS + "개) ===");
+
+        UpstreamConcurrencyLimit limit = new UpstreamConcurrencyLimit(new SimpleMeterRegistry(),
+                UPSTREAM_LIMIT, UPSTREAM_LIMIT, UPSTREAM_LIMIT, 0.9, 2.0, STREAMS, 10_000);
+        AtomicInteger completed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(STREAMS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService callers = Executors.newFixedThreadPool(CALLER_THREADS)) {
+            for (int i = 0; i < STREAMS; i++) {
+                String content = "스트림 " + i;
+                // ChatService와 같이 허가를 받고 스트림을 시작한 뒤 바로 반환 (허가는 종료 콜백에서 반납)
+                futures.add(callers.submit(() -> {
+                    UpstreamConcurrencyLimit.Permit permit = limit.acquire();
+                    openAIService.createChatCompletionStream(new ArrayList<>(), content, null, new SseEmitter(),
+                            new StreamListener() {
+                                @Override
+                                public void onComplete(String fullContent, int completionTokens) {
+                                    permit.close();
+                                    completed.incrementAndGet();
+                                    done.countDown();
+                                }
+
+                                @Override
+                                public void onError(Throwable error, String partialContent, int completionTokens) {
+                                    permit.close();
+                                    done.countDown();
+                                }
+                            });
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int peak = server.peakInFlight();
+
+        System.out.println("최대 동시 스트림 " + peak + " (한도 " + UPSTREAM_LIMIT + "), 소요 시간 " + elapsedMs + "ms");
+
+        assertEquals(STREAMS, completed.get());
+        assertTrue(peak > CALLER_THREADS * 10 && peak <= UPSTREAM_LIMIT,
+                "동시 스트림 수는 호출 스레드 수가 아니라 업스트림 한도로 제한되어야 합니다: " + peak);
+        // 한도 128로 두 차례 안에 끝남 (스레드가 스트림을 점유했다면 100차례)
+        assertTrue(elapsedMs < streamMs * 4, "소요 시간: " + elapsedMs + "ms");
+    }
+}
@@ -0,0 +1,119 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.dto.ChatRequest;
+import com.minje.chatbot.entity.User;
+import com.minje.chatbot.repository.UserRepository;
+import com.minje.chatbot.service.ChatService;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamHandle;
+import com.minje.chatbot.service.StreamListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * 동시 스트림 수백 개의 응답 저장 — 모든 응답이 저장되고 DB 왕복(배치)은 메시지 수보다 훨씬 적어야 함
+ */
+@SpringBootTest(properties = "token-quota.enabled=false")
+class StreamReplyPersistenceTest {
+
+    private static final int STREAMS = 300;
+    private static final int CLIENTS = 32;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private OpenAIService openAIService;
+
+    @Test
+    void concurrentStreamRepliesAreWrittenInBatches() throws Exception {
+        ExecutorService upstream = Executors.newVirtualThreadPerTaskExecutor();
+        when(openAIService.getMaxTokens()).thenReturn(100);
+        when(openAIService.createChatCompletionStream(anyList(), anyString(), any(), any(), any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> {
+                    String reply = "응답: " + invocation.getArgument(1);
+                    StreamListener listener = invocation.getArgument(4);
+                    upstream.submit(() -> {
+                        Thread.sleep(20);
+                        listener.onFirstChunk();
+                        listener.onComplete(reply, 5);
+                        return null;
+                    });
+                    return StreamHandle.NONE;
+                });
+
+        User user = userRepository.save(User.builder().apiKey("test-" + UUID.randomUUID()).build());
+        double batchesBefore = meterRegistry.counter("chat.persist.batches").count();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        Set<String> expected = new HashSet<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < STREAMS; i++) {
+                String content = "스트림 요청 " + i;
+                expected.add("응답: " + content);
+                ChatRequest request = ChatRequest.builder().content(content).build();
+                futures.add(clients.submit(() -> chatService.sendMessageStream(user.getId(), request)));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (countReplies(user.getId()) < STREAMS && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+        } finally {
+            clients.shutdownNow();
+            upstream.shutdownNow();
+        }
+
+        List<String> saved = jdbcTemplate.queryForList("""
+                SELECT m.content FROM messages m JOIN conversations c ON c.id = m.conversation_id
+                WHERE c.user_id = ? AND m.role = 'assistant'""", String.class, user.getId());
+        assertEquals(expected, new HashSet<>(saved));
+        assertEquals(STREAMS, saved.size());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM conversations WHERE user_id = ? AND title IS NULL", Integer.class, user.getId()));
+
+        double batches = meterRegistry.counter("chat.persist.batches").count() - batchesBefore;
+        System.out.println("스트림 응답 " + STREAMS + "건 저장: 배치 " + (long) batches + "회");
+        assertTrue(batches * 5 < STREAMS, "배치로 모이지 않았습니다: " + batches);
+    }
+
+    private int countReplies(Long userId) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM messages m JOIN conversations c ON c.id = m.conversation_id
+                WHERE c.user_id = ? AND m.role = 'assistant'""", Integer.class, userId);
+    }
+}
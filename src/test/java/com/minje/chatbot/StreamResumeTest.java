@@ -0,0 +1,219 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.SseFrameWriter;
+import com.minje.chatbot.service.StreamHandle;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.service.StreamReplayBuffer;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.UpstreamRetrier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 끊긴 스트림을 Last-Event-ID로 이어받기
+ */
+class StreamResumeTest {
+
+    private static final int REPEAT = 30;
+    private static final String FULL_REPLY = FakeOpenAIServer.REPLY.repeat(REPEAT);
+    private static final long USER_ID = 1L;
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private SimpleMeterRegistry registry;
+    private SseFrameWriter frameWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        server.streamRepeat(REPEAT);
+        server.chunkDelayMs(10);
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 16,
+                Duration.ofMinutes(1), Duration.ZERO, 64, 64, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), Duration.ofSeconds(30), false));
+        registry = new SimpleMeterRegistry();
+        frameWriter = new SseFrameWriter(registry, 20, 64, 64 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        frameWriter.close();
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void reconnectReplaysMissedEventsThenContinuesLive() throws Exception {
+        StreamReplayBuffer buffer = buffer(256 * 1024, 1024 * 1024);
+        StreamReplayBuffer.ReplayLog replayLog = buffer.open(USER_ID);
+        RecordingSseEmitter first = new RecordingSseEmitter();
+        first.failAfterSends(2);
+        CompletableFuture<String> completed = new CompletableFuture<>();
+        openAIService().createChatCompletionStream(new ArrayList<>(), "긴 답변", null, first,
+                completionRecorder(completed), false, replayLog);
+
+        await(() -> first.sends() == 2);
+        Thread.sleep(100);
+        long lastEventId = first.lastEventId();
+        assertTrue(lastEventId > 0);
+
+        RecordingSseEmitter second = new RecordingSseEmitter();
+        assertTrue(buffer.find(replayLog.id(), USER_ID).stream().resume(second, lastEventId));
+
+        assertTrue(second.finished().await(10, TimeUnit.SECONDS));
+        assertTrue(second.done());
+        // 끊기기 전에 받은 조각 + 재생/실시간 조각 = 전체 응답 (중복/누락 없음)
+        assertEquals(FULL_REPLY, first.content() + second.content());
+        assertEquals(FULL_REPLY, completed.get(5, TimeUnit.SECONDS));
+        assertEquals(0, server.abortedStreams());
+        assertEquals(1.0, registry.get("stream.resumed").counter().count());
+        buffer.close();
+    }
+
+    @Test
+    void streamIsCancelledWhenClientDoesNotResumeWithinGrace() throws Exception {
+        StreamReplayBuffer buffer = buffer(256 * 1024, 1024 * 1024);
+        StreamReplayBuffer.ReplayLog replayLog = buffer.open(USER_ID);
+        RecordingSseEmitter emitter = new RecordingSseEmitter();
+        CompletableFuture<String> cancelled = new CompletableFuture<>();
+        StreamHandle handle = openAIService().createChatCompletionStream(new ArrayList<>(), "긴 답변", null,
+                emitter, new StreamListener() {
+                    @Override
+                    public void onCancelled(String partialContent, int completionTokens, boolean upstreamCancelled) {
+                        cancelled.complete(partialContent);
+                    }
+
+                    @Override
+                    public void onComplete(String content, int completionTokens) {
+                        cancelled.completeExceptionally(new AssertionError("completed"));
+                    }
+                }, false, replayLog);
+
+        await(() -> emitter.sends() > 0);
+        handle.cancel();
+        // 분리된 동안은 업스트림 생성을 계속함
+        Thread.sleep(200);
+        assertFalse(cancelled.isDone());
+        assertEquals(0, server.abortedStreams());
+
+        // detach-grace(1초) 뒤 업스트림 중단, 버퍼 해제
+        assertFalse(cancelled.get(5, TimeUnit.SECONDS).isEmpty());
+        await(() -> server.abortedStreams() == 1);
+        assertNull(buffer.find(replayLog.id(), USER_ID));
+        assertEquals(0.0, registry.get("stream.replay.bytes").gauge().value());
+        buffer.close();
+    }
+
+    @Test
+    void completedStreamCanBeReplayedUntilExpiry() throws Exception {
+        StreamReplayBuffer buffer = buffer(256 * 1024, 1024 * 1024);
+        StreamReplayBuffer.ReplayLog replayLog = buffer.open(USER_ID);
+        RecordingSseEmitter first = new RecordingSseEmitter();
+        openAIService().createChatCompletionStream(new ArrayList<>(), "긴 답변", null, first,
+                new StreamListener() { }, false, replayLog);
+        assertTrue(first.finished().await(10, TimeUnit.SECONDS));
+
+        RecordingSseEmitter again = new RecordingSseEmitter();
+        assertTrue(buffer.find(replayLog.id(), USER_ID).stream().resume(again, 0));
+        assertTrue(again.finished().await(5, TimeUnit.SECONDS));
+        assertEquals(FULL_REPLY, again.content());
+        assertTrue(again.done());
+
+        // 다른 사용자는 찾을 수 없음
+        assertNull(buffer.find(replayLog.id(), USER_ID + 1));
+        buffer.close();
+    }
+
+    @Test
+    void resumeFailsWhenMissedEventsWereDropped() throws Exception {
+        // 스트림당 64바이트만 보관 — 앞부분은 버려져 처음부터는 이어받을 수 없음
+        StreamReplayBuffer buffer = buffer(64, 1024 * 1024);
+        StreamReplayBuffer.ReplayLog replayLog = buffer.open(USER_ID);
+        RecordingSseEmitter first = new RecordingSseEmitter();
+        openAIService().createChatCompletionStream(new ArrayList<>(), "긴 답변", null, first,
+                new StreamListener() { }, false, replayLog);
+        assertTrue(first.finished().await(10, TimeUnit.SECONDS));
+
+        SseFrameWriter.Stream stream = buffer.find(replayLog.id(), USER_ID).stream();
+        assertFalse(stream.resume(new RecordingSseEmitter(), 0));
+        assertTrue(registry.get("stream.replay.bytes").gauge().value() <= 64);
+
+        RecordingSseEmitter tail = new RecordingSseEmitter();
+        assertTrue(stream.resume(tail, first.lastEventId()));
+        assertTrue(tail.finished().await(5, TimeUnit.SECONDS));
+        assertEquals("", tail.content());
+        assertTrue(tail.done());
+        buffer.close();
+    }
+
+    @Test
+    void totalCapEvictsFinishedStreamsFirst() throws Exception {
+        int replyBytes = FULL_REPLY.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+        StreamReplayBuffer buffer = buffer(256 * 1024, replyBytes + replyBytes / 2);
+        StreamReplayBuffer.ReplayLog older = buffer.open(USER_ID);
+        RecordingSseEmitter first = new RecordingSseEmitter();
+        openAIService().createChatCompletionStream(new ArrayList<>(), "첫 질문", null, first,
+                new StreamListener() { }, false, older);
+        assertTrue(first.finished().await(10, TimeUnit.SECONDS));
+
+        StreamReplayBuffer.ReplayLog newer = buffer.open(USER_ID);
+        RecordingSseEmitter second = new RecordingSseEmitter();
+        openAIService().createChatCompletionStream(new ArrayList<>(), "두 번째 질문", null, second,
+                new StreamListener() { }, false, newer);
+        assertTrue(second.finished().await(10, TimeUnit.SECONDS));
+
+        assertNull(buffer.find(older.id(), USER_ID));
+        assertNotNull(buffer.find(newer.id(), USER_ID));
+        assertEquals(1.0, registry.get("stream.replay.evicted").counter().count());
+        assertTrue(registry.get("stream.replay.bytes").gauge().value() <= replyBytes + replyBytes / 2);
+        buffer.close();
+    }
+
+    private StreamReplayBuffer buffer(long maxBytesPerStream, long maxTotalBytes) {
+        return new StreamReplayBuffer(registry, true, maxBytesPerStream, maxTotalBytes, 60, 1);
+    }
+
+    private OpenAIService openAIService() {
+        return new OpenAIService(httpClient, null, UpstreamRetrier.disabled(), frameWriter,
+                "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    private static StreamListener completionRecorder(CompletableFuture<String> completed) {
+        return new StreamListener() {
+            @Override
+            public void onComplete(String content, int completionTokens) {
+                completed.complete(content);
+            }
+
+            @Override
+            public void onError(Throwable error, String partialContent, int completionTokens) {
+                completed.completeExceptionally(error);
+            }
+
+            @Override
+            public void onCancelled(String partialContent, int completionTokens, boolean upstreamCancelled) {
+                completed.completeExceptionally(new AssertionError("cancelled"));
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,108 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.ThrottledException;
+import com.minje.chatbot.quota.TokenQuotaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TokenQuotaServiceTest {
+
+    private static final long TOKENS_PER_MINUTE = 1000;
+    private static final long TOKENS_PER_DAY = 5000;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        // 실제 사용자와 겹치지 않는 테스트 전용 ID
+        userId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    }
+
+    @Test
+    void concurrentReservationsAcrossNodesNeverExceedQuota() throws Exception {
+        List<TokenQuotaService> nodes = List.of(newQuotaService(600), newQuotaService(600), newQuotaService(600));
+        ExecutorService executor = Executors.newFixedThreadPool(12);
+
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                TokenQuotaService node = nodes.get(i % nodes.size());
+                futures.add(executor.submit(() -> {
+                    try {
+                        node.reserve(userId, 100);
+                        return true;
+                    } catch (ThrottledException e) {
+                        return false;
+                    }
+                }));
+            }
+
+            long granted = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    granted++;
+                }
+            }
+            assertEquals(TOKENS_PER_MINUTE / 100, granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void exceededQuotaReturns429WithResetHeaders() {
+        TokenQuotaService quota = newQuotaService(600);
+        quota.commit(quota.reserve(userId, 900), 900);
+
+        ThrottledException ex = assertThrows(ThrottledException.class, () -> quota.reserve(userId, 200));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, ex.getHttpStatus());
+        assertTrue(ex.getRetryAfterSeconds() > 0 && ex.getRetryAfterSeconds() <= 60);
+        assertEquals("100", ex.getHeaders().get("X-TokenLimit-Remaining"));
+        assertEquals(String.valueOf(TOKENS_PER_MINUTE), ex.getHeaders().get("X-TokenLimit-Limit"));
+    }
+
+    @Test
+    void releasedAndCommittedReservationsAreReconciled() {
+        TokenQuotaService quota = newQuotaService(600);
+
+        // 800 예약 후 실제 300만 사용 → 나머지 700은 다시 사용 가능
+        quota.commit(quota.reserve(userId, 800), 300);
+        quota.release(quota.reserve(userId, 700));
+
+        assertDoesNotThrow(() -> quota.reserve(userId, 700));
+    }
+
+    @Test
+    void abandonedReservationExpiresWithLease() throws Exception {
+        // 노드가 죽어 commit/release가 오지 않은 상황
+        newQuotaService(1).reserve(userId, 1000);
+
+        TokenQuotaService survivor = newQuotaService(1);
+        assertThrows(ThrottledException.class, () -> survivor.reserve(userId, 100));
+
+        Thread.sleep(1500);
+        assertDoesNotThrow(() -> survivor.reserve(userId, 100));
+    }
+
+    private TokenQuotaService newQuotaService(long leaseSeconds) {
+        return new TokenQuotaService(stringRedisTemplate, true, TOKENS_PER_MINUTE, TOKENS_PER_DAY, leaseSeconds);
+    }
+}
@@ -0,0 +1,190 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.UpstreamException;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.UpstreamPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 여러 로컬 대체 서버를 대상으로 한 업스트림 풀 라우팅
+ */
+class UpstreamPoolTest {
+
+    private static final int WAVES = 10;
+    private static final int CALLS_PER_WAVE = 12;
+
+    private final List<FakeOpenAIServer> servers = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+    private UpstreamPool pool;
+    private OpenAIService openAIService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            servers.add(new FakeOpenAIServer());
+        }
+        registry = new SimpleMeterRegistry();
+        List<UpstreamPool.TargetSpec> targets = new ArrayList<>();
+        for (int i = 0; i < servers.size(); i++) {
+            targets.add(new UpstreamPool.TargetSpec("t" + i, new OpenAIHttpClient("sk-key-" + i,
+                    new OpenAIClientSettings(servers.get(i).baseUrl(), 16, Duration.ofMinutes(1), Duration.ZERO,
+                            32, 32, Duration.ofSeconds(1), Duration.ofSeconds(5), Duration.ofSeconds(10), false)),
+                    32));
+        }
+        pool = new UpstreamPool(targets, 3, Duration.ofSeconds(30), registry);
+        openAIService = new OpenAIService(pool, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+        servers.forEach(FakeOpenAIServer::close);
+    }
+
+    @Test
+    void routesAwayFromSlowTarget() {
+        servers.get(0).latencyMs(20);
+        servers.get(1).latencyMs(20);
+        servers.get(2).latencyMs(300);
+
+        for (int wave = 0; wave < WAVES; wave++) {
+            List<CompletableFuture<CompletionResult>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLS_PER_WAVE; i++) {
+                futures.add(openAIService.completeAsync(new ArrayList<>(), "질문 " + wave + "-" + i, null));
+            }
+            futures.forEach(future -> assertEquals(FakeOpenAIServer.REPLY, future.join().content()));
+        }
+
+        int fast = servers.get(0).requests() + servers.get(1).requests();
+        int slow = servers.get(2).requests();
+        System.out.println("요청 분배: t0=" + servers.get(0).requests() + ", t1=" + servers.get(1).requests()
+                + ", t2(느림)=" + slow);
+
+        assertEquals(WAVES * CALLS_PER_WAVE, fast + slow);
+        assertTrue(slow * 4 < fast, "느린 대상에 요청이 몰렸습니다: " + slow + " vs " + fast);
+        // 각 대상은 자기 API Key로 호출됨
+        assertEquals("Bearer sk-key-2", servers.get(2).authorizations().getFirst());
+        pool.status().forEach(status -> assertEquals(0, status.outstanding()));
+    }
+
+    @Test
+    void failingTargetIsAvoided() {
+        servers.get(1).failWith(503);
+
+        int failures = 0;
+        for (int i = 0; i < 30; i++) {
+            try {
+                openAIService.complete(new ArrayList<>(), "질문 " + i, null);
+            } catch (UpstreamException e) {
+                failures++;
+            }
+        }
+
+        // 오류율 가중치로 실패한 대상은 거의 고르지 않고, 연속 3회 실패하면 제외
+        assertEquals(failures, servers.get(1).requests());
+        assertTrue(failures <= 3, "실패한 대상에 계속 요청했습니다: " + failures);
+        assertEquals(30 - failures, servers.get(0).requests() + servers.get(2).requests());
+        assertEquals(failures, registry.get("upstream.target.requests")
+                .tag("target", "t1").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void consecutiveFailuresEjectTargets() {
+        servers.forEach(server -> server.failWith(503));
+
+        for (int i = 0; i < 9; i++) {
+            String content = "질문 " + i;
+            assertThrows(UpstreamException.class, () -> openAIService.complete(new ArrayList<>(), content, null));
+        }
+
+        // 오류율이 낮은 대상부터 고르므로 대상마다 3회씩 실패 후 제외
+        servers.forEach(server -> assertEquals(3, server.requests()));
+        pool.status().forEach(status -> assertTrue(status.ejected(), status.name() + " 제외되지 않음"));
+        assertEquals(1.0, registry.get("upstream.target.ejected").tag("target", "t1").gauge().value());
+        assertEquals(1.0, registry.get("upstream.target.ejections").tag("target", "t1").counter().count());
+
+        // 모두 제외되어도 요청은 가장 먼저 복귀할 대상으로 보냄
+        assertThrows(UpstreamException.class, () -> openAIService.complete(new ArrayList<>(), "마지막", null));
+        assertEquals(10, servers.stream().mapToInt(FakeOpenAIServer::requests).sum());
+    }
+
+    @Test
+    void revokedKeyIsEjectedAndRequestErrorsAreNeutral() {
+        // 키가 폐기된 대상은 즉시 401을 돌려주지만 빠른 대상으로 보이면 안 됨
+        servers.get(1).failWith(401);
+
+        int failures = 0;
+        for (int i = 0; i < 30; i++) {
+            try {
+                openAIService.complete(new ArrayList<>(), "질문 " + i, null);
+            } catch (UpstreamException e) {
+                failures++;
+            }
+        }
+
+        assertEquals(failures, servers.get(1).requests());
+        assertTrue(failures <= 3, "키가 폐기된 대상에 계속 요청했습니다: " + failures);
+        UpstreamPool.TargetStatus revoked = pool.status().get(1);
+        assertEquals(0.0, revoked.latencyMs());
+        assertTrue(revoked.errorRate() > 0);
+
+        // 요청 문제(400)는 대상 실패도 지연 표본도 아님
+        servers.forEach(server -> server.failWith(400));
+        for (int i = 0; i < 6; i++) {
+            String content = "잘못된 요청 " + i;
+            assertThrows(UpstreamException.class, () -> openAIService.complete(new ArrayList<>(), content, null));
+        }
+        double rejected = 0;
+        for (int i : List.of(0, 2)) {
+            assertFalse(pool.status().get(i).ejected());
+            assertEquals(0.0, registry.get("upstream.target.requests")
+                    .tag("target", "t" + i).tag("outcome", "failure").counter().count());
+            rejected += registry.get("upstream.target.requests")
+                    .tag("target", "t" + i).tag("outcome", "rejected").counter().count();
+        }
+        assertTrue(rejected > 0);
+    }
+
+    @Test
+    void streamsAreRoutedAndReleased() throws Exception {
+        servers.get(0).chunkDelayMs(10);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> content = new AtomicReference<>();
+        openAIService.createChatCompletionStream(new ArrayList<>(), "안녕", null, new SseEmitter(), new StreamListener() {
+            @Override
+            public void onComplete(String fullContent, int completionTokens) {
+                content.set(fullContent);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error, String partialContent, int completionTokens) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(FakeOpenAIServer.REPLY, content.get());
+        assertEquals(1, servers.stream().mapToInt(FakeOpenAIServer::requests).sum());
+        pool.status().forEach(status -> assertEquals(0, status.outstanding()));
+    }
+}
@@ -0,0 +1,162 @@
+package com.minje.chatbot;
+
+import com.minje.chatbot.exception.UpstreamException;
+import com.minje.chatbot.service.CompletionResult;
+import com.minje.chatbot.service.OpenAIService;
+import com.minje.chatbot.service.StreamListener;
+import com.minje.chatbot.upstream.OpenAIClientSettings;
+import com.minje.chatbot.upstream.OpenAIHttpClient;
+import com.minje.chatbot.upstream.RetrySettings;
+import com.minje.chatbot.upstream.UpstreamRetrier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamRetrierTest {
+
+    private FakeOpenAIServer server;
+    private OpenAIHttpClient httpClient;
+    private UpstreamRetrier retrier;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeOpenAIServer();
+        httpClient = new OpenAIHttpClient("sk-test", new OpenAIClientSettings(server.baseUrl(), 16,
+                Duration.ofMinutes(1), Duration.ZERO, 64, 64, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), Duration.ofSeconds(10), false));
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (retrier != null) {
+            retrier.close();
+        }
+        httpClient.close();
+        server.close();
+    }
+
+    @Test
+    void transientFailuresAreRetried() {
+        OpenAIService openAIService = service(settings(3, 20, false));
+        server.failNext(2, 503);
+
+        CompletionResult result = openAIService.complete(new ArrayList<>(), "안녕", null);
+
+        assertEquals(FakeOpenAIServer.REPLY, result.content());
+        assertEquals(3, server.requests());
+        assertEquals(2.0, registry.get("upstream.retries").tag("type", "sync").counter().count());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        OpenAIService openAIService = service(settings(3, 20, false));
+        server.failWith(400);
+
+        UpstreamException e = assertThrows(UpstreamException.class,
+                () -> openAIService.complete(new ArrayList<>(), "안녕", null));
+
+        assertEquals(400, e.getUpstreamStatus());
+        assertEquals(1, server.requests());
+    }
+
+    @Test
+    void retryAfterIsHonoured() {
+        OpenAIService openAIService = service(settings(2, 0, false));
+        server.failNext(1, 429);
+        server.retryAfter("1");
+
+        long start = System.nanoTime();
+        CompletionResult result = openAIService.complete(new ArrayList<>(), "안녕", null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(FakeOpenAIServer.REPLY, result.content());
+        assertEquals(2, server.requests());
+        assertTrue(elapsedMs >= 1000, "Retry-After보다 먼저 재시도했습니다: " + elapsedMs + "ms");
+    }
+
+    @Test
+    void retryBudgetBoundsRetriesDuringOutage() {
+        // 예산 2회, 적립 없음 — 장애 중 요청 5건은 재시도를 최대 2번만 함
+        RetrySettings settings = new RetrySettings(3, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5),
+                0, 2, false, Duration.ZERO);
+        OpenAIService openAIService = service(settings);
+        server.failWith(503);
+
+        for (int i = 0; i < 5; i++) {
+            String content = "장애 " + i;
+            assertThrows(UpstreamException.class, () -> openAIService.complete(new ArrayList<>(), content, null));
+        }
+
+        assertEquals(5 + 2, server.requests());
+        assertTrue(registry.get("upstream.retries.budget_exhausted").counter().count() >= 1);
+    }
+
+    @Test
+    void hedgedRequestCutsTailLatency() {
+        OpenAIService openAIService = service(settings(1, 0, true));
+        // p95 지연 표본 수집
+        for (int i = 0; i < 30; i++) {
+            openAIService.complete(new ArrayList<>(), "워밍업 " + i, null);
+        }
+        int warmup = server.requests();
+
+        server.stallNext(1, 3000);
+        long start = System.nanoTime();
+        CompletionResult result = openAIService.complete(new ArrayList<>(), "느린 요청", null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println("헤징 적용 응답 시간: " + elapsedMs + "ms (첫 요청 지연 3000ms)");
+        assertEquals(FakeOpenAIServer.REPLY, result.content());
+        assertEquals(warmup + 2, server.requests());
+        assertTrue(elapsedMs < 1000, "헤지 요청이 응답하지 않았습니다: " + elapsedMs + "ms");
+        assertEquals(1.0, registry.get("upstream.hedges.won").counter().count());
+    }
+
+    @Test
+    void streamIsRetriedBeforeFirstChunk() throws Exception {
+        OpenAIService openAIService = service(settings(3, 20, false));
+        server.failNext(1, 502);
+
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<String> content = new AtomicReference<>();
+        openAIService.createChatCompletionStream(new ArrayList<>(), "안녕", null, new SseEmitter(), new StreamListener() {
+            @Override
+            public void onComplete(String fullContent, int completionTokens) {
+                content.set(fullContent);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error, String partialContent, int completionTokens) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(FakeOpenAIServer.REPLY, content.get());
+        assertEquals(2, server.requests());
+        assertEquals(1.0, registry.get("upstream.retries").tag("type", "stream").counter().count());
+    }
+
+    private OpenAIService service(RetrySettings settings) {
+        retrier = new UpstreamRetrier(settings, registry);
+        return new OpenAIService(httpClient, null, retrier, "gpt-3.5-turbo", 100, 0.7);
+    }
+
+    private static RetrySettings settings(int maxAttempts, long baseBackoffMs, boolean hedge) {
+        return new RetrySettings(maxAttempts, Duration.ofMillis(baseBackoffMs), Duration.ofSeconds(1),
+                Duration.ofSeconds(5), 0.1, 20, hedge, Duration.ofMillis(50));
+    }
+}
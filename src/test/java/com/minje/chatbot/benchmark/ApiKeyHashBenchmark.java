@@ -0,0 +1,48 @@
+package com.minje.chatbot.benchmark;
+
+import com.minje.chatbot.util.ApiKeyHashUtil;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기존(요청마다 Mac 생성/초기화) vs 풀링된 Mac 해시 비교
+ * 처리량과 할당률을 함께 보려면 GC 프로파일러를 켠다:
+ * ./gradlew jmh -PjmhArgs="ApiKeyHashBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ApiKeyHashBenchmark {
+
+    private static final String PEPPER = "benchmark-pepper";
+    private static final String API_KEY = "sk-proj-abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOP";
+
+    private ApiKeyHashUtil pooled;
+
+    @Setup
+    public void setUp() {
+        pooled = new ApiKeyHashUtil(PEPPER);
+    }
+
+    @Benchmark
+    public String legacy() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(PEPPER.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] hashBytes = mac.doFinal(API_KEY.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hashBytes);
+    }
+
+    @Benchmark
+    public String pooled() {
+        return pooled.hash(API_KEY);
+    }
+}